@@ -0,0 +1,85 @@
+package com.ydanchen.handysheet.benchmarks;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.MergeCellsRequest;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.Response;
+import com.ydanchen.handysheet.SpreadSheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Building and sending the spreadsheets.batchUpdate requests
+ *
+ * @author Yevhen Danchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchUpdateRequestBenchmark {
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+    @Param({"10", "500"})
+    private int requests;
+
+    private SpreadSheet spreadsheet;
+
+    @Setup
+    public void setUp() {
+        spreadsheet = new MockSheetsTransport(new byte[0]).spreadsheet();
+    }
+
+    /**
+     * Builds the request body and serializes it, as it is done before sending
+     *
+     * @return the JSON of the request
+     * @throws IOException might be thrown
+     */
+    @Benchmark
+    public byte[] buildAndSerialize() throws IOException {
+        List<Request> list = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            list.add(new Request().setMergeCells(new MergeCellsRequest()
+                    .setMergeType("MERGE_ALL")
+                    .setRange(new GridRange()
+                            .setSheetId(0)
+                            .setStartColumnIndex(0)
+                            .setStartRowIndex(i)
+                            .setEndColumnIndex(2)
+                            .setEndRowIndex(i + 1))));
+        }
+        return JSON_FACTORY.toByteArray(new BatchUpdateSpreadsheetRequest().setRequests(list));
+    }
+
+    /**
+     * Queues the merges with the DSL in the batch mode and commits them through the mock transport
+     *
+     * @return the replies
+     * @throws IOException might be thrown
+     */
+    @Benchmark
+    public List<Response> queueAndCommit() throws IOException {
+        SpreadSheet batch = spreadsheet.beginBatch();
+        for (int i = 0; i < requests; i++) {
+            batch.onSheet(MockSheetsTransport.SHEET).from(0, i).to(2, i + 1).mergeCells();
+        }
+        return batch.commit();
+    }
+}
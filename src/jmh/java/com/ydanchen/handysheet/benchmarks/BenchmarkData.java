@@ -0,0 +1,30 @@
+package com.ydanchen.handysheet.benchmarks;
+
+/**
+ * Generates the values used by the benchmarks
+ *
+ * @author Yevhen Danchenko
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates a table of mixed values: text in the first column, numbers in the others
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @return two dimensional array of values
+     */
+    static Object[][] values(int rows, int columns) {
+        Object[][] values = new Object[rows][columns];
+        for (int row = 0; row < rows; row++) {
+            values[row][0] = "row " + row;
+            for (int column = 1; column < columns; column++) {
+                values[row][column] = row * 0.5 + column;
+            }
+        }
+        return values;
+    }
+}
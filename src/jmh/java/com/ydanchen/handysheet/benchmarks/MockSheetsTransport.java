@@ -0,0 +1,79 @@
+package com.ydanchen.handysheet.benchmarks;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.sheets.v4.Sheets;
+import com.ydanchen.handysheet.SpreadSheet;
+import com.ydanchen.handysheet.scheduling.AdaptiveRateLimiter;
+import com.ydanchen.handysheet.scheduling.RequestScheduler;
+import com.ydanchen.handysheet.scheduling.RetryPolicy;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * In-process transport answering the Sheets API calls with canned responses, so the benchmarks
+ * measure the client without the network
+ * <p>values.get returns the configured values, spreadsheets.get returns one sheet "Sheet1",
+ * other calls return an empty successful response
+ *
+ * @author Yevhen Danchenko
+ */
+class MockSheetsTransport extends MockHttpTransport {
+    static final String SPREADSHEET_ID = "benchmark";
+    static final String SHEET = "Sheet1";
+
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final byte[] SPREADSHEET = ("{\"spreadsheetId\":\"" + SPREADSHEET_ID + "\",\"sheets\":"
+            + "[{\"properties\":{\"sheetId\":0,\"title\":\"" + SHEET + "\"}}]}").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EMPTY = ("{\"spreadsheetId\":\"" + SPREADSHEET_ID + "\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] values;
+
+    /**
+     * Constructor
+     *
+     * @param values the JSON of the ValueRange returned by values.get
+     */
+    MockSheetsTransport(byte[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates a spreadsheet bound to this transport, without rate limiting and retries
+     *
+     * @return new instance of the {@link SpreadSheet}
+     */
+    SpreadSheet spreadsheet() {
+        Sheets service = new Sheets.Builder(this, JacksonFactory.getDefaultInstance(), null)
+                .setApplicationName("handysheet-benchmarks")
+                .build();
+        return new SpreadSheet(service)
+                .withId(SPREADSHEET_ID)
+                .withScheduler(new RequestScheduler(new AdaptiveRateLimiter(1e9, 1e9, 1e9), RetryPolicy.noRetries()));
+    }
+
+    @Override
+    public LowLevelHttpRequest buildRequest(String method, String url) {
+        byte[] content;
+        if (url.contains("/values/") && "GET".equals(method)) {
+            content = values;
+        } else if ("GET".equals(method)) {
+            content = SPREADSHEET;
+        } else {
+            content = EMPTY;
+        }
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() {
+                return new MockLowLevelHttpResponse()
+                        .setContentType(JSON)
+                        .setContent(content);
+            }
+        };
+    }
+}
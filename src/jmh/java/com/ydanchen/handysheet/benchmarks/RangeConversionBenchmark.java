@@ -0,0 +1,46 @@
+package com.ydanchen.handysheet.benchmarks;
+
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversions between the A1 notation and {@link NumericRange}, done for every chunk of the bulk operations
+ *
+ * @author Yevhen Danchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangeConversionBenchmark {
+    @Param({"A1:C3", "AB100:ZZ400000", "'Sheet 1'!A5:E", "A:C"})
+    private String literal;
+
+    private NumericRange numeric;
+
+    @Setup
+    public void setUp() {
+        numeric = Utils.literalRangeToNumerical(literal);
+    }
+
+    @Benchmark
+    public NumericRange literalRangeToNumerical() {
+        return Utils.literalRangeToNumerical(literal);
+    }
+
+    @Benchmark
+    public String numericRangeToLiteral() {
+        return Utils.numericRangeToLiteral(numeric);
+    }
+}
@@ -0,0 +1,77 @@
+package com.ydanchen.handysheet.benchmarks;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.ydanchen.handysheet.SpreadSheet;
+import com.ydanchen.handysheet.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * JSON serialization and deserialization of large value ranges
+ *
+ * @author Yevhen Danchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueRangeJsonBenchmark {
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final int COLUMNS = 10;
+
+    @Param({"1000", "50000"})
+    private int rows;
+
+    private ValueRange valueRange;
+    private byte[] json;
+    private SpreadSheet spreadsheet;
+    private String cells;
+
+    @Setup
+    public void setUp() throws IOException {
+        cells = "A1:J" + rows;
+        valueRange = new ValueRange()
+                .setRange(MockSheetsTransport.SHEET + "!" + cells)
+                .setMajorDimension("ROWS")
+                .setValues(Utils.twoDimArrayToListOfLists(BenchmarkData.values(rows, COLUMNS)));
+        json = JSON_FACTORY.toByteArray(valueRange);
+        spreadsheet = new MockSheetsTransport(json).spreadsheet();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return JSON_FACTORY.toByteArray(valueRange);
+    }
+
+    @Benchmark
+    public ValueRange deserialize() throws IOException {
+        return JSON_FACTORY.fromInputStream(new ByteArrayInputStream(json), StandardCharsets.UTF_8, ValueRange.class);
+    }
+
+    /**
+     * Reads the values with the DSL, parsing the response of the mock transport
+     *
+     * @return the values
+     * @throws IOException might be thrown
+     */
+    @Benchmark
+    public List<List<Object>> getValues() throws IOException {
+        return spreadsheet.onSheet(MockSheetsTransport.SHEET).toRange(cells).getValues();
+    }
+}
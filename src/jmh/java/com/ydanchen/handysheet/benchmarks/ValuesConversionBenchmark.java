@@ -0,0 +1,52 @@
+package com.ydanchen.handysheet.benchmarks;
+
+import com.ydanchen.handysheet.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+/**
+ * Conversions between the two dimensional arrays and the Lists of Lists of values
+ *
+ * @author Yevhen Danchenko
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValuesConversionBenchmark {
+    @Param({"100", "10000"})
+    private int rows;
+
+    @Param({"10"})
+    private int columns;
+
+    private Object[][] array;
+    private List<List<Object>> lists;
+
+    @Setup
+    public void setUp() {
+        array = BenchmarkData.values(rows, columns);
+        lists = Utils.twoDimArrayToListOfLists(array);
+    }
+
+    @Benchmark
+    public List<List<Object>> twoDimArrayToListOfLists() {
+        return Utils.twoDimArrayToListOfLists(array);
+    }
+
+    @Benchmark
+    public Object[][] listOfListsToTwoDimArray() {
+        return Utils.listOfListsToTwoDimArray(lists);
+    }
+}
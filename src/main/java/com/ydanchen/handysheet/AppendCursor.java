@@ -0,0 +1,175 @@
+package com.ydanchen.handysheet;
+
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+import com.ydanchen.handysheet.enums.DateTimeRenderOption;
+import com.ydanchen.handysheet.enums.ValueInputOption;
+import com.ydanchen.handysheet.enums.ValueRenderOption;
+import com.ydanchen.handysheet.json.RowHandler;
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appends rows to a table of a sheet owned by this client, without the table detection of the API
+ * <p>The end of the table is resolved once, when the cursor is opened. Every append then reserves the next rows
+ * with an atomic counter and writes them with a values update call at the reserved range, so several threads
+ * can append to the same sheet in parallel without waiting for each other, and the API doesn't scan the table.
+ * The rows of one append are contiguous and in order, the rows of concurrent appends are in the order
+ * of their reservations. The grid of the sheet is extended when the reserved rows or the appended columns
+ * don't fit in it.
+ * <p>The sheet must be owned by the cursor: rows appended by other clients or other cursors meanwhile are
+ * overwritten. The rows reserved by a failed append stay empty, the cursor doesn't move back.
+ * Obtain an instance with {@code SheetOperation.appendCursor()}
+ *
+ * @author Yevhen Danchenko
+ */
+public class AppendCursor {
+    private final SpreadSheet spreadsheet;
+    private final String sheet;
+    private final ValueInputOption valueInputOption;
+    private final int startColumn;
+    private final int endColumn;
+    private final AtomicInteger nextRow;
+    private final GridExtender grid;
+
+    /**
+     * Constructor
+     *
+     * @param spreadsheet      the spreadsheet to write to
+     * @param sheet            the sheet name
+     * @param valueInputOption how the values should be interpreted
+     * @param startColumn      the first column of the table
+     * @param endColumn        the last column of the table
+     * @param nextRow          the first row after the table
+     * @param grid             extends the grid of the sheet
+     */
+    private AppendCursor(SpreadSheet spreadsheet, String sheet, ValueInputOption valueInputOption,
+                         int startColumn, int endColumn, int nextRow, GridExtender grid) {
+        this.spreadsheet = spreadsheet;
+        this.sheet = sheet;
+        this.valueInputOption = valueInputOption;
+        this.startColumn = startColumn;
+        this.endColumn = endColumn;
+        this.nextRow = new AtomicInteger(nextRow);
+        this.grid = grid;
+    }
+
+    /**
+     * Open a cursor after the last row of the table
+     * <p>The columns of the range are read once from its first row down to find the last row with values
+     *
+     * @param spreadsheet      the spreadsheet to write to
+     * @param sheet            the sheet name
+     * @param range            the range of the table, only its columns and its first row are used, e.g. "A1:E1"
+     * @param valueInputOption how the values should be interpreted
+     * @return new instance of the {@link AppendCursor}
+     * @throws IOException might be thrown
+     */
+    static AppendCursor open(SpreadSheet spreadsheet, String sheet, String range, ValueInputOption valueInputOption)
+            throws IOException {
+        NumericRange table = Utils.literalRangeToNumerical(range);
+        int startColumn = Math.max(1, table.getStartColumn());
+        int endColumn = Math.max(startColumn, table.getEndColumn());
+        int startRow = Math.max(1, table.getStartRow());
+        RowCounter counter = new RowCounter();
+        spreadsheet.streamValuesApiCall(sheet,
+                Utils.numericRangeToLiteral(startColumn, startRow, endColumn, NumericRange.UNBOUNDED),
+                ValueRenderOption.FORMULA, DateTimeRenderOption.SERIAL_NUMBER, counter);
+        return new AppendCursor(spreadsheet, sheet, valueInputOption, startColumn, endColumn,
+                startRow + counter.rows, GridExtender.of(spreadsheet, sheet));
+    }
+
+    /**
+     * Reserve the next rows, extending the grid if they don't fit in it
+     * <p>The rows are reserved for the caller only, write them with {@code writeValues()} at the returned range
+     *
+     * @param rows the number of rows to reserve. Can't be lower than 1
+     * @return the reserved rows within the columns of the table
+     * @throws IOException if the grid can't be extended
+     */
+    public NumericRange reserve(int rows) throws IOException {
+        if (rows < 1) {
+            throw new IllegalArgumentException("Can't reserve less than 1 row: " + rows);
+        }
+        int firstRow = nextRow.getAndAdd(rows);
+        int lastRow = firstRow + rows - 1;
+        grid.ensureRows(lastRow);
+        return new NumericRange(sheet, startColumn, firstRow, endColumn, lastRow);
+    }
+
+    /**
+     * Append the rows after the rows appended so far
+     *
+     * @param values the rows, written from the first column of the table
+     * @return {@link UpdateValuesResponse}, or null if there are no rows
+     * @throws IOException might be thrown
+     */
+    public UpdateValuesResponse append(List<List<Object>> values) throws IOException {
+        if (values.isEmpty()) {
+            return null;
+        }
+        int width = endColumn - startColumn + 1;
+        for (List<Object> row : values) {
+            width = Math.max(width, row.size());
+        }
+        NumericRange reserved = reserve(values.size());
+        grid.ensureColumns(startColumn + width - 1);
+        return spreadsheet.updateValuesApiCall(sheet, Utils.numericRangeToLiteral(startColumn, reserved.getStartRow(),
+                startColumn + width - 1, reserved.getEndRow()), valueInputOption, values);
+    }
+
+    /**
+     * Append the rows after the rows appended so far
+     *
+     * @param values two dimensional array of values, written from the first column of the table
+     * @return {@link UpdateValuesResponse}, or null if there are no rows
+     * @throws IOException might be thrown
+     */
+    public UpdateValuesResponse append(Object[][] values) throws IOException {
+        return append(Utils.twoDimArrayToListOfLists(values));
+    }
+
+    /**
+     * Next row getter
+     *
+     * @return the 1-based row the next append starts at
+     */
+    public int getNextRow() {
+        return nextRow.get();
+    }
+
+    /**
+     * Counts the rows of the table, up to the last row with values
+     */
+    private static final class RowCounter implements RowHandler {
+        private int rows;
+
+        @Override
+        public void addNull() {
+        }
+
+        @Override
+        public void addString(String value) {
+        }
+
+        @Override
+        public void addLong(long value) {
+        }
+
+        @Override
+        public void addDouble(double value) {
+        }
+
+        @Override
+        public void addBoolean(boolean value) {
+        }
+
+        @Override
+        public void endRow() {
+            rows++;
+        }
+    }
+}
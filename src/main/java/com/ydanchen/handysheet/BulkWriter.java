@@ -0,0 +1,243 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes rows to consecutive ranges of a sheet in fixed-size chunks
+ * <p>Rows are accepted one by one and uploaded as soon as a chunk is full,
+ * with a bounded number of chunk uploads in flight. When the limit is reached,
+ * writing the next chunk blocks until one of the uploads completes.
+ * Obtain an instance with {@link SheetOperation#bulkWriter(int, int)} and close it to upload the remaining rows
+ *
+ * @author Yevhen Danchenko
+ */
+public class BulkWriter implements Closeable {
+    private final ChunkUploader uploader;
+    private final Executor executor;
+    private final NumericRange range;
+    private final int chunkRows;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private List<List<Object>> chunk;
+    private long chunkBytes;
+    private int nextRow;
+    private boolean closed;
+
+    /**
+     * Uploads one chunk of rows
+     */
+    interface ChunkUploader {
+        /**
+         * Uploads the rows to the range
+         *
+         * @param range  the range to write the rows to
+         * @param values the rows
+         * @throws IOException might be thrown
+         */
+        void upload(NumericRange range, List<List<Object>> values) throws IOException;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param uploader    uploads one chunk of rows
+     * @param executor    the executor to run the uploads on
+     * @param range       the range of the first row. Only the start row and the columns are used
+     * @param chunkRows   the number of rows in one chunk. Can't be lower than 1
+     * @param maxInFlight the maximum number of concurrent uploads. Can't be lower than 1
+     */
+    BulkWriter(ChunkUploader uploader, Executor executor, NumericRange range, int chunkRows, int maxInFlight) {
+        if (chunkRows < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Chunk size and in-flight limit can't be lower than 1");
+        }
+        this.uploader = uploader;
+        this.executor = executor;
+        this.range = range;
+        this.chunkRows = chunkRows;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.nextRow = Math.max(1, range.getStartRow());
+        this.chunk = new ArrayList<>(chunkRows);
+    }
+
+    /**
+     * Write one row
+     * <p>Blocks when the chunk is full and the limit of uploads in flight is reached
+     *
+     * @param row the values of the row
+     * @throws IOException if one of the previous uploads has failed
+     */
+    public void write(List<Object> row) throws IOException {
+        ensureOpen();
+        chunk.add(row);
+        for (Object value : row) {
+            chunkBytes += value == null ? 0 : String.valueOf(value).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (chunk.size() == chunkRows) {
+            flush();
+        }
+    }
+
+    /**
+     * Write one row
+     *
+     * @param row the values of the row
+     * @throws IOException if one of the previous uploads has failed
+     */
+    public void write(Object... row) throws IOException {
+        write(Arrays.asList(row));
+    }
+
+    /**
+     * Write several rows
+     *
+     * @param rows two dimensional array of values
+     * @throws IOException if one of the previous uploads has failed
+     */
+    public void write(Object[][] rows) throws IOException {
+        for (Object[] row : rows) {
+            write(Arrays.asList(row));
+        }
+    }
+
+    /**
+     * Upload the rows written so far, even if the chunk is not full
+     *
+     * @throws IOException if one of the previous uploads has failed
+     */
+    public void flush() throws IOException {
+        ensureOpen();
+        if (chunk.isEmpty()) {
+            return;
+        }
+        acquire(1);
+        List<List<Object>> values = chunk;
+        long bytes = chunkBytes;
+        NumericRange chunkRange = new NumericRange(range.getSheet(), range.getStartColumn(), nextRow,
+                range.getEndColumn(), nextRow + values.size() - 1);
+        nextRow += values.size();
+        String literal = Utils.numericRangeToLiteral(chunkRange);
+        chunk = new ArrayList<>(chunkRows);
+        chunkBytes = 0;
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    if (failure.get() == null) {
+                        uploader.upload(chunkRange, values);
+                        rowsWritten.addAndGet(values.size());
+                        bytesWritten.addAndGet(bytes);
+                    }
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, new IOException("Upload of " + literal + " has failed", e));
+                } finally {
+                    inFlight.release();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            failure.compareAndSet(null, new IOException("Upload of " + literal + " was rejected", e));
+            throwIfFailed();
+        }
+    }
+
+    /**
+     * Upload the remaining rows and wait for all uploads to complete
+     *
+     * @throws IOException if one of the uploads has failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Number of rows uploaded
+     *
+     * @return the total number of rows uploaded, final once the writer is closed
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    /**
+     * Number of bytes uploaded
+     *
+     * @return the total size of the uploaded values encoded as UTF-8, final once the writer is closed
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Checks the writer is open and none of the uploads has failed
+     *
+     * @throws IOException if one of the uploads has failed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The writer is closed");
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Rethrows the failure of an upload, if any
+     *
+     * @throws IOException if one of the uploads has failed
+     */
+    private void throwIfFailed() throws IOException {
+        IOException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Acquires upload slots, blocking until they are available
+     *
+     * @param permits the number of slots
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    private void acquire(int permits) throws InterruptedIOException {
+        try {
+            inFlight.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for uploads in flight");
+        }
+    }
+}
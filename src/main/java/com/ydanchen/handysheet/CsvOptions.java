@@ -0,0 +1,311 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.frame.ColumnType;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * How a delimited text file is parsed and uploaded by {@code SheetOperation.importCsv()}
+ * <p>By default the file is comma-separated UTF-8 with double quotes, every line is imported
+ * and unquoted fields which look like numbers are sent as numbers, so they stay numbers under
+ * {@link com.ydanchen.handysheet.enums.ValueInputOption#RAW}. Numbers with leading zeros, like "007",
+ * and quoted fields are sent as text unless their column has a type
+ *
+ * @author Yevhen Danchenko
+ */
+public final class CsvOptions {
+    private static final int DEFAULT_CHUNK_ROWS = 1000;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MIN_BUFFER_SIZE = 16;
+
+    private final char delimiter;
+    private final char quote;
+    private final Charset charset;
+    private final boolean skipHeader;
+    private final boolean inferNumbers;
+    private final ColumnType[] columnTypes;
+    private final int chunkRows;
+    private final int maxInFlight;
+    private final int bufferSize;
+
+    /**
+     * Constructor
+     *
+     * @param builder the builder with the options
+     */
+    private CsvOptions(Builder builder) {
+        this.delimiter = builder.delimiter;
+        this.quote = builder.quote;
+        this.charset = builder.charset;
+        this.skipHeader = builder.skipHeader;
+        this.inferNumbers = builder.inferNumbers;
+        this.columnTypes = builder.columnTypes.clone();
+        this.chunkRows = builder.chunkRows;
+        this.maxInFlight = builder.maxInFlight;
+        this.bufferSize = builder.bufferSize;
+    }
+
+    /**
+     * The default options for comma-separated files
+     *
+     * @return new instance of the {@link CsvOptions}
+     */
+    public static CsvOptions csv() {
+        return builder().build();
+    }
+
+    /**
+     * The default options for tab-separated files
+     *
+     * @return new instance of the {@link CsvOptions}
+     */
+    public static CsvOptions tsv() {
+        return builder().delimiter('\t').build();
+    }
+
+    /**
+     * Create a builder of the options
+     *
+     * @return new instance of the {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Delimiter getter
+     *
+     * @return the character separating the fields
+     */
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Quote getter
+     *
+     * @return the character enclosing the fields which contain delimiters, quotes or line breaks
+     */
+    public char getQuote() {
+        return quote;
+    }
+
+    /**
+     * Charset getter
+     *
+     * @return the encoding of the file
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Skip header getter
+     *
+     * @return true if the first line of the file isn't imported
+     */
+    public boolean isSkipHeader() {
+        return skipHeader;
+    }
+
+    /**
+     * Infer numbers getter
+     *
+     * @return true if the unquoted fields of the columns without a type are sent as numbers when they look like ones
+     */
+    public boolean isInferNumbers() {
+        return inferNumbers;
+    }
+
+    /**
+     * Column type getter
+     *
+     * @param column the 0-based index of the column in the file
+     * @return the type of the column, or null if it has no type
+     */
+    public ColumnType getColumnType(int column) {
+        return column < columnTypes.length ? columnTypes[column] : null;
+    }
+
+    /**
+     * Chunk rows getter
+     *
+     * @return the number of rows uploaded with one API call
+     */
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    /**
+     * Max in flight getter
+     *
+     * @return the maximum number of chunk uploads running concurrently
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Buffer size getter
+     *
+     * @return the number of bytes read from the file at once
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CsvOptions{" +
+                "delimiter=" + delimiter +
+                ", quote=" + quote +
+                ", charset=" + charset +
+                ", skipHeader=" + skipHeader +
+                ", inferNumbers=" + inferNumbers +
+                ", columnTypes=" + Arrays.toString(columnTypes) +
+                ", chunkRows=" + chunkRows +
+                ", maxInFlight=" + maxInFlight +
+                ", bufferSize=" + bufferSize +
+                '}';
+    }
+
+    /**
+     * Builds the options
+     */
+    public static final class Builder {
+        private char delimiter = ',';
+        private char quote = '"';
+        private Charset charset = StandardCharsets.UTF_8;
+        private boolean skipHeader;
+        private boolean inferNumbers = true;
+        private ColumnType[] columnTypes = new ColumnType[0];
+        private int chunkRows = DEFAULT_CHUNK_ROWS;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the delimiter, a comma by default
+         *
+         * @param delimiter the character separating the fields, e.g. '\t' or ';'
+         * @return current instance of the {@link Builder}
+         */
+        public Builder delimiter(char delimiter) {
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * Set the quote, a double quote by default
+         *
+         * @param quote the character enclosing the fields, doubled to escape it within a field
+         * @return current instance of the {@link Builder}
+         */
+        public Builder quote(char quote) {
+            this.quote = quote;
+            return this;
+        }
+
+        /**
+         * Set the encoding of the file, UTF-8 by default
+         *
+         * @param charset the encoding
+         * @return current instance of the {@link Builder}
+         */
+        public Builder charset(Charset charset) {
+            this.charset = charset;
+            return this;
+        }
+
+        /**
+         * Don't import the first line of the file
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder skipHeader() {
+            this.skipHeader = true;
+            return this;
+        }
+
+        /**
+         * Send every field of the columns without a type as text
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder noNumberInference() {
+            this.inferNumbers = false;
+            return this;
+        }
+
+        /**
+         * Set the types of the columns, in the order of the columns of the file
+         * <p>Fields of typed columns are converted even when they are quoted, and a field which can't be converted
+         * fails the import. A null type or a column past the given types is handled as if it had no type.
+         * Empty fields are sent as empty strings whatever the type
+         *
+         * @param columnTypes the types of the columns
+         * @return current instance of the {@link Builder}
+         */
+        public Builder columnTypes(ColumnType... columnTypes) {
+            this.columnTypes = columnTypes.clone();
+            return this;
+        }
+
+        /**
+         * Set the number of rows uploaded with one API call
+         *
+         * @param chunkRows the number of rows. Can't be lower than 1
+         * @return current instance of the {@link Builder}
+         */
+        public Builder chunkRows(int chunkRows) {
+            if (chunkRows < 1) {
+                throw new IllegalArgumentException("Chunk size can't be lower than 1: " + chunkRows);
+            }
+            this.chunkRows = chunkRows;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of chunk uploads running concurrently
+         *
+         * @param maxInFlight the number of uploads. Can't be lower than 1
+         * @return current instance of the {@link Builder}
+         */
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("In-flight limit can't be lower than 1: " + maxInFlight);
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Set the number of bytes read from the file at once
+         *
+         * @param bufferSize the size of the read buffer. Can't be lower than {@value CsvOptions#MIN_BUFFER_SIZE}
+         * @return current instance of the {@link Builder}
+         */
+        public Builder bufferSize(int bufferSize) {
+            if (bufferSize < MIN_BUFFER_SIZE) {
+                throw new IllegalArgumentException("Buffer size can't be lower than " + MIN_BUFFER_SIZE + ": "
+                        + bufferSize);
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Build the options
+         *
+         * @return new instance of the {@link CsvOptions}
+         */
+        public CsvOptions build() {
+            return new CsvOptions(this);
+        }
+    }
+}
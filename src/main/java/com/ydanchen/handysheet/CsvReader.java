@@ -0,0 +1,301 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.frame.ColumnType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the rows of a delimited text file, converting the fields as described by {@link CsvOptions}
+ * <p>The file is read through one direct byte buffer and one char buffer, both reused for the whole file,
+ * and the fields are collected in one reused {@link StringBuilder}. Numbers are parsed from the characters
+ * without creating Strings when they are whole, so mostly text fields are allocated.
+ * Quoted fields may contain delimiters, line breaks and doubled quotes. Lines end with "\n", "\r\n" or "\r".
+ * Malformed input is replaced, a byte order mark at the start of the file is skipped
+ *
+ * @author Yevhen Danchenko
+ */
+class CsvReader implements Closeable {
+    private static final int EOF = -1;
+    private static final char BOM = '\uFEFF';
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private final ReadableByteChannel channel;
+    private final CsvOptions options;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder field = new StringBuilder();
+    private boolean endOfInput;
+    private boolean flushed;
+    private boolean started;
+    private long line = 1;
+    private int width;
+
+    /**
+     * Constructor
+     *
+     * @param channel the channel to read the file from
+     * @param options how the file is parsed
+     */
+    CsvReader(ReadableByteChannel channel, CsvOptions options) {
+        this.channel = channel;
+        this.options = options;
+        this.decoder = options.getCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(options.getBufferSize());
+        this.chars = CharBuffer.allocate(options.getBufferSize());
+        this.chars.flip();
+    }
+
+    /**
+     * Read the next row
+     *
+     * @return the converted values of the row, or null at the end of the file
+     * @throws IOException if the file can't be read or a field of a typed column can't be converted
+     */
+    List<Object> readRow() throws IOException {
+        int c = read();
+        if (!started) {
+            started = true;
+            if (c == BOM) {
+                c = read();
+            }
+        }
+        if (c == EOF) {
+            return null;
+        }
+        long rowLine = line;
+        List<Object> row = new ArrayList<>(Math.max(width, 1));
+        char delimiter = options.getDelimiter();
+        char quote = options.getQuote();
+        while (true) {
+            field.setLength(0);
+            boolean quoted = c == quote;
+            if (quoted) {
+                while (true) {
+                    c = read();
+                    if (c == EOF) {
+                        throw new IOException("Unclosed quote in the field starting at line " + rowLine);
+                    }
+                    if (c == quote) {
+                        c = read();
+                        if (c != quote) {
+                            break;
+                        }
+                    } else if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            }
+            while (c != delimiter && c != '\n' && c != '\r' && c != EOF) {
+                field.append((char) c);
+                c = read();
+            }
+            row.add(convert(row.size(), quoted, rowLine));
+            if (c == delimiter) {
+                c = read();
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                read();
+            }
+            if (c != EOF) {
+                line++;
+            }
+            width = Math.max(width, row.size());
+            return row;
+        }
+    }
+
+    /**
+     * Closes the channel
+     *
+     * @throws IOException might be thrown
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Converts the collected field
+     *
+     * @param column the 0-based index of the column
+     * @param quoted true if the field was quoted
+     * @param line   the line of the row, for the error messages
+     * @return the value to send
+     * @throws IOException if the field of a typed column can't be converted
+     */
+    private Object convert(int column, boolean quoted, long line) throws IOException {
+        if (field.length() == 0) {
+            return "";
+        }
+        ColumnType type = options.getColumnType(column);
+        if (type == null) {
+            if (quoted || !options.isInferNumbers()) {
+                return field.toString();
+            }
+            Object number = inferNumber();
+            return number == null ? field.toString() : number;
+        }
+        try {
+            switch (type) {
+                case LONG:
+                    return Long.parseLong(field.toString().trim());
+                case DOUBLE:
+                    return Double.parseDouble(field.toString());
+                case BOOLEAN:
+                    return parseBoolean(field.toString().trim());
+                default:
+                    return field.toString();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Line " + line + ", column " + (column + 1) + ": '" + field + "' is not "
+                    + type, e);
+        }
+    }
+
+    /**
+     * Parses the field as a number if it is written the plain way, e.g. "-12", "0.5" or "1.5E3"
+     * <p>Leading zeros, signs other than a leading minus, spaces and special values like "NaN" are not numbers.
+     * Neither are whole numbers longer than {@value #MAX_EXACT_DIGITS} digits, e.g. ids,
+     * which the spreadsheet would round
+     *
+     * @return {@link Long} or {@link Double}, or null if the field is not a plain number
+     */
+    private Object inferNumber() {
+        int length = field.length();
+        int i = field.charAt(0) == '-' ? 1 : 0;
+        int integerStart = i;
+        long value = 0;
+        while (i < length && isDigit(field.charAt(i))) {
+            value = value * 10 + (field.charAt(i) - '0');
+            i++;
+        }
+        int integerDigits = i - integerStart;
+        if (integerDigits == 0 || integerDigits > 1 && field.charAt(integerStart) == '0') {
+            return null;
+        }
+        if (i == length) {
+            if (integerDigits > MAX_EXACT_DIGITS) {
+                return null;
+            }
+            return integerStart == 0 ? value : -value;
+        }
+        if (field.charAt(i) == '.') {
+            int fractionStart = ++i;
+            while (i < length && isDigit(field.charAt(i))) {
+                i++;
+            }
+            if (i == fractionStart) {
+                return null;
+            }
+        }
+        if (i < length && (field.charAt(i) == 'e' || field.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (field.charAt(i) == '-' || field.charAt(i) == '+')) {
+                i++;
+            }
+            int exponentStart = i;
+            while (i < length && isDigit(field.charAt(i))) {
+                i++;
+            }
+            if (i == exponentStart) {
+                return null;
+            }
+        }
+        return i == length ? Double.parseDouble(field.toString()) : null;
+    }
+
+    /**
+     * Checks whether the character is an ASCII digit
+     *
+     * @param c the character
+     * @return true for '0' to '9'
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parses "true" or "false", ignoring the case
+     *
+     * @param value the text
+     * @return the boolean value
+     * @throws IllegalArgumentException if the text is neither
+     */
+    private static boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    /**
+     * Reads the next character
+     *
+     * @return the character, or {@value #EOF} at the end of the file
+     * @throws IOException might be thrown
+     */
+    private int read() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return chars.get();
+    }
+
+    /**
+     * Looks at the next character without reading it
+     *
+     * @return the character, or {@value #EOF} at the end of the file
+     * @throws IOException might be thrown
+     */
+    private int peek() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return EOF;
+        }
+        return chars.get(chars.position());
+    }
+
+    /**
+     * Decodes the next characters, reading more bytes from the channel when needed
+     *
+     * @return false at the end of the file
+     * @throws IOException might be thrown
+     */
+    private boolean fill() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && !flushed) {
+            if (!endOfInput && channel.read(bytes) < 0) {
+                endOfInput = true;
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (endOfInput && result.isUnderflow()) {
+                decoder.flush(chars);
+                flushed = true;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
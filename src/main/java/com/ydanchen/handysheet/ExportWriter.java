@@ -0,0 +1,274 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.enums.ExportFormat;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes rows of values in one of the {@link ExportFormat}s straight into a channel
+ * <p>The characters are put into one reused char buffer and encoded as UTF-8 into one reused direct byte buffer,
+ * which is written to the channel whenever it is full, so memory doesn't grow with the number of rows.
+ * Text values are copied character by character without building the line as a String
+ *
+ * @author Yevhen Danchenko
+ */
+class ExportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final char delimiter;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long rowsWritten;
+    private long bytesWritten;
+    private boolean closed;
+
+    /**
+     * Constructor
+     *
+     * @param channel the channel to write to, closed with the writer
+     * @param format  the format of the rows
+     */
+    ExportWriter(WritableByteChannel channel, ExportFormat format) {
+        this.channel = channel;
+        this.format = format;
+        this.delimiter = format == ExportFormat.TSV ? '\t' : ',';
+    }
+
+    /**
+     * Write one row as one line
+     *
+     * @param row   the values of the row
+     * @param width the minimum number of fields of a CSV or TSV line, the row is padded with empty fields
+     * @throws IOException might be thrown
+     */
+    void writeRow(List<Object> row, int width) throws IOException {
+        if (format == ExportFormat.JSON_LINES) {
+            append('[');
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) {
+                    append(',');
+                }
+                appendJson(row.get(i));
+            }
+            append(']');
+        } else {
+            int fields = Math.max(width, row.size());
+            for (int i = 0; i < fields; i++) {
+                if (i > 0) {
+                    append(delimiter);
+                }
+                if (i < row.size() && row.get(i) != null) {
+                    appendDelimited(row.get(i));
+                }
+            }
+        }
+        append('\n');
+        rowsWritten++;
+    }
+
+    /**
+     * Number of rows written
+     *
+     * @return the number of lines written so far
+     */
+    long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Number of bytes written
+     *
+     * @return the number of bytes written to the channel, final once the writer is closed
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes the buffered characters and closes the channel
+     *
+     * @throws IOException might be thrown
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            encode(true);
+            while (encoder.flush(bytes).isOverflow()) {
+                writeBytes();
+            }
+            writeBytes();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Appends the value as a CSV or TSV field, quoted if it contains the delimiter, a quote or a line break
+     *
+     * @param value the value
+     * @throws IOException might be thrown
+     */
+    private void appendDelimited(Object value) throws IOException {
+        if (!(value instanceof String)) {
+            append(scalar(value));
+            return;
+        }
+        String text = (String) value;
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            char c = text.charAt(i);
+            quoted = c == delimiter || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            append(text);
+            return;
+        }
+        append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                append('"');
+            }
+            append(c);
+        }
+        append('"');
+    }
+
+    /**
+     * Appends the value as a JSON value
+     *
+     * @param value the value, might be null
+     * @throws IOException might be thrown
+     */
+    private void appendJson(Object value) throws IOException {
+        if (value == null) {
+            append("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            append(scalar(value));
+        } else {
+            String text = value.toString();
+            append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':
+                        append("\\\"");
+                        break;
+                    case '\\':
+                        append("\\\\");
+                        break;
+                    case '\n':
+                        append("\\n");
+                        break;
+                    case '\r':
+                        append("\\r");
+                        break;
+                    case '\t':
+                        append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            append("\\u00");
+                            append(HEX[c >> 4]);
+                            append(HEX[c & 0xF]);
+                        } else {
+                            append(c);
+                        }
+                }
+            }
+            append('"');
+        }
+    }
+
+    /**
+     * Renders a number or a boolean, numbers without an exponent
+     *
+     * @param value the value
+     * @return the text of the value
+     */
+    private static String scalar(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * Appends the text
+     *
+     * @param text the text
+     * @throws IOException might be thrown
+     */
+    private void append(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    /**
+     * Appends one character, encoding the buffered ones when the buffer is full
+     *
+     * @param c the character
+     * @throws IOException might be thrown
+     */
+    private void append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+    }
+
+    /**
+     * Encodes the buffered characters, writing the bytes to the channel whenever their buffer is full.
+     * An unpaired high surrogate at the end is kept until the next character
+     *
+     * @param endOfInput true if no more characters follow
+     * @throws IOException might be thrown
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        while (result.isOverflow()) {
+            writeBytes();
+            result = encoder.encode(chars, bytes, endOfInput);
+        }
+        chars.compact();
+    }
+
+    /**
+     * Writes the encoded bytes to the channel
+     *
+     * @throws IOException might be thrown
+     */
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            bytesWritten += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
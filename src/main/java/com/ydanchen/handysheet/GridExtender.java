@@ -0,0 +1,135 @@
+package com.ydanchen.handysheet;
+
+import com.google.api.services.sheets.v4.model.AppendDimensionRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetResponse;
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.Request;
+import com.ydanchen.handysheet.enums.Dimension;
+import com.ydanchen.handysheet.util.NumericRange;
+
+import java.io.IOException;
+
+/**
+ * Keeps the grid of a sheet large enough for the rows and the columns written by this client
+ * <p>Values updates are rejected outside of the grid, so writers which run past its end append empty rows
+ * or columns first. The size of the grid is read once and then tracked locally, the grid is extended
+ * by one caller at a time: rows in steps of {@value #GROW_ROWS}, columns up to the last written one
+ *
+ * @author Yevhen Danchenko
+ */
+class GridExtender {
+    private static final int GROW_ROWS = 1000;
+
+    private final SpreadSheet spreadsheet;
+    private final String sheet;
+    private volatile int gridRows;
+    private volatile int gridColumns;
+
+    /**
+     * Constructor
+     *
+     * @param spreadsheet the spreadsheet the sheet belongs to
+     * @param sheet       the sheet name
+     * @param gridRows    the number of rows of the grid of the sheet
+     * @param gridColumns the number of columns of the grid of the sheet
+     */
+    private GridExtender(SpreadSheet spreadsheet, String sheet, int gridRows, int gridColumns) {
+        this.spreadsheet = spreadsheet;
+        this.sheet = sheet;
+        this.gridRows = gridRows;
+        this.gridColumns = gridColumns;
+    }
+
+    /**
+     * Create an extender for the sheet, reading the size of its grid
+     *
+     * @param spreadsheet the spreadsheet the sheet belongs to
+     * @param sheet       the sheet name
+     * @return new instance of the {@link GridExtender}
+     * @throws IOException might be thrown
+     */
+    static GridExtender of(SpreadSheet spreadsheet, String sheet) throws IOException {
+        GridProperties grid = spreadsheet.getSheetProperties(sheet).getGridProperties();
+        return new GridExtender(spreadsheet, sheet, grid.getRowCount(), grid.getColumnCount());
+    }
+
+    /**
+     * Make sure the row fits in the grid, appending empty rows if it doesn't
+     *
+     * @param lastRow the last row which must fit in the grid
+     * @throws IOException if the grid can't be extended
+     */
+    void ensureRows(int lastRow) throws IOException {
+        if (lastRow > gridRows) {
+            extendRows(lastRow);
+        }
+    }
+
+    /**
+     * Make sure the column fits in the grid, appending empty columns if it doesn't
+     *
+     * @param lastColumn the last 1-based column which must fit in the grid
+     * @throws IOException if the grid can't be extended
+     */
+    void ensureColumns(int lastColumn) throws IOException {
+        if (lastColumn > gridColumns) {
+            extendColumns(lastColumn);
+        }
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Appends empty rows to the grid of the sheet, at least up to the row and in steps of {@value #GROW_ROWS} rows
+     *
+     * @param lastRow the last row which must fit in the grid
+     * @throws IOException might be thrown
+     */
+    private synchronized void extendRows(int lastRow) throws IOException {
+        int rows = gridRows;
+        if (lastRow <= rows) {
+            return;
+        }
+        int length = (lastRow - rows + GROW_ROWS - 1) / GROW_ROWS * GROW_ROWS;
+        append(Dimension.ROWS, length,
+                new NumericRange(NumericRange.UNBOUNDED, rows + 1, NumericRange.UNBOUNDED, rows + length));
+        gridRows = rows + length;
+    }
+
+    /**
+     * Appends empty columns to the grid of the sheet, up to the column
+     *
+     * @param lastColumn the last column which must fit in the grid
+     * @throws IOException might be thrown
+     */
+    private synchronized void extendColumns(int lastColumn) throws IOException {
+        int columns = gridColumns;
+        if (lastColumn <= columns) {
+            return;
+        }
+        append(Dimension.COLUMNS, lastColumn - columns,
+                new NumericRange(columns + 1, NumericRange.UNBOUNDED, lastColumn, NumericRange.UNBOUNDED));
+        gridColumns = lastColumn;
+    }
+
+    /**
+     * Appends empty rows or columns at the end of the grid of the sheet
+     *
+     * @param dimension the dimension to extend
+     * @param length    the number of rows or columns to append
+     * @param affected  the appended cells
+     * @throws IOException might be thrown
+     */
+    private void append(Dimension dimension, int length, NumericRange affected) throws IOException {
+        BatchUpdateSpreadsheetResponse response = spreadsheet.batchUpdateApiCall(sheet, affected,
+                new Request().setAppendDimension(new AppendDimensionRequest()
+                        .setSheetId(spreadsheet.getSheetId(sheet))
+                        .setDimension(dimension.getValue())
+                        .setLength(length)));
+        if (response == null) {
+            throw new IllegalStateException("The grid can't be extended in the batch mode");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ydanchen.handysheet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of {@code SheetOperation.importCsv()}: how much was imported and how fast
+ *
+ * @author Yevhen Danchenko
+ */
+public class ImportResult {
+    private final long rowsWritten;
+    private final long bytesRead;
+    private final long bytesWritten;
+    private final long elapsedNanos;
+
+    /**
+     * Constructor
+     *
+     * @param rowsWritten  the number of rows uploaded
+     * @param bytesRead    the size of the file
+     * @param bytesWritten the size of the uploaded values encoded as UTF-8
+     * @param elapsedNanos the duration of the import, in nanoseconds
+     */
+    ImportResult(long rowsWritten, long bytesRead, long bytesWritten, long elapsedNanos) {
+        this.rowsWritten = rowsWritten;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Number of written rows
+     *
+     * @return the number of rows uploaded
+     */
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Number of read bytes
+     *
+     * @return the size of the imported file
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Number of written bytes
+     *
+     * @return the size of the uploaded values encoded as UTF-8
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Duration of the import
+     *
+     * @param unit the unit of the result
+     * @return the time from opening the file to the completion of the last upload
+     */
+    public long getElapsed(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Throughput of the import
+     *
+     * @return the number of rows uploaded per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsWritten * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "rowsWritten=" + rowsWritten +
+                ", bytesRead=" + bytesRead +
+                ", bytesWritten=" + bytesWritten +
+                ", elapsedMillis=" + getElapsed(TimeUnit.MILLISECONDS) +
+                ", rowsPerSecond=" + Math.round(getRowsPerSecond()) +
+                '}';
+    }
+}
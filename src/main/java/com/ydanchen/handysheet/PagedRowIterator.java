@@ -0,0 +1,170 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.util.NumericRange;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Iterates over the rows of a range, loading it window by window
+ * <p>The next window is requested in the background as soon as the current one is handed out,
+ * so at most two windows are held in memory at a time.
+ * Bounded ranges are read up to their end row, blank gaps included, trailing empty rows are not returned.
+ * Ranges with an unbounded end row, like "A1:E", are read until the first window which contains no values at all
+ *
+ * @author Yevhen Danchenko
+ */
+class PagedRowIterator implements Iterator<List<Object>>, Closeable {
+    private final WindowLoader loader;
+    private final Executor executor;
+    private final NumericRange range;
+    private final int windowSize;
+    private final int endRow;
+    private final boolean bounded;
+    private long nextWindowStart;
+    private int prefetchedRows;
+    private CompletableFuture<List<List<Object>>> prefetch;
+    private Iterator<List<Object>> current = Collections.emptyIterator();
+    private int emptyRowsBefore;
+    private int pendingEmptyRows;
+    private boolean finished;
+
+    /**
+     * Loads the values of one window
+     */
+    interface WindowLoader {
+        /**
+         * Loads the values of the window
+         *
+         * @param window the range of the window
+         * @return the values, trailing empty rows might be omitted
+         * @throws IOException might be thrown
+         */
+        List<List<Object>> load(NumericRange window) throws IOException;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param loader     loads the values of a window
+     * @param executor   the executor to prefetch windows on
+     * @param range      the range to iterate over
+     * @param windowSize the number of rows in one window. Can't be lower than 1
+     */
+    PagedRowIterator(WindowLoader loader, Executor executor, NumericRange range, int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size can't be lower than 1: " + windowSize);
+        }
+        this.loader = loader;
+        this.executor = executor;
+        this.range = range;
+        this.windowSize = windowSize;
+        this.bounded = range.getEndRow() != NumericRange.UNBOUNDED;
+        this.endRow = bounded ? range.getEndRow() : Integer.MAX_VALUE;
+        this.nextWindowStart = Math.max(1, range.getStartRow());
+        prefetchNextWindow();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (emptyRowsBefore == 0 && !current.hasNext()) {
+            if (finished || prefetch == null) {
+                finished = true;
+                return false;
+            }
+            int requestedRows = prefetchedRows;
+            List<List<Object>> window = awaitPrefetch();
+            if (window == null || window.isEmpty()) {
+                if (!bounded) {
+                    close();
+                    return false;
+                }
+                prefetchNextWindow();
+                pendingEmptyRows += requestedRows;
+                continue;
+            }
+            prefetchNextWindow();
+            emptyRowsBefore = pendingEmptyRows;
+            pendingEmptyRows = requestedRows - window.size();
+            current = window.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (emptyRowsBefore > 0) {
+            emptyRowsBefore--;
+            return Collections.emptyList();
+        }
+        return current.next();
+    }
+
+    /**
+     * Stops the iteration and cancels the pending prefetch
+     */
+    @Override
+    public void close() {
+        finished = true;
+        current = Collections.emptyIterator();
+        emptyRowsBefore = 0;
+        if (prefetch != null) {
+            prefetch.cancel(true);
+            prefetch = null;
+        }
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Requests the next window in the background, if the range isn't exhausted yet
+     */
+    private void prefetchNextWindow() {
+        if (nextWindowStart > endRow) {
+            prefetch = null;
+            return;
+        }
+        int windowEnd = (int) Math.min(nextWindowStart + windowSize - 1, endRow);
+        NumericRange window = new NumericRange(range.getSheet(), range.getStartColumn(), (int) nextWindowStart,
+                range.getEndColumn(), windowEnd);
+        prefetchedRows = (int) (windowEnd - nextWindowStart + 1);
+        nextWindowStart = windowEnd + 1L;
+        prefetch = CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load(window);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Waits for the prefetched window
+     *
+     * @return the values of the window
+     */
+    private List<List<Object>> awaitPrefetch() {
+        try {
+            return prefetch.join();
+        } catch (CompletionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
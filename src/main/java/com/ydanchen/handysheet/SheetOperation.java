@@ -0,0 +1,876 @@
+package com.ydanchen.handysheet;
+
+import com.google.api.services.sheets.v4.model.*;
+import com.ydanchen.handysheet.enums.DateTimeRenderOption;
+import com.ydanchen.handysheet.enums.Dimension;
+import com.ydanchen.handysheet.enums.ExportFormat;
+import com.ydanchen.handysheet.enums.MergeType;
+import com.ydanchen.handysheet.enums.SortOrder;
+import com.ydanchen.handysheet.enums.ValueInputOption;
+import com.ydanchen.handysheet.enums.ValueRenderOption;
+import com.ydanchen.handysheet.frame.FrameSnapshot;
+import com.ydanchen.handysheet.frame.SheetFrame;
+import com.ydanchen.handysheet.json.RowHandler;
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable description of one operation on a spreadsheet: the sheet, the range and the operation settings
+ * <p>Every DSL method returns a new instance and leaves the current one untouched,
+ * so instances can be shared between threads and reused as templates. Obtain one from {@link SpreadSheet}:
+ * <pre>{@code
+ * spreadsheet.onSheet("Sheet1").toRange("A1:C3").writeValues(values);
+ * }</pre>
+ *
+ * @author Yevhen Danchenko
+ */
+public final class SheetOperation {
+    private static final int EXPORT_WINDOW_ROWS = 1000;
+
+    private final SpreadSheet spreadsheet;
+    private final String sheet;
+    private final String range;
+    private final ValueInputOption valueInputOption;
+    private final Boolean inheritFromBefore;
+    private final Dimension dimension;
+    private final MergeType mergeType;
+    private final SortOrder sortOrder;
+    private final int startIndex;
+    private final int endIndex;
+    private final int startRowIndex;
+    private final int startColumnIndex;
+    private final int endRowIndex;
+    private final int endColumnIndex;
+
+    /**
+     * Constructor. Creates an operation with the default settings
+     *
+     * @param spreadsheet the spreadsheet to run the operation on
+     */
+    SheetOperation(SpreadSheet spreadsheet) {
+        this(spreadsheet, null, null, ValueInputOption.USER_ENTERED, false, null,
+                MergeType.MERGE_ALL, SortOrder.ASCENDING, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Constructor
+     */
+    private SheetOperation(SpreadSheet spreadsheet, String sheet, String range, ValueInputOption valueInputOption,
+                           Boolean inheritFromBefore, Dimension dimension, MergeType mergeType,
+                           SortOrder sortOrder, int startIndex, int endIndex, int startColumnIndex,
+                           int startRowIndex, int endColumnIndex, int endRowIndex) {
+        this.spreadsheet = spreadsheet;
+        this.sheet = sheet;
+        this.range = range;
+        this.valueInputOption = valueInputOption;
+        this.inheritFromBefore = inheritFromBefore;
+        this.dimension = dimension;
+        this.mergeType = mergeType;
+        this.sortOrder = sortOrder;
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+        this.startColumnIndex = startColumnIndex;
+        this.startRowIndex = startRowIndex;
+        this.endColumnIndex = endColumnIndex;
+        this.endRowIndex = endRowIndex;
+    }
+
+    // =====================================
+    // DSL methods
+    // =====================================
+
+    /**
+     * Range setter
+     * <p>This one is for writing semantic
+     *
+     * @param range the new Range. Should match pattern like "A1:E4"
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation toRange(String range) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Range setter
+     * <p>This one is for reading semantic
+     *
+     * @param range the new Range. Should match pattern like "A1:E4"
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation fromRange(String range) {
+        return toRange(range);
+    }
+
+    /**
+     * Sheet setter
+     *
+     * @param sheet the name of the sheet.
+     *              Default sheet name in the new created spreadsheet is usual "Sheet1"
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation onSheet(String sheet) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Value Input Option setter
+     *
+     * @param valueInputValue the Value Input Option {@link ValueInputOption}
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation withValueInputOption(ValueInputOption valueInputValue) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputValue, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Dimension setter. To select Rows or Columns
+     *
+     * @param dimension the dimension to set
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation select(Dimension dimension) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Start index setter for dimensions
+     *
+     * @param startIndex the start index. Can't be lower than 0
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation from(int startIndex) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Start indexes for methods when complete range is required, e.g. mergeCells()
+     *
+     * @param startColumnIndex the column start index. Can't be lower than 0
+     * @param startRowIndex    the row start index. Can't be lower than 0
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation from(int startColumnIndex, int startRowIndex) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * End index setter for dimensions
+     *
+     * @param endIndex the end index. Can't be lower than 0
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation to(int endIndex) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * End indexes for methods when complete range is required, e.g. mergeCells()
+     *
+     * @param endColumnIndex the column end index. Can't be lower than 0
+     * @param endRowIndex    the row end index. Can't be lower than 0
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation to(int endColumnIndex, int endRowIndex) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Inherit range properties form dimension before setter
+     *
+     * @param inheritFromBefore true to inherit range properties from dimension before,
+     *                          false to inherit range properties from dimension after.
+     *                          Can't be true if startIndex is 0!
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation inheritFromBefore(Boolean inheritFromBefore) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Merge type setter.
+     *
+     * @param mergeType specifies how cells should be merged.
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation mergeBy(MergeType mergeType) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    /**
+     * Sort order setter
+     *
+     * @param sortOrder the order data should be sorted.
+     * @return new instance of the {@link SheetOperation}
+     */
+    public SheetOperation byOrder(SortOrder sortOrder) {
+        return new SheetOperation(spreadsheet, sheet, range, valueInputOption, inheritFromBefore, dimension,
+                mergeType, sortOrder, startIndex, endIndex, startColumnIndex, startRowIndex, endColumnIndex,
+                endRowIndex);
+    }
+
+    // =====================================
+    // Operations
+    // =====================================
+
+    /**
+     * Read values from the spreadsheet
+     * <p>The range should be specified before with {@code .toRange()} method
+     *
+     * @return the list of values
+     * @throws IOException might be thrown
+     */
+    public List<List<Object>> getValues() throws IOException {
+        return spreadsheet.getValuesApiCall(sheet, range);
+    }
+
+    /**
+     * Read values from the spreadsheet and returns them as two dimensional array
+     * <p>The range should be specified before with {@code .toRange()} method
+     *
+     * @return the readed values
+     * @throws IOException might be thrown
+     */
+    public Object[][] getValuesAsArray() throws IOException {
+        return Utils.listOfListsToTwoDimArray(getValues());
+    }
+
+    /**
+     * Read values from the spreadsheet into a typed columnar frame
+     * <p>The range should be specified before with {@code .toRange()} method.
+     * Values are requested unformatted, with dates and times as serial numbers,
+     * so numbers are stored in primitive arrays instead of formatted Strings. See {@link SheetFrame}
+     *
+     * @return the values, the columns are named by their letters
+     * @throws IOException might be thrown
+     */
+    public SheetFrame getValuesAsFrame() throws IOException {
+        return getValuesAsFrame(false);
+    }
+
+    /**
+     * Read values from the spreadsheet into a typed columnar frame
+     *
+     * @param header true to take the column names from the first row of the range
+     * @return the values
+     * @throws IOException might be thrown
+     * @see #getValuesAsFrame()
+     */
+    public SheetFrame getValuesAsFrame(boolean header) throws IOException {
+        SheetFrame.Builder builder = SheetFrame.builder()
+                .firstColumn(Utils.literalRangeToNumerical(range).getStartColumn());
+        if (header) {
+            builder.withHeader();
+        }
+        readValues(ValueRenderOption.UNFORMATTED_VALUE, builder.rowHandler());
+        return builder.build();
+    }
+
+    /**
+     * Read values from the spreadsheet into a typed columnar frame, reusing a local snapshot while it's fresh
+     * <p>The modified time of the spreadsheet is read first, with one Drive API call. If the snapshot file
+     * was taken from the same range at the same modified time, the frame is loaded from the file without
+     * reading the values. Otherwise the values are read and the snapshot file is replaced.
+     * An unreadable snapshot file is treated as stale. Reading the modified time needs a Drive scope,
+     * e.g. {@code drive.metadata.readonly}. See {@link FrameSnapshot}
+     *
+     * @param header   true to take the column names from the first row of the range
+     * @param snapshot the snapshot file, created if it doesn't exist
+     * @return the values
+     * @throws IOException might be thrown
+     * @see #getValuesAsFrame(boolean)
+     */
+    public SheetFrame getValuesAsFrame(boolean header, Path snapshot) throws IOException {
+        long modifiedTime = spreadsheet.getModifiedTimeApiCall();
+        String snapshotRange = sheet == null ? range : sheet + "!" + range;
+        if (Files.exists(snapshot)) {
+            try {
+                FrameSnapshot saved = FrameSnapshot.read(snapshot);
+                if (saved.getModifiedTime() == modifiedTime
+                        && saved.isSnapshotOf(spreadsheet.getSpreadsheetId(), snapshotRange, header)) {
+                    return saved.getFrame();
+                }
+            } catch (IOException e) {
+                // the snapshot is replaced below
+            }
+        }
+        SheetFrame frame = getValuesAsFrame(header);
+        new FrameSnapshot(frame, spreadsheet.getSpreadsheetId(), snapshotRange, header, modifiedTime).write(snapshot);
+        return frame;
+    }
+
+    /**
+     * Read values from the spreadsheet, passing them to the handler cell by cell as the response arrives
+     * <p>The range should be specified before with {@code .toRange()} method. The response isn't parsed
+     * into a tree of Lists, so memory doesn't grow with the range size unless the handler keeps the values.
+     * Dates and times are serial numbers when the values are not formatted
+     *
+     * @param valueRenderOption how the values are rendered
+     * @param handler           receives the values, see {@link RowHandler#rows} to receive whole rows
+     * @throws IOException might be thrown
+     */
+    public void readValues(ValueRenderOption valueRenderOption, RowHandler handler) throws IOException {
+        spreadsheet.streamValuesApiCall(sheet, range, valueRenderOption, DateTimeRenderOption.SERIAL_NUMBER, handler);
+    }
+
+    /**
+     * Read values from several ranges, passing them to the handler cell by cell as the responses arrive
+     * <p>Ranges without a sheet name, like "A1:B2", are resolved against the sheet set with {@code .onSheet()}.
+     * The handler receives the ranges in the given order, see {@link RowHandler#startRange(String)}
+     *
+     * @param valueRenderOption how the values are rendered
+     * @param handler           receives the values
+     * @param ranges            the ranges to read, e.g. "A1:B2" or "Sheet2!C1:C10"
+     * @throws IOException might be thrown
+     */
+    public void readValues(ValueRenderOption valueRenderOption, RowHandler handler, String... ranges)
+            throws IOException {
+        spreadsheet.streamBatchGetValues(sheet, valueRenderOption, DateTimeRenderOption.SERIAL_NUMBER,
+                handler, ranges);
+    }
+
+    /**
+     * Read values from the spreadsheet lazily, window by window
+     * <p>The range should be specified before with {@code .toRange()} method, e.g. "A1:E400000",
+     * or be open-ended, e.g. "A1:E". The next window is fetched in the background while the current one is consumed,
+     * so memory usage is bounded by two windows regardless of the range size.
+     * A bounded range is read up to its end row, trailing empty rows are skipped.
+     * An open-ended range ends at the first window without any values.
+     * Close the stream to cancel the pending prefetch when it isn't consumed to the end
+     *
+     * @param windowSize the number of rows fetched with one API call
+     * @return the stream of rows
+     */
+    public Stream<List<Object>> streamValues(int windowSize) {
+        PagedRowIterator iterator = new PagedRowIterator(
+                window -> spreadsheet.fetchValuesApiCall(sheet, Utils.numericRangeToLiteral(window)),
+                spreadsheet.getExecutor(),
+                Utils.literalRangeToNumerical(range),
+                windowSize);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * Export values of the range to a file, window by window
+     * <p>The range should be specified before with {@code .toRange()} method, e.g. "A1:E400000",
+     * or be open-ended, e.g. "A1:E". Values are formatted as they are shown in the sheet.
+     * See {@link #exportTo(Path, ExportFormat, ValueRenderOption, int)}
+     *
+     * @param file   the file to write, replaced if it exists
+     * @param format the format of the file
+     * @return the number of rows written
+     * @throws IOException might be thrown
+     */
+    public long exportTo(Path file, ExportFormat format) throws IOException {
+        return exportTo(file, format, ValueRenderOption.FORMATTED_VALUE, EXPORT_WINDOW_ROWS);
+    }
+
+    /**
+     * Export values of the range to a file, window by window
+     * <p>The range should be specified before with {@code .toRange()} method, e.g. "A1:E400000",
+     * or be open-ended, e.g. "A1:E". The next window is fetched in the background while the current one is
+     * encoded into the file through a fixed-size buffer, so memory usage is bounded by two windows
+     * regardless of the range size. A bounded range is read up to its end row, an open-ended range ends at
+     * the first window without any values. Empty rows between the values are kept, trailing ones are skipped,
+     * CSV and TSV rows are padded to the columns of the range.
+     * Dates and times are formatted strings
+     *
+     * @param file              the file to write, replaced if it exists
+     * @param format            the format of the file
+     * @param valueRenderOption how the values should be rendered, e.g. UNFORMATTED_VALUE to keep numbers exact
+     * @param windowSize        the number of rows fetched with one API call
+     * @return the number of rows written
+     * @throws IOException might be thrown
+     */
+    public long exportTo(Path file, ExportFormat format, ValueRenderOption valueRenderOption, int windowSize)
+            throws IOException {
+        NumericRange bounds = Utils.literalRangeToNumerical(range);
+        int width = bounds.getEndColumn() == NumericRange.UNBOUNDED ? 0
+                : bounds.getEndColumn() - bounds.getStartColumn() + 1;
+        try (PagedRowIterator rows = new PagedRowIterator(
+                window -> spreadsheet.fetchValuesApiCall(sheet, Utils.numericRangeToLiteral(window),
+                        valueRenderOption),
+                spreadsheet.getExecutor(),
+                bounds,
+                windowSize);
+             ExportWriter writer = new ExportWriter(FileChannel.open(file, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), format)) {
+            while (rows.hasNext()) {
+                writer.writeRow(rows.next(), width);
+            }
+            return writer.getRowsWritten();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Read values from several ranges at once
+     * <p>Ranges without a sheet name, like "A1:B2", are resolved against the sheet set with {@code .onSheet()}.
+     * Ranges are read with as few batchGet calls as the request size limits allow
+     *
+     * @param ranges the ranges to read, e.g. "A1:B2" or "Sheet2!C1:C10"
+     * @return the values keyed by the original range, in the order the ranges were given
+     * @throws IOException might be thrown
+     */
+    public Map<String, List<List<Object>>> getValues(String... ranges) throws IOException {
+        return spreadsheet.batchGetValues(sheet, ranges);
+    }
+
+    /**
+     * Write values on the spreadsheet from the List of Lists
+     * <p>The range should be specified before with {@code .toRange()} or {@code .fromRange()} methods
+     *
+     * @param values the values to set
+     * @return {@link UpdateValuesResponse}
+     * @throws IOException might be thrown
+     */
+    public UpdateValuesResponse writeValues(List<List<Object>> values) throws IOException {
+        return spreadsheet.updateValuesApiCall(sheet, range, valueInputOption, values);
+    }
+
+    /**
+     * Write values on the spreadsheet with the values taking from the two dimensional array
+     * <p>The range should be specified before with {@code .toRange()} or {@code .fromRange()} methods
+     *
+     * @param values the values to set
+     * @return {@link UpdateValuesResponse}
+     * @throws IOException might be thrown
+     */
+    public UpdateValuesResponse writeValues(Object[][] values) throws IOException {
+        return writeValues(Utils.twoDimArrayToListOfLists(values));
+    }
+
+    /**
+     * Write values on several ranges at once
+     * <p>Ranges without a sheet name, like "A1:B2", are resolved against the sheet set with {@code .onSheet()}.
+     * Values are sent with as few batchUpdate calls as the request size limits allow
+     *
+     * @param values the values to write keyed by range
+     * @return {@link UpdateValuesResponse} keyed by the original range
+     * @throws IOException might be thrown
+     */
+    public Map<String, UpdateValuesResponse> writeValues(Map<String, Object[][]> values) throws IOException {
+        return spreadsheet.batchUpdateValues(sheet, valueInputOption, values);
+    }
+
+    /**
+     * Write only the values which differ from the last known values of the range
+     * <p>The range should be specified before with {@code .toRange()} or {@code .fromRange()} methods,
+     * the values are written from its first cell like with {@code writeValues()}.
+     * The values are compared with the previous sync of the same range through this {@link SpreadSheet},
+     * or with the values read from the API if there was none or it has expired, see
+     * {@link SpreadSheet#withSyncSnapshotTtl(long, TimeUnit)}. Only the changed cells are sent,
+     * grouped into rectangular blocks, with one batchUpdate call. Nothing is sent if nothing has changed
+     *
+     * @param values the values to set, null values leave the cells as they are
+     * @return {@link SyncResult} with the written blocks and the number of cells written and skipped
+     * @throws IOException might be thrown
+     */
+    public SyncResult syncValues(Object[][] values) throws IOException {
+        return spreadsheet.syncValuesApiCall(sheet, range, valueInputOption, values);
+    }
+
+    /**
+     * Create a writer which uploads rows to consecutive ranges in fixed-size chunks
+     * <p>The range should be specified before with {@code .toRange()} method, e.g. "A1:E1".
+     * Rows are written starting from the first row of the range, within the columns of the range.
+     * See {@link BulkWriter}
+     *
+     * @param chunkRows   the number of rows uploaded with one API call
+     * @param maxInFlight the maximum number of chunk uploads running concurrently
+     * @return new instance of the {@link BulkWriter}
+     */
+    public BulkWriter bulkWriter(int chunkRows, int maxInFlight) {
+        return new BulkWriter(
+                (chunkRange, values) -> spreadsheet.updateValuesApiCall(sheet,
+                        Utils.numericRangeToLiteral(chunkRange), valueInputOption, values),
+                spreadsheet.getExecutor(),
+                Utils.literalRangeToNumerical(range),
+                chunkRows,
+                maxInFlight);
+    }
+
+    /**
+     * Import the rows of a delimited text file, e.g. CSV or TSV, to consecutive ranges
+     * <p>The sheet and the first cell should be specified before with {@code .onSheet()} and {@code .toRange()}
+     * methods, e.g. "A1". The file is parsed while it is read, and the rows are uploaded in chunks
+     * with a bounded number of uploads in flight, see {@link BulkWriter}, so only the chunks in flight
+     * are held in memory. The grid of the sheet is extended when the rows or the columns don't fit in it.
+     * Numbers are sent as numbers, so they stay numbers with {@link ValueInputOption#RAW}. See {@link CsvOptions}
+     *
+     * @param file    the file to import
+     * @param options how the file is parsed and uploaded, e.g. {@link CsvOptions#csv()}
+     * @return {@link ImportResult} with the number of rows imported and the throughput
+     * @throws IOException if the file can't be read or parsed, or one of the uploads has failed
+     * @throws IllegalStateException if the sheet isn't specified with {@code .onSheet()}
+     */
+    public ImportResult importCsv(Path file, CsvOptions options) throws IOException {
+        if (sheet == null) {
+            throw new IllegalStateException("importCsv needs onSheet()");
+        }
+        long start = System.nanoTime();
+        NumericRange first = Utils.literalRangeToNumerical(range);
+        int startColumn = Math.max(1, first.getStartColumn());
+        int startRow = Math.max(1, first.getStartRow());
+        GridExtender grid = GridExtender.of(spreadsheet, sheet);
+        BulkWriter writer = new BulkWriter(
+                (chunkRange, values) -> {
+                    int width = 1;
+                    for (List<Object> row : values) {
+                        width = Math.max(width, row.size());
+                    }
+                    grid.ensureRows(chunkRange.getEndRow());
+                    grid.ensureColumns(startColumn + width - 1);
+                    spreadsheet.updateValuesApiCall(sheet, Utils.numericRangeToLiteral(startColumn,
+                            chunkRange.getStartRow(), startColumn + width - 1, chunkRange.getEndRow()),
+                            valueInputOption, values);
+                },
+                spreadsheet.getExecutor(),
+                new NumericRange(sheet, startColumn, startRow, startColumn, startRow),
+                options.getChunkRows(),
+                options.getMaxInFlight());
+        try (CsvReader reader = new CsvReader(FileChannel.open(file, StandardOpenOption.READ), options)) {
+            List<Object> row = reader.readRow();
+            if (options.isSkipHeader() && row != null) {
+                row = reader.readRow();
+            }
+            while (row != null) {
+                writer.write(row);
+                row = reader.readRow();
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                writer.close();
+            } catch (IOException | RuntimeException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        writer.close();
+        return new ImportResult(writer.getRowsWritten(), Files.size(file), writer.getBytesWritten(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Append values at the end of specified range
+     * <p>The range should be specified before with {code}.toRange(){code} method
+     *
+     * @param values the values to append
+     * @return {@link AppendValuesResponse}
+     * @throws IOException might be thrown
+     */
+    public AppendValuesResponse appendValues(List<List<Object>> values) throws IOException {
+        return spreadsheet.appendValuesApiCall(sheet, range, valueInputOption, values);
+    }
+
+    /**
+     * Append values at the end of specified range
+     * <p>The range should be specified before with {code}.toRange(){code} method
+     *
+     * @param values the values to append
+     * @return {@link AppendValuesResponse}
+     * @throws IOException might be thrown
+     */
+    public AppendValuesResponse appendValues(Object[][] values) throws IOException {
+        return appendValues(Utils.twoDimArrayToListOfLists(values));
+    }
+
+    /**
+     * Open a cursor which appends rows to a table of a sheet owned by this client
+     * <p>The range should be specified before with {@code .toRange()} method, e.g. "A1:E1", its columns
+     * are the columns of the table and its first row is the first row of the table. The end of the table
+     * is resolved once, the appends are then written with update calls at the reserved rows and can run
+     * in parallel. See {@link AppendCursor}
+     *
+     * @return new instance of the {@link AppendCursor}
+     * @throws IOException might be thrown
+     */
+    public AppendCursor appendCursor() throws IOException {
+        return AppendCursor.open(spreadsheet, sheet, range, valueInputOption);
+    }
+
+    /**
+     * Insert new empty rows or columns into the spreadsheet
+     *
+     * @return {@link BatchUpdateSpreadsheetResponse}, or {@code null} if queued in the batch mode
+     * @throws IOException might be thrown
+     */
+    public BatchUpdateSpreadsheetResponse insertEmpty() throws IOException {
+        DimensionRange range = new DimensionRange()
+                .setSheetId(spreadsheet.resolveSheetId(sheet))
+                .setDimension(dimension.getValue())
+                .setStartIndex(startIndex)
+                .setEndIndex(endIndex);
+        return spreadsheet.batchUpdateApiCall(sheet, null, new Request().setInsertDimension(new InsertDimensionRequest()
+                .setInheritFromBefore(inheritFromBefore)
+                .setRange(range)));
+    }
+
+    /**
+     * Delete rows or cloumns
+     *
+     * @return {@link BatchUpdateSpreadsheetResponse}, or {@code null} if queued in the batch mode
+     * @throws IOException might be thrown
+     */
+    public BatchUpdateSpreadsheetResponse delete() throws IOException {
+        DimensionRange range = new DimensionRange()
+                .setSheetId(spreadsheet.resolveSheetId(sheet))
+                .setDimension(dimension.getValue())
+                .setStartIndex(startIndex)
+                .setEndIndex(endIndex);
+        return spreadsheet.batchUpdateApiCall(sheet, null, new Request()
+                .setDeleteDimension(new DeleteDimensionRequest().setRange(range)));
+    }
+
+    /**
+     * Sort the values on the sheet
+     *
+     * @return {@link BatchUpdateSpreadsheetResponse}, or {@code null} if queued in the batch mode
+     * @throws IOException might be thrown
+     */
+    public BatchUpdateSpreadsheetResponse sort() throws IOException {
+        List<SortSpec> sortSpecs = new ArrayList<>();
+        sortSpecs.add(
+                new SortSpec()
+                .setSortOrder(sortOrder.getValue())
+                .setDimensionIndex((dimension.equals(Dimension.COLUMNS) ? 0 : 1))
+        );
+        return spreadsheet.batchUpdateApiCall(sheet, affectedCells(), new Request().setSortRange(new SortRangeRequest()
+                .setRange(gridRange())
+                .setSortSpecs(sortSpecs)));
+    }
+
+    // =====================================
+    // Formatting
+    // =====================================
+
+    /**
+     * Merge cells on sheet
+     *
+     * @return {@link BatchUpdateSpreadsheetResponse}, or {@code null} if queued in the batch mode
+     * @throws IOException might be thrown
+     */
+    public BatchUpdateSpreadsheetResponse mergeCells() throws IOException {
+        return spreadsheet.batchUpdateApiCall(sheet, affectedCells(), new Request().setMergeCells(new MergeCellsRequest()
+                .setMergeType(mergeType.getValue())
+                .setRange(gridRange())));
+    }
+
+    // =====================================
+    // Asynchronous operations
+    // =====================================
+
+    /**
+     * Read values from the spreadsheet asynchronously
+     *
+     * @return the future of the list of values
+     * @see #getValues()
+     */
+    public CompletableFuture<List<List<Object>>> getValuesAsync() {
+        return spreadsheet.supplyAsync(this::getValues);
+    }
+
+    /**
+     * Read values from the spreadsheet asynchronously and return them as two dimensional array
+     *
+     * @return the future of the values
+     * @see #getValuesAsArray()
+     */
+    public CompletableFuture<Object[][]> getValuesAsArrayAsync() {
+        return spreadsheet.supplyAsync(this::getValuesAsArray);
+    }
+
+    /**
+     * Read values from the spreadsheet into a typed columnar frame asynchronously
+     *
+     * @param header true to take the column names from the first row of the range
+     * @return the future of the values
+     * @see #getValuesAsFrame(boolean)
+     */
+    public CompletableFuture<SheetFrame> getValuesAsFrameAsync(boolean header) {
+        return spreadsheet.supplyAsync(() -> getValuesAsFrame(header));
+    }
+
+    /**
+     * Read values from several ranges at once asynchronously
+     *
+     * @param ranges the ranges to read, e.g. "A1:B2" or "Sheet2!C1:C10"
+     * @return the future of the values keyed by the original range
+     * @see #getValues(String...)
+     */
+    public CompletableFuture<Map<String, List<List<Object>>>> getValuesAsync(String... ranges) {
+        return spreadsheet.supplyAsync(() -> getValues(ranges));
+    }
+
+    /**
+     * Write values on the spreadsheet asynchronously
+     *
+     * @param values the values to set
+     * @return the future of {@link UpdateValuesResponse}
+     * @see #writeValues(List)
+     */
+    public CompletableFuture<UpdateValuesResponse> writeValuesAsync(List<List<Object>> values) {
+        return spreadsheet.supplyAsync(() -> writeValues(values));
+    }
+
+    /**
+     * Write values on the spreadsheet asynchronously
+     *
+     * @param values the values to set
+     * @return the future of {@link UpdateValuesResponse}
+     * @see #writeValues(Object[][])
+     */
+    public CompletableFuture<UpdateValuesResponse> writeValuesAsync(Object[][] values) {
+        return spreadsheet.supplyAsync(() -> writeValues(values));
+    }
+
+    /**
+     * Write values on several ranges at once asynchronously
+     *
+     * @param values the values to write keyed by range
+     * @return the future of {@link UpdateValuesResponse} keyed by the original range
+     * @see #writeValues(Map)
+     */
+    public CompletableFuture<Map<String, UpdateValuesResponse>> writeValuesAsync(Map<String, Object[][]> values) {
+        return spreadsheet.supplyAsync(() -> writeValues(values));
+    }
+
+    /**
+     * Write only the changed values asynchronously
+     *
+     * @param values the values to set
+     * @return the future of {@link SyncResult}
+     * @see #syncValues(Object[][])
+     */
+    public CompletableFuture<SyncResult> syncValuesAsync(Object[][] values) {
+        return spreadsheet.supplyAsync(() -> syncValues(values));
+    }
+
+    /**
+     * Append values at the end of specified range asynchronously
+     *
+     * @param values the values to append
+     * @return the future of {@link AppendValuesResponse}
+     * @see #appendValues(List)
+     */
+    public CompletableFuture<AppendValuesResponse> appendValuesAsync(List<List<Object>> values) {
+        return spreadsheet.supplyAsync(() -> appendValues(values));
+    }
+
+    /**
+     * Append values at the end of specified range asynchronously
+     *
+     * @param values the values to append
+     * @return the future of {@link AppendValuesResponse}
+     * @see #appendValues(Object[][])
+     */
+    public CompletableFuture<AppendValuesResponse> appendValuesAsync(Object[][] values) {
+        return spreadsheet.supplyAsync(() -> appendValues(values));
+    }
+
+    /**
+     * Insert new empty rows or columns asynchronously
+     *
+     * @return the future of {@link BatchUpdateSpreadsheetResponse}
+     * @see #insertEmpty()
+     */
+    public CompletableFuture<BatchUpdateSpreadsheetResponse> insertEmptyAsync() {
+        return spreadsheet.supplyAsync(this::insertEmpty);
+    }
+
+    /**
+     * Delete rows or columns asynchronously
+     *
+     * @return the future of {@link BatchUpdateSpreadsheetResponse}
+     * @see #delete()
+     */
+    public CompletableFuture<BatchUpdateSpreadsheetResponse> deleteAsync() {
+        return spreadsheet.supplyAsync(this::delete);
+    }
+
+    /**
+     * Sort the values on the sheet asynchronously
+     *
+     * @return the future of {@link BatchUpdateSpreadsheetResponse}
+     * @see #sort()
+     */
+    public CompletableFuture<BatchUpdateSpreadsheetResponse> sortAsync() {
+        return spreadsheet.supplyAsync(this::sort);
+    }
+
+    /**
+     * Merge cells on sheet asynchronously
+     *
+     * @return the future of {@link BatchUpdateSpreadsheetResponse}
+     * @see #mergeCells()
+     */
+    public CompletableFuture<BatchUpdateSpreadsheetResponse> mergeCellsAsync() {
+        return spreadsheet.supplyAsync(this::mergeCells);
+    }
+
+    // =====================================
+    // Private methods
+    // =====================================
+
+    /**
+     * Builds the grid range on the sheet from the start and end indexes
+     *
+     * @return {@link GridRange}
+     * @throws IOException might be thrown while resolving the sheet id
+     */
+    private GridRange gridRange() throws IOException {
+        return new GridRange()
+                .setSheetId(spreadsheet.resolveSheetId(sheet))
+                .setStartColumnIndex(startColumnIndex)
+                .setStartRowIndex(startRowIndex)
+                .setEndColumnIndex(endColumnIndex)
+                .setEndRowIndex(endRowIndex);
+    }
+
+    /**
+     * Converts the zero-based, end-exclusive grid indexes to the cells of a {@link NumericRange}
+     *
+     * @return the cells covered by the start and end indexes
+     */
+    private NumericRange affectedCells() {
+        return new NumericRange(startColumnIndex + 1, startRowIndex + 1, endColumnIndex, endRowIndex);
+    }
+}
@@ -1,42 +1,79 @@
 package com.ydanchen.handysheet;
 
+import com.google.api.client.http.HttpResponse;
 import com.google.api.services.sheets.v4.Sheets;
+import com.google.api.services.sheets.v4.SheetsRequest;
 import com.google.api.services.sheets.v4.model.*;
+import com.ydanchen.handysheet.cache.RangeCache;
+import com.ydanchen.handysheet.cache.SheetMetadataCache;
+import com.ydanchen.handysheet.enums.DateTimeRenderOption;
 import com.ydanchen.handysheet.enums.Dimension;
 import com.ydanchen.handysheet.enums.MergeType;
+import com.ydanchen.handysheet.enums.ResponsePolicy;
 import com.ydanchen.handysheet.enums.SortOrder;
 import com.ydanchen.handysheet.enums.ValueInputOption;
+import com.ydanchen.handysheet.enums.ValueRenderOption;
+import com.ydanchen.handysheet.json.RowHandler;
+import com.ydanchen.handysheet.json.ValueRangeDecoder;
+import com.ydanchen.handysheet.metrics.CallTrace;
+import com.ydanchen.handysheet.metrics.CountingInputStream;
+import com.ydanchen.handysheet.metrics.InMemoryInstrumentation;
+import com.ydanchen.handysheet.metrics.Instrumentation;
+import com.ydanchen.handysheet.metrics.Operation;
+import com.ydanchen.handysheet.scheduling.RequestScheduler;
+import com.ydanchen.handysheet.services.SheetsClientPool;
+import com.ydanchen.handysheet.util.AsyncExecutors;
+import com.ydanchen.handysheet.util.NumericRange;
 import com.ydanchen.handysheet.util.Utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * This class provides access to the most common Google SpreadSheet operations
  * Built over the Google Spreadsheet API v4
+ * <p>An instance is an immutable handle to one spreadsheet and can be shared between threads.
+ * The DSL methods return a new {@link SheetOperation} which describes the operation to run
  *
  * @author Yevhen Danchenko
  */
 public class SpreadSheet {
     private final static String EXCLAMATION_MARK = "!";
+    private final static int DEFAULT_MAX_BATCH_SIZE = 500;
+    private final static int MAX_BATCH_GET_URL_LENGTH = 4000;
+    private final static int MAX_BATCH_UPDATE_CELLS = 50000;
+    private final static long DEFAULT_METADATA_TTL_MINUTES = 5;
+    private final static int DEFAULT_MAX_SYNC_SNAPSHOTS = 100;
+    private final static long DEFAULT_SYNC_SNAPSHOT_TTL_MINUTES = 10;
+    private final static String SHEET_PROPERTIES_FIELDS = "sheets.properties";
+    private final static String UPDATE_FIELDS = "spreadsheetId,updatedRange,updatedRows,updatedColumns,updatedCells";
+    private final static String APPEND_FIELDS = "spreadsheetId,tableRange,updates(" + UPDATE_FIELDS + ")";
+    private final static String BATCH_UPDATE_VALUES_FIELDS = "spreadsheetId,totalUpdatedRows,totalUpdatedColumns,"
+            + "totalUpdatedCells,totalUpdatedSheets,responses(" + UPDATE_FIELDS + ")";
+    private final static String BATCH_UPDATE_FIELDS = "spreadsheetId,replies";
+    private final static String MODIFIED_TIME_FIELDS = "modifiedTime";
 
-    private Sheets service;
-    private String spreadsheetId;
-    private String sheet;
-    private String range;
-    private ValueInputOption valueInputOption = ValueInputOption.USER_ENTERED;
-    private Boolean inheritFromBefore = false;
-    private Dimension dimension;
-    private MergeType mergeType = MergeType.MERGE_ALL;
-    private SortOrder sortOrder = SortOrder.ASCENDING;
-    private int startIndex;
-    private int endIndex;
-    private int startRowIndex;
-    private int startColumnIndex;
-    private int endRowIndex;
-    private int endColumnIndex;
+    private final SheetsClientPool clients;
+    private final String spreadsheetId;
+    private final Executor executor;
+    private final SheetMetadataCache metadataCache;
+    private final RangeCache syncSnapshots;
+    private final RangeCache rangeCache;
+    private final Instrumentation instrumentation;
+    private final ResponsePolicy responsePolicy;
+    private final List<Request> pendingRequests;
+    private final int maxBatchSize;
 
     /**
      * Constructor
@@ -44,7 +81,184 @@ public class SpreadSheet {
      * @param service an authorized Sheets API client service
      */
     public SpreadSheet(Sheets service) {
-        this.service = service;
+        this(SheetsClientPool.of(service));
+    }
+
+    /**
+     * Constructor
+     * <p>Every API call is routed to the least-loaded client of the pool, the writes and the structural
+     * operations of one spreadsheet stick to one client, see {@link SheetsClientPool}
+     *
+     * @param clients the pool of the authorized Sheets API client services
+     */
+    public SpreadSheet(SheetsClientPool clients) {
+        this(clients, null, AsyncExecutors.defaultExecutor(),
+                new SheetMetadataCache(DEFAULT_METADATA_TTL_MINUTES, TimeUnit.MINUTES), newSyncSnapshots(), null,
+                Instrumentation.NOOP, ResponsePolicy.MINIMAL, null, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param clients         the pool of the authorized Sheets API client services, with their schedulers
+     * @param spreadsheetId   the id of the spreadsheet
+     * @param executor        the executor to run the API calls on
+     * @param metadataCache   the cache of the sheet properties of the spreadsheet
+     * @param syncSnapshots   the last known values of the ranges written with {@code syncValues()}
+     * @param rangeCache      the cache of the range values, null if disabled
+     * @param instrumentation observes the API calls
+     * @param responsePolicy  how much of the responses of the write calls is requested
+     * @param pendingRequests the queue of the batch mode, null if not in the batch mode
+     * @param maxBatchSize    the maximum number of requests sent in one batchUpdate call
+     */
+    private SpreadSheet(SheetsClientPool clients, String spreadsheetId, Executor executor,
+                        SheetMetadataCache metadataCache, RangeCache syncSnapshots, RangeCache rangeCache,
+                        Instrumentation instrumentation, ResponsePolicy responsePolicy,
+                        List<Request> pendingRequests, int maxBatchSize) {
+        this.clients = clients;
+        this.spreadsheetId = spreadsheetId;
+        this.executor = executor;
+        this.metadataCache = metadataCache;
+        this.syncSnapshots = syncSnapshots;
+        this.rangeCache = rangeCache;
+        this.instrumentation = instrumentation;
+        this.responsePolicy = responsePolicy;
+        this.pendingRequests = pendingRequests;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    // =====================================
+    // Settings
+    // =====================================
+
+    /**
+     * Spreadsheet ID setter
+     * <p>The queue of the batch mode isn't shared with the new instance: it starts with an empty queue
+     * if this instance is in the batch mode
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @return new instance of the {@link SpreadSheet} bound to the spreadsheet
+     */
+    public SpreadSheet withId(String spreadsheetId) {
+        return new SpreadSheet(clients, spreadsheetId, executor,
+                new SheetMetadataCache(DEFAULT_METADATA_TTL_MINUTES, TimeUnit.MINUTES), newSyncSnapshots(),
+                rangeCache, instrumentation, responsePolicy, pendingRequests != null ? new ArrayList<>() : null,
+                maxBatchSize);
+    }
+
+    /**
+     * Executor setter
+     * <p>The executor runs the asynchronous operations, the prefetch of {@code streamValues()}
+     * and the uploads of {@link BulkWriter}. See {@link AsyncExecutors} for the options
+     *
+     * @param executor the executor to run the API calls on
+     * @return new instance of the {@link SpreadSheet} using the executor
+     */
+    public SpreadSheet withExecutor(Executor executor) {
+        return new SpreadSheet(clients, spreadsheetId, executor, metadataCache, syncSnapshots, rangeCache,
+                instrumentation, responsePolicy, pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Sheet metadata time to live setter
+     * <p>The sheet properties (titles, ids, grid sizes) are cached and reloaded when the time to live expires
+     * or after a structural operation sent through this handle
+     *
+     * @param ttl  the time to live of the cached sheet properties
+     * @param unit the time unit of the ttl
+     * @return new instance of the {@link SpreadSheet} with an empty metadata cache
+     */
+    public SpreadSheet withMetadataTtl(long ttl, TimeUnit unit) {
+        return new SpreadSheet(clients, spreadsheetId, executor, new SheetMetadataCache(ttl, unit), syncSnapshots,
+                rangeCache, instrumentation, responsePolicy, pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Sync snapshot time to live setter
+     * <p>{@code syncValues()} compares the values with the last known values of the range, kept for the time to live.
+     * Cells changed by other clients within the time to live are not rewritten unless their desired value changes,
+     * so a shorter time to live repairs such edits sooner at the cost of more reads
+     *
+     * @param ttl  the time to live of the last known values
+     * @param unit the time unit of the ttl
+     * @return new instance of the {@link SpreadSheet} without the last known values
+     */
+    public SpreadSheet withSyncSnapshotTtl(long ttl, TimeUnit unit) {
+        return new SpreadSheet(clients, spreadsheetId, executor, metadataCache,
+                new RangeCache(DEFAULT_MAX_SYNC_SNAPSHOTS, ttl, unit), rangeCache, instrumentation,
+                responsePolicy, pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Range cache setter
+     * <p>With a cache, {@code getValues()} of a single range is served from the cache when possible.
+     * Writes sent through this handle invalidate the cached ranges they overlap.
+     * Writes made by other clients are only picked up when the cached range expires
+     *
+     * @param rangeCache the cache of the range values, can be shared by several handles. Null to disable
+     * @return new instance of the {@link SpreadSheet} using the cache
+     */
+    public SpreadSheet withRangeCache(RangeCache rangeCache) {
+        return new SpreadSheet(clients, spreadsheetId, executor, metadataCache, syncSnapshots, rangeCache,
+                instrumentation, responsePolicy, pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Request scheduler setter
+     * <p>Every API call goes through the scheduler, which keeps the calls within the rate limit
+     * and retries the throttled and failed ones. By default the scheduler is shared by all handles
+     * created with a client authorized by the same credential, see {@link RequestScheduler#forService}.
+     * The clients of a pool have a scheduler each, set with {@link SheetsClientPool.Builder#add}
+     *
+     * @param scheduler the scheduler to send the API calls through
+     * @return new instance of the {@link SpreadSheet} using the scheduler
+     * @throws IllegalStateException if the instance uses a pool of several clients
+     */
+    public SpreadSheet withScheduler(RequestScheduler scheduler) {
+        if (clients.size() != 1) {
+            throw new IllegalStateException("The scheduler of a pool is set per client");
+        }
+        SheetsClientPool single = SheetsClientPool.builder()
+                .add(clients.getClients().get(0).getService(), scheduler)
+                .build();
+        return new SpreadSheet(single, spreadsheetId, executor, metadataCache, syncSnapshots, rangeCache,
+                instrumentation, responsePolicy, pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Instrumentation setter
+     * <p>Every API call is reported to the instrumentation with its operation, sheet, latency, retries,
+     * sizes and outcome, see {@link InMemoryInstrumentation} for a ready-made one. Nothing is recorded by default
+     *
+     * @param instrumentation observes the API calls
+     * @return new instance of the {@link SpreadSheet} using the instrumentation
+     */
+    public SpreadSheet withInstrumentation(Instrumentation instrumentation) {
+        return new SpreadSheet(clients, spreadsheetId, executor, metadataCache, syncSnapshots, rangeCache,
+                instrumentation != null ? instrumentation : Instrumentation.NOOP, responsePolicy,
+                pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Response policy setter
+     * <p>By default the write calls request only the updated ranges and counts, see {@link ResponsePolicy#MINIMAL},
+     * which cuts the response size and the parsing time. The sheet properties are always requested without the grid data
+     *
+     * @param responsePolicy how much of the responses of the write calls is requested
+     * @return new instance of the {@link SpreadSheet} using the policy
+     */
+    public SpreadSheet withResponsePolicy(ResponsePolicy responsePolicy) {
+        return new SpreadSheet(clients, spreadsheetId, executor, metadataCache, syncSnapshots, rangeCache,
+                instrumentation, responsePolicy, pendingRequests, maxBatchSize);
+    }
+
+    /**
+     * Spreadsheet ID getter
+     *
+     * @return the id of the spreadsheet
+     */
+    public String getSpreadsheetId() {
+        return spreadsheetId;
     }
 
     // =====================================
@@ -56,11 +270,10 @@ public class SpreadSheet {
      * <p>This one is for writing semantic
      *
      * @param range the new Range. Should match pattern like "A1:E4"
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet toRange(String range) {
-        this.range = range;
-        return this;
+    public SheetOperation toRange(String range) {
+        return new SheetOperation(this).toRange(range);
     }
 
     /**
@@ -68,10 +281,10 @@ public class SpreadSheet {
      * <p>This one is for reading semantic
      *
      * @param range the new Range. Should match pattern like "A1:E4"
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet fromRange(String range) {
-        return toRange(range);
+    public SheetOperation fromRange(String range) {
+        return new SheetOperation(this).fromRange(range);
     }
 
     /**
@@ -79,55 +292,40 @@ public class SpreadSheet {
      *
      * @param sheet the name of the sheet.
      *              Default sheet name in the new created spreadsheet is usual "Sheet1"
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet onSheet(String sheet) {
-        this.sheet = sheet;
-        return this;
-    }
-
-    /**
-     * Spreadsheet ID setter
-     *
-     * @param spreadsheetId the id of the spreadsheet
-     * @return current instance of the {@link SpreadSheet}
-     */
-    public SpreadSheet withId(String spreadsheetId) {
-        this.spreadsheetId = spreadsheetId;
-        return this;
+    public SheetOperation onSheet(String sheet) {
+        return new SheetOperation(this).onSheet(sheet);
     }
 
     /**
      * Value Input Option setter
      *
      * @param valueInputValue the Value Input Option {@link ValueInputOption}
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet withValueInputOption(ValueInputOption valueInputValue) {
-        this.valueInputOption = valueInputValue;
-        return this;
+    public SheetOperation withValueInputOption(ValueInputOption valueInputValue) {
+        return new SheetOperation(this).withValueInputOption(valueInputValue);
     }
 
     /**
      * Dimension setter. To select Rows or Columns
      *
      * @param dimension the dimension to set
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet select(Dimension dimension) {
-        this.dimension = dimension;
-        return this;
+    public SheetOperation select(Dimension dimension) {
+        return new SheetOperation(this).select(dimension);
     }
 
     /**
      * Start index setter for dimensions
      *
      * @param startIndex the start index. Can't be lower than 0
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet from(int startIndex) {
-        this.startIndex = startIndex;
-        return this;
+    public SheetOperation from(int startIndex) {
+        return new SheetOperation(this).from(startIndex);
     }
 
     /**
@@ -135,23 +333,20 @@ public class SpreadSheet {
      *
      * @param startColumnIndex the column start index. Can't be lower than 0
      * @param startRowIndex    the row start index. Can't be lower than 0
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet from(int startColumnIndex, int startRowIndex) {
-        this.startColumnIndex = startColumnIndex;
-        this.startRowIndex = startRowIndex;
-        return this;
+    public SheetOperation from(int startColumnIndex, int startRowIndex) {
+        return new SheetOperation(this).from(startColumnIndex, startRowIndex);
     }
 
     /**
      * End index setter for dimensions
      *
      * @param endIndex the end index. Can't be lower than 0
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet to(int endIndex) {
-        this.endIndex = endIndex;
-        return this;
+    public SheetOperation to(int endIndex) {
+        return new SheetOperation(this).to(endIndex);
     }
 
     /**
@@ -159,12 +354,10 @@ public class SpreadSheet {
      *
      * @param endColumnIndex the column end index. Can't be lower than 0
      * @param endRowIndex    the row end index. Can't be lower than 0
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet to(int endColumnIndex, int endRowIndex) {
-        this.endColumnIndex = endColumnIndex;
-        this.endRowIndex = endRowIndex;
-        return this;
+    public SheetOperation to(int endColumnIndex, int endRowIndex) {
+        return new SheetOperation(this).to(endColumnIndex, endRowIndex);
     }
 
     /**
@@ -173,33 +366,30 @@ public class SpreadSheet {
      * @param inheritFromBefore true to inherit range properties from dimension before,
      *                          false to inherit range properties from dimension after.
      *                          Can't be true if startIndex is 0!
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet inheritFromBefore(Boolean inheritFromBefore) {
-        this.inheritFromBefore = inheritFromBefore;
-        return this;
+    public SheetOperation inheritFromBefore(Boolean inheritFromBefore) {
+        return new SheetOperation(this).inheritFromBefore(inheritFromBefore);
     }
 
     /**
      * Merge type setter.
      *
      * @param mergeType specifies how cells should be merged.
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet mergeBy(MergeType mergeType) {
-        this.mergeType = mergeType;
-        return this;
+    public SheetOperation mergeBy(MergeType mergeType) {
+        return new SheetOperation(this).mergeBy(mergeType);
     }
 
     /**
      * Sort order setter
      *
      * @param sortOrder the order data should be sorted.
-     * @return current instance of the {@link SpreadSheet}
+     * @return new instance of the {@link SheetOperation}
      */
-    public SpreadSheet byOrder(SortOrder sortOrder) {
-        this.sortOrder = sortOrder;
-        return this;
+    public SheetOperation byOrder(SortOrder sortOrder) {
+        return new SheetOperation(this).byOrder(sortOrder);
     }
 
     // =====================================
@@ -207,276 +397,896 @@ public class SpreadSheet {
     // =====================================
 
     /**
-     * Read values from the spreadsheet
-     * <p>The range should be specified before with {@code .toRange()} method
+     * Read values from several ranges at once
+     * <p>The ranges should contain the sheet name, like "Sheet1!A1:B2".
+     * Ranges are read with as few batchGet calls as the request size limits allow
      *
-     * @return the list of values
+     * @param ranges the ranges to read
+     * @return the values keyed by the original range, in the order the ranges were given
      * @throws IOException might be thrown
      */
-    public List<List<Object>> getValues() throws IOException {
-        return getValuesApiCall();
+    public Map<String, List<List<Object>>> getValues(String... ranges) throws IOException {
+        return batchGetValues(null, ranges);
     }
 
     /**
-     * Read values from the spreadsheet and returns them as two dimensional array
-     * <p>The range should be specified before with {@code .toRange()} method
+     * Write values on several ranges at once
+     * <p>The ranges should contain the sheet name, like "Sheet1!A1:B2".
+     * Values are sent with as few batchUpdate calls as the request size limits allow
      *
-     * @return the readed values
+     * @param values the values to write keyed by range
+     * @return {@link UpdateValuesResponse} keyed by the original range
      * @throws IOException might be thrown
      */
-    public Object[][] getValuesAsArray() throws IOException {
-        return Utils.listOfListsToTwoDimArray(getValuesApiCall());
+    public Map<String, UpdateValuesResponse> writeValues(Map<String, Object[][]> values) throws IOException {
+        return batchUpdateValues(null, ValueInputOption.USER_ENTERED, values);
     }
 
+    // =====================================
+    // Accessors
+    // =====================================
+
     /**
-     * Write values on the spreadsheet from the List of Lists
-     * <p>The range should be specified before with {@code .toRange()} or {@code .fromRange()} methods
+     * Return all Sheets in the spreadsheet
+     * <p>Only the sheet properties are loaded, and they are served from the metadata cache
      *
-     * @param values the values to set
-     * @return {@link UpdateValuesResponse}
+     * @return list of all Sheets in the spreadsheet
      * @throws IOException might be thrown
      */
-    public UpdateValuesResponse writeValues(List<List<Object>> values) throws IOException {
-        return updateValuesApiCall(values);
+    public List<Sheet> getSheets() throws IOException {
+        return metadataCache.getAll(this::getSheetsPropertiesApiCall)
+                .stream()
+                .map(properties -> new Sheet().setProperties(properties))
+                .collect(Collectors.toList());
     }
 
     /**
-     * Write values on the spreadsheet with the values taking from the two dimensional array
-     * <p>The range should be specified before with {@code .toRange()} or {@code .fromRange()} methods
+     * Return the id of the sheet with the given name
      *
-     * @param values the values to set
-     * @return {@link UpdateValuesResponse}
+     * @param sheet the name of the sheet
+     * @return the id of the sheet
      * @throws IOException might be thrown
+     * @throws IllegalArgumentException if there is no sheet with the name
      */
-    public UpdateValuesResponse writeValues(Object[][] values) throws IOException {
-        return updateValuesApiCall(Utils.twoDimArrayToListOfLists(values));
+    public int getSheetId(String sheet) throws IOException {
+        return getSheetProperties(sheet).getSheetId();
     }
 
     /**
-     * Append values at the end of specified range
-     * <p>The range should be specified before with {code}.toRange(){code} method
+     * Return names of all sheets in the spreadsheet as List of String
      *
-     * @param values the values to append
-     * @return {@link AppendValuesResponse}
+     * @return all sheet names as a List of String
      * @throws IOException might be thrown
      */
-    public AppendValuesResponse appendValues(List<List<Object>> values) throws IOException {
-        return appendValuesApiCall(values);
+    public List<String> getSheetsNames() throws IOException {
+        return getSheets()
+                .stream()
+                .map(v -> v.getProperties().getTitle())
+                .collect(Collectors.toList());
     }
 
+    // =====================================
+    // Batch
+    // =====================================
+
     /**
-     * Append values at the end of specified range
-     * <p>The range should be specified before with {code}.toRange(){code} method
+     * Start a deferred batch with the default number of requests per API call
      *
-     * @param values the values to append
-     * @return {@link AppendValuesResponse}
-     * @throws IOException might be thrown
+     * @return new instance of the {@link SpreadSheet} in the batch mode
+     * @see #beginBatch(int)
      */
-    public AppendValuesResponse appendValues(Object[][] values) throws IOException {
-        return appendValuesApiCall(Utils.twoDimArrayToListOfLists(values));
+    public SpreadSheet beginBatch() {
+        return beginBatch(DEFAULT_MAX_BATCH_SIZE);
     }
 
     /**
-     * Insert new empty rows or columns into the spreadsheet
+     * Start a deferred batch
+     * <p>Returns a new instance of the {@link SpreadSheet} bound to the same spreadsheet.
+     * Structural operations invoked through it ({@code insertEmpty()}, {@code delete()}, {@code sort()}
+     * and {@code mergeCells()}) are queued instead of being sent and return {@code null}.
+     * Queued operations are sent with {@code commit()}
      *
-     * @return {@link BatchUpdateSpreadsheetResponse}
-     * @throws IOException might be thrown
+     * @param maxBatchSize the maximum number of requests sent in one batchUpdate call. Can't be lower than 1
+     * @return new instance of the {@link SpreadSheet} in the batch mode
      */
-    public BatchUpdateSpreadsheetResponse insertEmpty() throws IOException {
-        return insertRowsColumnsApiCall();
+    public SpreadSheet beginBatch(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size can't be lower than 1: " + maxBatchSize);
+        }
+        return new SpreadSheet(clients, spreadsheetId, executor, metadataCache, syncSnapshots, rangeCache,
+                instrumentation, responsePolicy, new ArrayList<>(), maxBatchSize);
     }
 
     /**
-     * Delete rows or cloumns
+     * Send all queued operations in as few batchUpdate calls as possible
+     * <p>Requests are sent in order, in chunks of up to {@code maxBatchSize} requests.
+     * A chunk is removed from the queue once it has been applied, so if a call fails
+     * the remaining operations stay queued and {@code commit()} can be retried
      *
-     * @return {@link BatchUpdateSpreadsheetResponse}
+     * @return the replies in the same order the operations were queued.
+     * The reply at index {@code i} belongs to the {@code i}-th queued operation
      * @throws IOException might be thrown
+     * @throws IllegalStateException if the instance is not in the batch mode, see {@code beginBatch()}
      */
-    public BatchUpdateSpreadsheetResponse delete() throws IOException {
-        return deleteRowsColumnsApiCall();
+    public List<Response> commit() throws IOException {
+        if (pendingRequests == null) {
+            throw new IllegalStateException("Not in the batch mode, call beginBatch() first");
+        }
+        synchronized (pendingRequests) {
+            List<Response> replies = new ArrayList<>(pendingRequests.size());
+            while (!pendingRequests.isEmpty()) {
+                List<Request> chunk = pendingRequests.subList(0, Math.min(maxBatchSize, pendingRequests.size()));
+                BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest()
+                        .setRequests(new ArrayList<>(chunk))
+                        .setIncludeSpreadsheetInResponse(isFullResponse());
+                List<Response> chunkReplies = traced(Operation.BATCH_UPDATE, null, true,
+                        (client, trace) -> client.getScheduler().execute(withFields(client.getService().spreadsheets()
+                                .batchUpdate(spreadsheetId, requestBody), BATCH_UPDATE_FIELDS), false, trace))
+                        .getReplies();
+                for (int i = 0; i < chunk.size(); i++) {
+                    replies.add(chunkReplies != null && i < chunkReplies.size() ? chunkReplies.get(i) : null);
+                }
+                chunk.clear();
+                metadataCache.invalidate();
+                invalidate(cache -> cache.invalidate(spreadsheetId));
+            }
+            return replies;
+        }
     }
 
     /**
-     * Sort the values on the sheet
+     * Number of operations queued and not committed yet
      *
-     * @return {@link BatchUpdateSpreadsheetResponse}
-     * @throws IOException might be thrown
+     * @return the number of pending operations, 0 if the instance is not in the batch mode
      */
-    public BatchUpdateSpreadsheetResponse sort() throws IOException {
-        return sortApiCall();
+    public int getPendingCount() {
+        if (pendingRequests == null) {
+            return 0;
+        }
+        synchronized (pendingRequests) {
+            return pendingRequests.size();
+        }
     }
 
-    // =====================================
-    // Accessors
-    // =====================================
-
     /**
-     * Return all Sheets in the spreadsheet
+     * Create a buffer which coalesces small writes with the values parsed as if typed by a user
      *
-     * @return list of all Sheets in the spreadsheet
-     * @throws IOException might be thrown
+     * @param maxCells the number of buffered cells which triggers a flush. Can't be lower than 1
+     * @param maxDelay the longest time a cell is buffered before a flush is started. Can't be lower than 1
+     * @param unit     the time unit of the maxDelay
+     * @return new instance of the {@link WriteBehindBuffer}
+     * @see #writeBehind(ValueInputOption, int, long, TimeUnit)
      */
-    public List<Sheet> getSheets() throws IOException {
-        return service.spreadsheets().get(spreadsheetId).execute().getSheets();
+    public WriteBehindBuffer writeBehind(int maxCells, long maxDelay, TimeUnit unit) {
+        return writeBehind(ValueInputOption.USER_ENTERED, maxCells, maxDelay, unit);
     }
 
     /**
-     * Return names of all sheets in the spreadsheet as List of String
+     * Create a buffer which coalesces small writes into rectangular blocks
+     * <p>The buffered cells are sent with one values batchUpdate call when the buffer is full, when the delay
+     * has passed, on {@code flush()} and on {@code close()}. Close the buffer to write the remaining cells.
+     * See {@link WriteBehindBuffer} for the ordering guarantees
      *
-     * @return all sheet names as a List of String
-     * @throws IOException might be thrown
+     * @param valueInputOption how the values should be interpreted
+     * @param maxCells         the number of buffered cells which triggers a flush. Can't be lower than 1
+     * @param maxDelay         the longest time a cell is buffered before a flush is started. Can't be lower than 1
+     * @param unit             the time unit of the maxDelay
+     * @return new instance of the {@link WriteBehindBuffer}
      */
-    public List<String> getSheetsNames() throws IOException {
-        return getSheets()
-                .stream()
-                .map(v -> v.getProperties().getTitle())
-                .collect(Collectors.toList());
+    public WriteBehindBuffer writeBehind(ValueInputOption valueInputOption, int maxCells, long maxDelay,
+                                         TimeUnit unit) {
+        return new WriteBehindBuffer(blocks -> batchUpdateValues(null, valueInputOption, blocks),
+                executor, maxCells, maxDelay, unit);
     }
 
     // =====================================
-    // Formatting
+    // Asynchronous operations
     // =====================================
 
     /**
-     * Merge cells on sheet
+     * Read values from several ranges at once asynchronously
      *
-     * @return {@link BatchUpdateSpreadsheetResponse}
-     * @throws IOException might be thrown
+     * @param ranges the ranges to read
+     * @return the future of the values keyed by the original range
+     * @see #getValues(String...)
      */
-    public BatchUpdateSpreadsheetResponse mergeCells() throws IOException {
-        return MergeCellsApiCall();
+    public CompletableFuture<Map<String, List<List<Object>>>> getValuesAsync(String... ranges) {
+        return supplyAsync(() -> getValues(ranges));
     }
 
+    /**
+     * Write values on several ranges at once asynchronously
+     *
+     * @param values the values to write keyed by range
+     * @return the future of {@link UpdateValuesResponse} keyed by the original range
+     * @see #writeValues(Map)
+     */
+    public CompletableFuture<Map<String, UpdateValuesResponse>> writeValuesAsync(Map<String, Object[][]> values) {
+        return supplyAsync(() -> writeValues(values));
+    }
 
-    // =====================================
-    // Private methods (API calls)
-    // =====================================
+    /**
+     * Return all Sheets in the spreadsheet asynchronously
+     *
+     * @return the future of the list of all Sheets in the spreadsheet
+     * @see #getSheets()
+     */
+    public CompletableFuture<List<Sheet>> getSheetsAsync() {
+        return supplyAsync(this::getSheets);
+    }
 
     /**
-     * Inserts Rows or Columns to the spreadsheet
+     * Return names of all sheets in the spreadsheet asynchronously
      *
-     * @return {@link BatchUpdateSpreadsheetResponse}
-     * @throws IOException will be thrown if occurs
+     * @return the future of all sheet names
+     * @see #getSheetsNames()
      */
-    private BatchUpdateSpreadsheetResponse insertRowsColumnsApiCall() throws IOException {
-        List<Request> requests = new ArrayList<>();
-        DimensionRange range = new DimensionRange()
-                .setDimension(dimension.getValue())
-                .setStartIndex(startIndex)
-                .setEndIndex(endIndex);
-        requests.add(new Request().setInsertDimension(new InsertDimensionRequest()
-                .setInheritFromBefore(inheritFromBefore)
-                .setRange(range)));
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        return service.spreadsheets().batchUpdate(spreadsheetId, requestBody).execute();
+    public CompletableFuture<List<String>> getSheetsNamesAsync() {
+        return supplyAsync(this::getSheetsNames);
     }
 
+    // =====================================
+    // Package-private methods (API calls)
+    // =====================================
+
     /**
-     * Delete Rows and Columns on the spreadsheet
+     * Executor getter
      *
-     * @return {@link BatchUpdateSpreadsheetRequest}
-     * @throws IOException will be thrown if occurs
+     * @return the executor to run the API calls on
      */
-    private BatchUpdateSpreadsheetResponse deleteRowsColumnsApiCall() throws IOException {
-        List<Request> requests = new ArrayList<>();
-        DimensionRange range = new DimensionRange()
-                .setDimension(dimension.getValue())
-                .setStartIndex(startIndex)
-                .setEndIndex(endIndex);
-        requests.add(new Request().setDeleteDimension(new DeleteDimensionRequest().setRange(range)));
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        return service.spreadsheets().batchUpdate(spreadsheetId, requestBody).execute();
+    Executor getExecutor() {
+        return executor;
     }
 
     /**
-     * Update values on the sheet
+     * Update values on the given range
      *
-     * @param values the values to write
+     * @param sheet            the sheet name, ignored if the range names a sheet itself
+     * @param range            the range, e.g. "A1:B2" or "'Sheet 2'!A1:B2"
+     * @param valueInputOption how the values should be interpreted
+     * @param values           the values to write
      * @return {@link UpdateValuesResponse}
      * @throws IOException will be thrown if occurs
      */
-    private UpdateValuesResponse updateValuesApiCall(List<List<Object>> values) throws IOException {
+    UpdateValuesResponse updateValuesApiCall(String sheet, String range, ValueInputOption valueInputOption,
+                                             List<List<Object>> values) throws IOException {
         ValueRange body = new ValueRange().setValues(values);
-        return service.spreadsheets().values().update(spreadsheetId, getRangeWithSheet(sheet, range), body)
-                .setValueInputOption(valueInputOption.getValue())
-                .execute();
+        String rangeWithSheet = resolveRange(sheet, range);
+        try {
+            return traced(Operation.WRITE_VALUES, sheet, true, (client, trace) -> {
+                trace.onCells(countCells(values));
+                return client.getScheduler().execute(withFields(client.getService().spreadsheets().values()
+                        .update(spreadsheetId, rangeWithSheet, body)
+                        .setValueInputOption(valueInputOption.getValue())
+                        .setIncludeValuesInResponse(isFullResponse()), UPDATE_FIELDS), true, trace);
+            });
+        } finally {
+            invalidate(cache -> cache.invalidate(spreadsheetId, rangeWithSheet));
+        }
     }
 
     /**
      * Append values in the sheet
      *
-     * @param values the values to write
+     * @param sheet            the sheet name
+     * @param range            the range, e.g. "A1:B2"
+     * @param valueInputOption how the values should be interpreted
+     * @param values           the values to write
      * @return {@link AppendValuesResponse}
      * @throws IOException will be thrown if occurs
      */
-    private AppendValuesResponse appendValuesApiCall(List<List<Object>> values) throws IOException {
+    AppendValuesResponse appendValuesApiCall(String sheet, String range, ValueInputOption valueInputOption,
+                                             List<List<Object>> values) throws IOException {
         ValueRange body = new ValueRange().setValues(values);
-        return service.spreadsheets().values().append(spreadsheetId, getRangeWithSheet(sheet, range), body)
-                .setValueInputOption(valueInputOption.getValue())
-                .execute();
+        try {
+            return traced(Operation.APPEND_VALUES, sheet, true, (client, trace) -> {
+                trace.onCells(countCells(values));
+                return client.getScheduler().execute(withFields(client.getService().spreadsheets().values()
+                        .append(spreadsheetId, getRangeWithSheet(sheet, range), body)
+                        .setValueInputOption(valueInputOption.getValue())
+                        .setIncludeValuesInResponse(isFullResponse()), APPEND_FIELDS), false, trace);
+            });
+        } finally {
+            invalidate(cache -> cache.invalidate(spreadsheetId, sheet, null));
+        }
     }
 
     /**
-     * Get values from the range specified before
+     * Get values from the given range, through the range cache if it is enabled
      *
+     * @param sheet the sheet name
+     * @param range the range, e.g. "A1:B2"
      * @return the list of list of Object
      * @throws IOException will be thrown if occurs
      */
-    private List<List<Object>> getValuesApiCall() throws IOException {
-        ValueRange response = service.spreadsheets().values()
-                .get(spreadsheetId, getRangeWithSheet(sheet, range))
-                .execute();
-        return response.getValues();
+    List<List<Object>> getValuesApiCall(String sheet, String range) throws IOException {
+        if (rangeCache == null) {
+            return fetchValuesApiCall(sheet, range);
+        }
+        String rangeWithSheet = getRangeWithSheet(sheet, range);
+        List<List<Object>> values = rangeCache.get(spreadsheetId, rangeWithSheet);
+        if (values == null) {
+            long version = rangeCache.getVersion(spreadsheetId);
+            values = fetchValuesApiCall(sheet, range);
+            if (values != null) {
+                rangeCache.put(spreadsheetId, rangeWithSheet, values, version);
+            }
+        }
+        return values;
     }
 
     /**
-     * Merge cells on the grid
+     * Get values from the given range, bypassing the range cache
      *
-     * @return {@link BatchUpdateSpreadsheetResponse}
+     * @param sheet the sheet name, ignored if the range names a sheet itself
+     * @param range the range, e.g. "A1:B2" or "'Sheet 2'!A1:B2"
+     * @return the list of list of Object
      * @throws IOException will be thrown if occurs
      */
-    private BatchUpdateSpreadsheetResponse MergeCellsApiCall() throws IOException {
-        List<Request> requests = new ArrayList<>();
-        GridRange range = new GridRange()
-                .setStartColumnIndex(startColumnIndex)
-                .setStartRowIndex(startRowIndex)
-                .setEndColumnIndex(endColumnIndex)
-                .setEndRowIndex(endRowIndex);
-        requests.add(new Request().setMergeCells(new MergeCellsRequest()
-                .setMergeType(mergeType.getValue())
-                .setRange(range)));
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        return service.spreadsheets().batchUpdate(spreadsheetId, requestBody).execute();
+    List<List<Object>> fetchValuesApiCall(String sheet, String range) throws IOException {
+        return traced(Operation.GET_VALUES, sheet, false, (client, trace) -> {
+            List<List<Object>> values = client.getScheduler().execute(client.getService().spreadsheets().values()
+                    .get(spreadsheetId, resolveRange(sheet, range)), true, trace)
+                    .getValues();
+            trace.onCells(countCells(values));
+            return values;
+        });
+    }
+
+    /**
+     * Get values from the given range rendered the given way, bypassing the range cache
+     *
+     * @param sheet             the sheet name, ignored if the range names a sheet itself
+     * @param range             the range, e.g. "A1:B2" or "'Sheet 2'!A1:B2"
+     * @param valueRenderOption how the values should be rendered
+     * @return the list of list of Object
+     * @throws IOException will be thrown if occurs
+     */
+    List<List<Object>> fetchValuesApiCall(String sheet, String range, ValueRenderOption valueRenderOption)
+            throws IOException {
+        return traced(Operation.GET_VALUES, sheet, false, (client, trace) -> {
+            List<List<Object>> values = client.getScheduler().execute(client.getService().spreadsheets().values()
+                    .get(spreadsheetId, resolveRange(sheet, range))
+                    .setValueRenderOption(valueRenderOption.getValue())
+                    .setDateTimeRenderOption(DateTimeRenderOption.FORMATTED_STRING.getValue()), true, trace)
+                    .getValues();
+            trace.onCells(countCells(values));
+            return values;
+        });
+    }
+
+    /**
+     * Read values from several ranges, splitting them into batchGet calls within the URL length limit
+     *
+     * @param sheet  the sheet to resolve ranges without a sheet name against, null if all ranges have one
+     * @param ranges the ranges to read
+     * @return the values keyed by the original range
+     * @throws IOException will be thrown if occurs
+     */
+    Map<String, List<List<Object>>> batchGetValues(String sheet, String... ranges) throws IOException {
+        Map<String, List<List<Object>>> result = new LinkedHashMap<>();
+        for (List<String> chunk : chunkByUrlLength(sheet, ranges)) {
+            batchGetValuesApiCall(sheet, chunk, result);
+        }
+        return result;
+    }
+
+    /**
+     * Read values from the range without the cache, decoding the response as it arrives
+     *
+     * @param sheet                the sheet name, null if the range contains it
+     * @param range                the range
+     * @param valueRenderOption    how the values are rendered
+     * @param dateTimeRenderOption how dates and times are rendered, ignored for formatted values
+     * @param handler              receives the values cell by cell
+     * @throws IOException might be thrown
+     */
+    void streamValuesApiCall(String sheet, String range, ValueRenderOption valueRenderOption,
+                             DateTimeRenderOption dateTimeRenderOption, RowHandler handler) throws IOException {
+        traced(Operation.GET_VALUES, sheet, false, (client, trace) -> {
+            HttpResponse response = client.getScheduler().executeUnparsed(client.getService().spreadsheets().values()
+                    .get(spreadsheetId, qualifyRange(sheet, range))
+                    .setValueRenderOption(valueRenderOption.getValue())
+                    .setDateTimeRenderOption(dateTimeRenderOption.getValue()), true, trace);
+            return decode(response, trace, content -> ValueRangeDecoder.decodeValueRange(content, handler));
+        });
+    }
+
+    /**
+     * Read values from several ranges without the cache, decoding the responses as they arrive
+     * <p>The ranges are passed to the handler in the given order, split into batchGet calls
+     * like {@link #batchGetValues(String, String...)}
+     *
+     * @param sheet                the sheet to resolve ranges without a sheet name against,
+     *                             null if all ranges have one
+     * @param valueRenderOption    how the values are rendered
+     * @param dateTimeRenderOption how dates and times are rendered, ignored for formatted values
+     * @param handler              receives the values cell by cell
+     * @param ranges               the ranges to read
+     * @throws IOException might be thrown
+     */
+    void streamBatchGetValues(String sheet, ValueRenderOption valueRenderOption,
+                              DateTimeRenderOption dateTimeRenderOption, RowHandler handler, String... ranges)
+            throws IOException {
+        for (List<String> chunk : chunkByUrlLength(sheet, ranges)) {
+            List<String> qualified = chunk.stream()
+                    .map(range -> qualifyRange(sheet, range))
+                    .collect(Collectors.toList());
+            traced(Operation.GET_VALUES, null, false, (client, trace) -> {
+                HttpResponse response = client.getScheduler().executeUnparsed(client.getService().spreadsheets()
+                        .values()
+                        .batchGet(spreadsheetId)
+                        .setRanges(qualified)
+                        .setValueRenderOption(valueRenderOption.getValue())
+                        .setDateTimeRenderOption(dateTimeRenderOption.getValue()), true, trace);
+                return decode(response, trace, content -> ValueRangeDecoder.decodeBatchGet(content, handler));
+            });
+        }
+    }
+
+    /**
+     * Write values on several ranges, splitting them into batchUpdate calls within the cell count limit
+     *
+     * @param sheet            the sheet to resolve ranges without a sheet name against,
+     *                         null if all ranges have one
+     * @param valueInputOption how the values should be interpreted
+     * @param values           the values to write keyed by range
+     * @return {@link UpdateValuesResponse} keyed by the original range
+     * @throws IOException will be thrown if occurs
+     */
+    Map<String, UpdateValuesResponse> batchUpdateValues(String sheet, ValueInputOption valueInputOption,
+                                                        Map<String, Object[][]> values) throws IOException {
+        Map<String, UpdateValuesResponse> result = new LinkedHashMap<>();
+        List<String> chunk = new ArrayList<>();
+        List<ValueRange> data = new ArrayList<>();
+        int chunkCells = 0;
+        for (Map.Entry<String, Object[][]> entry : values.entrySet()) {
+            int cells = countCells(entry.getValue());
+            if (!chunk.isEmpty() && chunkCells + cells > MAX_BATCH_UPDATE_CELLS) {
+                batchUpdateValuesApiCall(valueInputOption, chunk, data, result);
+                chunk.clear();
+                data.clear();
+                chunkCells = 0;
+            }
+            chunk.add(entry.getKey());
+            data.add(new ValueRange()
+                    .setRange(qualifyRange(sheet, entry.getKey()))
+                    .setValues(Utils.twoDimArrayToListOfLists(entry.getValue())));
+            chunkCells += cells;
+        }
+        if (!chunk.isEmpty()) {
+            batchUpdateValuesApiCall(valueInputOption, chunk, data, result);
+        }
+        return result;
+    }
+
+    /**
+     * Write only the cells which differ from the last known values of the range
+     * <p>The last known values are the values of the previous sync of the same range, or read with
+     * the formulas and unformatted values if there is none. The changed cells are grouped into
+     * rectangular blocks and sent with one batchUpdate call
+     *
+     * @param sheet            the sheet name
+     * @param range            the range, only its first cell is used
+     * @param valueInputOption how the values should be interpreted
+     * @param values           the values to write, null values leave the cells as they are
+     * @return {@link SyncResult}
+     * @throws IOException will be thrown if occurs
+     */
+    SyncResult syncValuesApiCall(String sheet, String range, ValueInputOption valueInputOption, Object[][] values)
+            throws IOException {
+        NumericRange origin = Utils.literalRangeToNumerical(range);
+        int startColumn = Math.max(1, origin.getStartColumn());
+        int startRow = Math.max(1, origin.getStartRow());
+        int width = 0;
+        for (Object[] row : values) {
+            width = Math.max(width, row.length);
+        }
+        if (values.length == 0 || width == 0) {
+            return new SyncResult(Collections.emptyMap(), 0, 0, false);
+        }
+        String extent = Utils.numericRangeToLiteral(startColumn, startRow, startColumn + width - 1,
+                startRow + values.length - 1);
+        String extentWithSheet = getRangeWithSheet(sheet, extent);
+        List<List<Object>> snapshot = syncSnapshots.get(spreadsheetId, extentWithSheet);
+        boolean snapshotRead = snapshot == null;
+        if (snapshotRead) {
+            List<List<Object>> read = new ArrayList<>();
+            streamValuesApiCall(sheet, extent, ValueRenderOption.FORMULA, DateTimeRenderOption.SERIAL_NUMBER,
+                    RowHandler.rows(read::add));
+            snapshot = read;
+        }
+        boolean userEntered = valueInputOption == ValueInputOption.USER_ENTERED;
+        Map<String, Object[][]> blocks = new LinkedHashMap<>();
+        long cellsWritten = 0;
+        for (NumericRange block : ValueDiff.changedBlocks(snapshot, values, userEntered)) {
+            Object[][] blockValues = new Object[block.getEndRow() - block.getStartRow() + 1][];
+            for (int row = 0; row < blockValues.length; row++) {
+                blockValues[row] = Arrays.copyOfRange(values[block.getStartRow() - 1 + row],
+                        block.getStartColumn() - 1, block.getEndColumn());
+            }
+            blocks.put(Utils.numericRangeToLiteral(startColumn + block.getStartColumn() - 1,
+                    startRow + block.getStartRow() - 1, startColumn + block.getEndColumn() - 1,
+                    startRow + block.getEndRow() - 1), blockValues);
+            cellsWritten += (long) blockValues.length * blockValues[0].length;
+        }
+        Map<String, UpdateValuesResponse> responses = blocks.isEmpty()
+                ? Collections.emptyMap()
+                : batchUpdateValues(sheet, valueInputOption, blocks);
+        syncSnapshots.put(spreadsheetId, extentWithSheet, ValueDiff.merge(snapshot, values, userEntered),
+                syncSnapshots.getVersion(spreadsheetId));
+        return new SyncResult(responses, cellsWritten, countCells(values) - cellsWritten, snapshotRead);
     }
 
     /**
-     * Sort range on the spreadsheet
+     * Send a structural request in one batchUpdate call, or queue it when in the batch mode
      *
-     * @return {@link BatchUpdateSpreadsheetRequest}
+     * @param sheet    the sheet name the request applies to
+     * @param affected the cells whose values the request changes, null if it shifts the whole sheet
+     * @param request  the request to send
+     * @return {@link BatchUpdateSpreadsheetResponse}, or {@code null} if the request was queued
      * @throws IOException will be thrown if occurs
      */
-    private BatchUpdateSpreadsheetResponse sortApiCall() throws IOException {
+    BatchUpdateSpreadsheetResponse batchUpdateApiCall(String sheet, NumericRange affected, Request request)
+            throws IOException {
+        if (pendingRequests != null) {
+            synchronized (pendingRequests) {
+                pendingRequests.add(request);
+            }
+            return null;
+        }
         List<Request> requests = new ArrayList<>();
-        List<SortSpec> sortSpecs = new ArrayList<>();
-        sortSpecs.add(
-                new SortSpec()
-                .setSortOrder(sortOrder.getValue())
-                .setDimensionIndex((dimension.equals(Dimension.COLUMNS) ? 0 : 1))
-        );
-        GridRange range = new GridRange()
-                .setStartColumnIndex(startColumnIndex)
-                .setStartRowIndex(startRowIndex)
-                .setEndColumnIndex(endColumnIndex)
-                .setEndRowIndex(endRowIndex);
-        requests.add(new Request().setSortRange(new SortRangeRequest()
-                .setRange(range)
-                .setSortSpecs(sortSpecs)));
+        requests.add(request);
         BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest()
-                .setRequests(requests);
-        return service.spreadsheets().batchUpdate(spreadsheetId, requestBody).execute();
+                .setRequests(requests)
+                .setIncludeSpreadsheetInResponse(isFullResponse());
+        try {
+            return traced(operationOf(request), sheet, true, (client, trace) -> client.getScheduler().execute(
+                    withFields(client.getService().spreadsheets().batchUpdate(spreadsheetId, requestBody),
+                            BATCH_UPDATE_FIELDS), false, trace));
+        } finally {
+            metadataCache.invalidate();
+            invalidate(cache -> cache.invalidate(spreadsheetId, sheet, affected));
+        }
+    }
+
+    /**
+     * Get the modified time of the spreadsheet file from the Drive API
+     *
+     * @return the modified time, in milliseconds since the epoch
+     * @throws IOException will be thrown if occurs
+     */
+    long getModifiedTimeApiCall() throws IOException {
+        return traced(Operation.GET_MODIFIED_TIME, null, false, (client, trace) -> client.getScheduler()
+                .execute(client.getDrive().files().get(spreadsheetId).setFields(MODIFIED_TIME_FIELDS), true, trace))
+                .getModifiedTime()
+                .getValue();
+    }
+
+    /**
+     * Resolve the id of the sheet, using the metadata cache
+     *
+     * @param sheet the name of the sheet, null for the default sheet
+     * @return the id of the sheet, or null if no sheet is given
+     * @throws IOException will be thrown if occurs
+     */
+    Integer resolveSheetId(String sheet) throws IOException {
+        return sheet == null ? null : getSheetId(sheet);
+    }
+
+    /**
+     * Return the properties of the sheet, using the metadata cache
+     *
+     * @param sheet the name of the sheet
+     * @return the properties of the sheet, including its grid size
+     * @throws IOException will be thrown if occurs
+     * @throws IllegalArgumentException if there is no sheet with the name
+     */
+    SheetProperties getSheetProperties(String sheet) throws IOException {
+        SheetProperties properties = metadataCache.get(sheet, this::getSheetsPropertiesApiCall);
+        if (properties == null) {
+            throw new IllegalArgumentException("No sheet named '" + sheet + "' in the spreadsheet " + spreadsheetId);
+        }
+        return properties;
+    }
+
+    /**
+     * Run the operation on the executor
+     * <p>In the batch mode the operation is run right away, so the operations are queued in the call order
+     *
+     * @param operation the operation to run
+     * @param <T>       the type of the result
+     * @return the future of the operation result. Completes exceptionally with the thrown exception
+     */
+    <T> CompletableFuture<T> supplyAsync(AsyncCall<T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                future.complete(operation.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+        if (pendingRequests != null) {
+            task.run();
+        } else {
+            executor.execute(task);
+        }
+        return future;
+    }
+
+    // =====================================
+    // Private methods (API calls)
+    // =====================================
+
+    /**
+     * Get the properties of all sheets, without the grid data and other sheet fields
+     *
+     * @return the sheets with the properties only
+     * @throws IOException will be thrown if occurs
+     */
+    private List<Sheet> getSheetsPropertiesApiCall() throws IOException {
+        return traced(Operation.GET_SHEETS, null, false, (client, trace) -> client.getScheduler()
+                .execute(client.getService().spreadsheets().get(spreadsheetId)
+                        .setFields(SHEET_PROPERTIES_FIELDS), true, trace))
+                .getSheets();
+    }
+
+    /**
+     * Get values from several ranges with one batchGet call
+     *
+     * @param sheet  the sheet to resolve ranges without a sheet name against
+     * @param ranges the ranges as given by the caller
+     * @param result the map to put the values to, keyed by the given range
+     * @throws IOException will be thrown if occurs
+     */
+    private void batchGetValuesApiCall(String sheet, List<String> ranges, Map<String, List<List<Object>>> result)
+            throws IOException {
+        List<String> qualified = ranges.stream()
+                .map(range -> qualifyRange(sheet, range))
+                .collect(Collectors.toList());
+        List<ValueRange> valueRanges = traced(Operation.GET_VALUES, null, false, (client, trace) -> {
+            List<ValueRange> response = client.getScheduler().execute(client.getService().spreadsheets().values()
+                    .batchGet(spreadsheetId)
+                    .setRanges(qualified), true, trace)
+                    .getValueRanges();
+            if (response != null) {
+                response.forEach(valueRange -> trace.onCells(countCells(valueRange.getValues())));
+            }
+            return response;
+        });
+        for (int i = 0; i < ranges.size(); i++) {
+            List<List<Object>> rangeValues = valueRanges != null && i < valueRanges.size()
+                    ? valueRanges.get(i).getValues()
+                    : null;
+            result.put(ranges.get(i), rangeValues != null ? rangeValues : Collections.emptyList());
+        }
+    }
+
+    /**
+     * Update values on several ranges with one batchUpdate call
+     *
+     * @param valueInputOption how the values should be interpreted
+     * @param ranges           the ranges as given by the caller
+     * @param data             the values to write, one {@link ValueRange} per range
+     * @param result           the map to put the responses to, keyed by the given range
+     * @throws IOException will be thrown if occurs
+     */
+    private void batchUpdateValuesApiCall(ValueInputOption valueInputOption, List<String> ranges,
+                                          List<ValueRange> data, Map<String, UpdateValuesResponse> result)
+            throws IOException {
+        BatchUpdateValuesRequest body = new BatchUpdateValuesRequest()
+                .setValueInputOption(valueInputOption.getValue())
+                .setIncludeValuesInResponse(isFullResponse())
+                .setData(new ArrayList<>(data));
+        List<UpdateValuesResponse> responses;
+        try {
+            responses = traced(Operation.WRITE_VALUES, null, true, (client, trace) -> {
+                body.getData().forEach(valueRange -> trace.onCells(countCells(valueRange.getValues())));
+                return client.getScheduler().execute(withFields(client.getService().spreadsheets().values()
+                        .batchUpdate(spreadsheetId, body), BATCH_UPDATE_VALUES_FIELDS), true, trace);
+            }).getResponses();
+        } finally {
+            data.forEach(valueRange -> invalidate(cache -> cache.invalidate(spreadsheetId, valueRange.getRange())));
+        }
+        for (int i = 0; i < ranges.size(); i++) {
+            result.put(ranges.get(i), responses != null && i < responses.size() ? responses.get(i) : null);
+        }
+    }
+
+    /**
+     * Checks whether the whole responses are requested
+     *
+     * @return true for {@link ResponsePolicy#FULL}
+     */
+    private boolean isFullResponse() {
+        return responsePolicy == ResponsePolicy.FULL;
+    }
+
+    /**
+     * Set the field mask of the request unless the whole responses are requested
+     *
+     * @param request the request
+     * @param fields  the fields of the response to request
+     * @param <T>     the type of the response
+     * @return the request
+     */
+    private <T> SheetsRequest<T> withFields(SheetsRequest<T> request, String fields) {
+        if (!isFullResponse()) {
+            request.setFields(fields);
+        }
+        return request;
+    }
+
+    /**
+     * Invalidate the cached values of the written cells, in the range cache and in the sync snapshots
+     *
+     * @param invalidation invalidates one cache
+     */
+    private void invalidate(Consumer<RangeCache> invalidation) {
+        invalidation.accept(syncSnapshots);
+        if (rangeCache != null) {
+            invalidation.accept(rangeCache);
+        }
+    }
+
+    /**
+     * Create the store of the last known values of the ranges written with {@code syncValues()}
+     *
+     * @return new instance of the {@link RangeCache} with the default size and time to live
+     */
+    private static RangeCache newSyncSnapshots() {
+        return new RangeCache(DEFAULT_MAX_SYNC_SNAPSHOTS, DEFAULT_SYNC_SNAPSHOT_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Run the API call with a client of the pool, within a trace of the instrumentation
+     *
+     * @param operation the operation of the call
+     * @param sheet     the sheet name, null if the call isn't bound to one sheet
+     * @param ordered   true to send the call with the client the spreadsheet sticks to, false for the least-loaded one
+     * @param call      the API call
+     * @param <T>       the type of the result
+     * @return the result of the call
+     * @throws IOException will be thrown if occurs
+     */
+    private <T> T traced(Operation operation, String sheet, boolean ordered, TracedCall<T> call) throws IOException {
+        SheetsClientPool.Client client = clients.acquire(spreadsheetId, ordered);
+        try {
+            CallTrace trace = instrumentation.start(operation, spreadsheetId, sheet);
+            T result;
+            try {
+                result = call.call(client, trace);
+            } catch (IOException | RuntimeException | Error e) {
+                trace.end(e);
+                throw e;
+            }
+            trace.end(null);
+            return result;
+        } finally {
+            clients.release(client);
+        }
+    }
+
+    /**
+     * Decode the body of the response, reporting its size and the number of cells to the trace
+     *
+     * @param response the response with the unread body
+     * @param trace    the trace of the call
+     * @param decoder  decodes the body and returns the number of cells
+     * @return null
+     * @throws IOException will be thrown if occurs
+     */
+    private static Void decode(HttpResponse response, CallTrace trace, BodyDecoder decoder) throws IOException {
+        try (CountingInputStream content = new CountingInputStream(response.getContent())) {
+            try {
+                trace.onCells(decoder.decode(content));
+            } finally {
+                trace.onResponseBytes(content.getCount());
+            }
+        } finally {
+            response.disconnect();
+        }
+        return null;
+    }
+
+    /**
+     * Get the operation a structural request is recorded under
+     *
+     * @param request the request
+     * @return the operation
+     */
+    private static Operation operationOf(Request request) {
+        if (request.getInsertDimension() != null || request.getAppendDimension() != null) {
+            return Operation.INSERT_EMPTY;
+        } else if (request.getDeleteDimension() != null) {
+            return Operation.DELETE;
+        } else if (request.getSortRange() != null) {
+            return Operation.SORT;
+        } else if (request.getMergeCells() != null) {
+            return Operation.MERGE_CELLS;
+        }
+        return Operation.BATCH_UPDATE;
+    }
+
+    /**
+     * Prepend the sheet to a range which doesn't name a sheet itself
+     *
+     * @param sheet the sheet name, null to keep the range as is
+     * @param range the range, e.g. "A1:B2" or "Sheet2!A1:B2"
+     * @return the range suitable for Google Sheets API
+     */
+    private static String qualifyRange(String sheet, String range) {
+        return sheet == null || range.contains(EXCLAMATION_MARK) ? range : getRangeWithSheet(sheet, range);
+    }
+
+    /**
+     * Prepend the sheet to a range unless the range names a sheet itself, e.g. a range converted
+     * from a {@link NumericRange} with a sheet
+     *
+     * @param sheet the sheet name
+     * @param range the range, e.g. "A1:B2" or "'Sheet 2'!A1:B2"
+     * @return the range suitable for Google Sheets API
+     */
+    private static String resolveRange(String sheet, String range) {
+        return range.contains(EXCLAMATION_MARK) ? range : getRangeWithSheet(sheet, range);
+    }
+
+    /**
+     * Split the ranges into chunks which keep the batchGet URL within the length limit
+     *
+     * @param sheet  the sheet to resolve ranges without a sheet name against
+     * @param ranges the ranges to read
+     * @return the chunks of the ranges, in the given order
+     */
+    private static List<List<String>> chunkByUrlLength(String sheet, String... ranges) {
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int chunkLength = 0;
+        for (String range : ranges) {
+            int length = qualifyRange(sheet, range).length() + "&ranges=".length();
+            if (!chunk.isEmpty() && chunkLength + length > MAX_BATCH_GET_URL_LENGTH) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkLength = 0;
+            }
+            chunk.add(range);
+            chunkLength += length;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Count the cells of the values
+     *
+     * @param values two dimensional array of values
+     * @return the number of cells
+     */
+    private static int countCells(Object[][] values) {
+        int cells = 0;
+        for (Object[] row : values) {
+            cells += row.length;
+        }
+        return cells;
+    }
+
+    /**
+     * Count the cells of the values
+     *
+     * @param values list of list of values, might be null
+     * @return the number of cells
+     */
+    private static long countCells(List<List<Object>> values) {
+        long cells = 0;
+        if (values != null) {
+            for (List<Object> row : values) {
+                cells += row.size();
+            }
+        }
+        return cells;
     }
 
     /**
@@ -489,4 +1299,53 @@ public class SpreadSheet {
     private static String getRangeWithSheet(String sheet, String range) {
         return sheet + EXCLAMATION_MARK + range;
     }
-}
\ No newline at end of file
+
+    /**
+     * An operation run by the asynchronous methods
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    interface AsyncCall<T> {
+        /**
+         * Runs the operation
+         *
+         * @return the result of the operation
+         * @throws IOException might be thrown
+         */
+        T call() throws IOException;
+    }
+
+    /**
+     * An API call run with a client of the pool within a trace
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    private interface TracedCall<T> {
+        /**
+         * Runs the API call
+         *
+         * @param client the client to send the call with
+         * @param trace  the trace of the call, passed to the scheduler
+         * @return the result of the call
+         * @throws IOException might be thrown
+         */
+        T call(SheetsClientPool.Client client, CallTrace trace) throws IOException;
+    }
+
+    /**
+     * Decodes the body of a values response
+     */
+    @FunctionalInterface
+    private interface BodyDecoder {
+        /**
+         * Decodes the body
+         *
+         * @param content the body
+         * @return the number of cells decoded
+         * @throws IOException might be thrown
+         */
+        long decode(InputStream content) throws IOException;
+    }
+}
@@ -0,0 +1,91 @@
+package com.ydanchen.handysheet;
+
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of {@code SheetOperation.syncValues()}: which blocks were written and how many cells were skipped
+ *
+ * @author Yevhen Danchenko
+ */
+public class SyncResult {
+    private final Map<String, UpdateValuesResponse> responses;
+    private final long cellsWritten;
+    private final long cellsSkipped;
+    private final boolean snapshotRead;
+
+    /**
+     * Constructor
+     *
+     * @param responses    the responses keyed by the written blocks, like "B2:C3"
+     * @param cellsWritten the number of cells sent
+     * @param cellsSkipped the number of cells not sent because they didn't change
+     * @param snapshotRead true if the last known values were read from the API
+     */
+    SyncResult(Map<String, UpdateValuesResponse> responses, long cellsWritten, long cellsSkipped,
+               boolean snapshotRead) {
+        this.responses = Collections.unmodifiableMap(responses);
+        this.cellsWritten = cellsWritten;
+        this.cellsSkipped = cellsSkipped;
+        this.snapshotRead = snapshotRead;
+    }
+
+    /**
+     * Written blocks getter
+     *
+     * @return the written blocks, like "B2:C3", empty if nothing has changed
+     */
+    public List<String> getWrittenBlocks() {
+        return new ArrayList<>(responses.keySet());
+    }
+
+    /**
+     * Responses getter
+     *
+     * @return {@link UpdateValuesResponse} keyed by the written blocks
+     */
+    public Map<String, UpdateValuesResponse> getResponses() {
+        return responses;
+    }
+
+    /**
+     * Number of written cells
+     *
+     * @return the number of cells sent to the API
+     */
+    public long getCellsWritten() {
+        return cellsWritten;
+    }
+
+    /**
+     * Number of skipped cells
+     *
+     * @return the number of cells not sent because they were unchanged or null
+     */
+    public long getCellsSkipped() {
+        return cellsSkipped;
+    }
+
+    /**
+     * Checks whether the last known values were read from the API
+     *
+     * @return true if there was no snapshot of the range and it was read, false if the snapshot was used
+     */
+    public boolean isSnapshotRead() {
+        return snapshotRead;
+    }
+
+    @Override
+    public String toString() {
+        return "SyncResult{" +
+                "writtenBlocks=" + responses.keySet() +
+                ", cellsWritten=" + cellsWritten +
+                ", cellsSkipped=" + cellsSkipped +
+                ", snapshotRead=" + snapshotRead +
+                '}';
+    }
+}
@@ -0,0 +1,180 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.util.NumericRange;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the values to write with the last known values of a range and finds the changed blocks
+ * <p>Changed cells are grouped into runs within each row, and runs over the same columns
+ * in consecutive rows are merged into one rectangular block.
+ * Null values to write mean "leave the cell as is", like in the API, and are never written
+ *
+ * @author Yevhen Danchenko
+ */
+final class ValueDiff {
+    private static final Pattern DECIMAL = Pattern.compile("[-+]?(\\d+\\.?\\d*|\\.\\d+)([eE][-+]?\\d+)?");
+
+    private ValueDiff() {
+    }
+
+    /**
+     * Finds the blocks of the changed cells
+     *
+     * @param snapshot    the last known values of the range, might be shorter than the values or jagged
+     * @param values      the values to write
+     * @param userEntered true if the values are parsed as if typed by a user, so "3.50" is the number 3.5
+     * @return the changed blocks, 1-based and relative to the first cell of the range, ordered by their first row
+     */
+    static List<NumericRange> changedBlocks(List<List<Object>> snapshot, Object[][] values, boolean userEntered) {
+        List<NumericRange> blocks = new ArrayList<>();
+        Map<Long, int[]> open = new HashMap<>();
+        for (int row = 0; row < values.length; row++) {
+            Map<Long, int[]> extended = new HashMap<>();
+            Object[] rowValues = values[row];
+            int column = 0;
+            while (column < rowValues.length) {
+                if (isSame(cell(snapshot, row, column), rowValues[column], userEntered)) {
+                    column++;
+                    continue;
+                }
+                int start = column;
+                while (column < rowValues.length && !isSame(cell(snapshot, row, column), rowValues[column], userEntered)) {
+                    column++;
+                }
+                long key = ((long) start << 32) | (column - 1);
+                int[] block = open.remove(key);
+                if (block == null) {
+                    block = new int[]{row, start, column - 1};
+                }
+                extended.put(key, block);
+            }
+            close(open, row - 1, blocks);
+            open = extended;
+        }
+        close(open, values.length - 1, blocks);
+        blocks.sort(Comparator.comparingInt(NumericRange::getStartRow).thenComparingInt(NumericRange::getStartColumn));
+        return blocks;
+    }
+
+    /**
+     * Overlays the written values on the last known ones, converted to the form the sheet stores them in
+     *
+     * @param snapshot    the last known values of the range, might be null
+     * @param values      the written values
+     * @param userEntered true if the values were parsed as if typed by a user
+     * @return the values of the range after the write, one row per written row
+     */
+    static List<List<Object>> merge(List<List<Object>> snapshot, Object[][] values, boolean userEntered) {
+        List<List<Object>> merged = new ArrayList<>(values.length);
+        for (int row = 0; row < values.length; row++) {
+            int width = Math.max(values[row].length,
+                    snapshot != null && row < snapshot.size() ? snapshot.get(row).size() : 0);
+            List<Object> mergedRow = new ArrayList<>(width);
+            for (int column = 0; column < width; column++) {
+                Object value = column < values[row].length ? values[row][column] : null;
+                mergedRow.add(value != null ? normalize(value, userEntered) : cell(snapshot, row, column));
+            }
+            merged.add(mergedRow);
+        }
+        return merged;
+    }
+
+    /**
+     * Checks whether writing the value leaves the cell as it is
+     * <p>Only the value to write is parsed as if typed: the last known value is compared by its actual type,
+     * so the text "1.0" of the sheet differs from the number 1 the written "1" would become
+     *
+     * @param previous    the last known value of the cell, null or an empty string if the cell is empty
+     * @param next        the value to write, null to leave the cell as is
+     * @param userEntered true if the value to write is parsed as if typed by a user
+     * @return true if the cell doesn't need to be written
+     */
+    static boolean isSame(Object previous, Object next, boolean userEntered) {
+        if (next == null) {
+            return true;
+        }
+        Object a = normalize(previous, false);
+        Object b = normalize(next, userEntered);
+        if (a instanceof BigDecimal && b instanceof BigDecimal) {
+            return ((BigDecimal) a).compareTo((BigDecimal) b) == 0;
+        }
+        return a.equals(b);
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Gets the value of the cell of the snapshot
+     *
+     * @param snapshot the values, might be null
+     * @param row      the 0-based row
+     * @param column   the 0-based column
+     * @return the value, an empty string if the cell is out of the values
+     */
+    private static Object cell(List<List<Object>> snapshot, int row, int column) {
+        if (snapshot == null || row >= snapshot.size()) {
+            return "";
+        }
+        List<Object> rowValues = snapshot.get(row);
+        Object value = rowValues != null && column < rowValues.size() ? rowValues.get(column) : null;
+        return value != null ? value : "";
+    }
+
+    /**
+     * Converts the value to the form the sheet would store it in
+     *
+     * @param value       the value
+     * @param userEntered true if the value is parsed as if typed by a user
+     * @return {@link BigDecimal} for numbers, {@link Boolean} for checkboxes, otherwise the text
+     */
+    private static Object normalize(Object value, boolean userEntered) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof BigDecimal) {
+            return value;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            double number = ((Number) value).doubleValue();
+            return Double.isNaN(number) || Double.isInfinite(number) ? String.valueOf(value) : BigDecimal.valueOf(number);
+        }
+        if (value instanceof Boolean) {
+            return value;
+        }
+        String text = String.valueOf(value);
+        if (userEntered) {
+            if ("TRUE".equalsIgnoreCase(text) || "FALSE".equalsIgnoreCase(text)) {
+                return Boolean.valueOf(text);
+            }
+            if (DECIMAL.matcher(text).matches()) {
+                return new BigDecimal(text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Moves the blocks which were not extended by the current row to the result
+     *
+     * @param open    the blocks ending at the previous row
+     * @param lastRow the 0-based last row of the blocks
+     * @param blocks  the result
+     */
+    private static void close(Map<Long, int[]> open, int lastRow, List<NumericRange> blocks) {
+        for (int[] block : open.values()) {
+            blocks.add(new NumericRange(block[1] + 1, block[0] + 1, block[2] + 1, lastRow + 1));
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.ydanchen.handysheet;
+
+import com.ydanchen.handysheet.scheduling.RetryPolicy;
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Buffers small writes and sends them together as rectangular blocks
+ * <p>Writes are kept per cell, so writing a cell again before the flush replaces its value (last writer wins)
+ * and the cell is sent once. On flush the cells of each sheet are grouped into runs within each row,
+ * runs over the same columns in consecutive rows are merged into one block, and all blocks are sent
+ * with one values batchUpdate call, split only by the request size limits.
+ * <p>The buffer is flushed when it holds {@code maxCells} cells, by the thread which wrote the last one,
+ * {@code maxDelay} after the first cell was buffered, on the executor of the {@link SpreadSheet},
+ * on {@link #flush()} and on {@link #close()}.
+ * <p>Ordering: a cell ends up with the value of the last {@code write()} call accepted before the flush
+ * which sends it. Flushes are sent one at a time, in the order they were taken from the buffer, so a later
+ * value of a cell is never overwritten by an earlier one. Writes made directly through the {@link SpreadSheet}
+ * are not ordered with the buffered ones. If a flush fails with a transient error, e.g. 429 or 5xx, its cells
+ * return to the buffer unless they have been written again meanwhile and are sent with the next flush.
+ * If it fails with a permanent error, e.g. 400 for a missing sheet, or once the buffer is closed, its cells
+ * are dropped and counted by {@link #getCellsDropped()}. A timed flush failed with a transient error is only
+ * retried, writes are still accepted. The failure of a timed flush which dropped cells is thrown once,
+ * by the next write, {@link #flush()} or {@link #close()}.
+ * Obtain an instance with {@link SpreadSheet#writeBehind(int, long, TimeUnit)}
+ *
+ * @author Yevhen Danchenko
+ */
+public class WriteBehindBuffer implements Closeable {
+    private static final String THREAD_NAME = "handysheet-write-behind";
+
+    private final FlushUploader uploader;
+    private final Executor executor;
+    private final int maxCells;
+    private final long maxDelayNanos;
+    private final Object flushLock = new Object();
+    private final AtomicLong cellsFlushed = new AtomicLong();
+    private final AtomicLong cellsDropped = new AtomicLong();
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private Map<String, TreeMap<Long, Object>> cellsBySheet = new HashMap<>();
+    private int pendingCells;
+    private ScheduledFuture<?> timedFlush;
+    private Thread shutdownHook;
+    private boolean closed;
+
+    /**
+     * Sends the blocks of one flush
+     */
+    interface FlushUploader {
+        /**
+         * Writes the blocks
+         *
+         * @param blocks the values keyed by the range with the sheet name, like "Sheet1!A1:B2"
+         * @throws IOException might be thrown
+         */
+        void upload(Map<String, Object[][]> blocks) throws IOException;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param uploader sends the blocks of one flush
+     * @param executor the executor to run the timed flushes on
+     * @param maxCells the number of buffered cells which triggers a flush. Can't be lower than 1
+     * @param maxDelay the longest time a cell is buffered before a flush is started. Can't be lower than 1
+     * @param unit     the time unit of the maxDelay
+     */
+    WriteBehindBuffer(FlushUploader uploader, Executor executor, int maxCells, long maxDelay, TimeUnit unit) {
+        if (maxCells < 1 || maxDelay < 1) {
+            throw new IllegalArgumentException("Buffer size and delay can't be lower than 1");
+        }
+        this.uploader = uploader;
+        this.executor = executor;
+        this.maxCells = maxCells;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+    }
+
+    /**
+     * Write the value of one cell
+     *
+     * @param sheet the sheet name
+     * @param cell  the cell, e.g. "C17"
+     * @param value the value, null leaves the cell as it is
+     * @throws IOException if a timed flush has dropped cells, or the flush triggered by the write fails
+     */
+    public void write(String sheet, String cell, Object value) throws IOException {
+        write(sheet, cell, new Object[][]{{value}});
+    }
+
+    /**
+     * Write the values of a small range
+     *
+     * @param sheet  the sheet name
+     * @param range  the range, only its first cell is used, e.g. "C17" or "C17:D18"
+     * @param values the values written from the first cell of the range, null values leave the cells as they are
+     * @throws IOException if a timed flush has dropped cells, or the flush triggered by the write fails
+     */
+    public void write(String sheet, String range, Object[][] values) throws IOException {
+        NumericRange origin = Utils.literalRangeToNumerical(range);
+        int startColumn = Math.max(1, origin.getStartColumn());
+        int startRow = Math.max(1, origin.getStartRow());
+        boolean full;
+        synchronized (this) {
+            ensureOpen();
+            TreeMap<Long, Object> cells = cellsBySheet.computeIfAbsent(sheet, key -> new TreeMap<>());
+            for (int row = 0; row < values.length; row++) {
+                for (int column = 0; column < values[row].length; column++) {
+                    Object value = values[row][column];
+                    if (value != null && cells.put(cellKey(startRow + row, startColumn + column), value) == null) {
+                        pendingCells++;
+                    }
+                }
+            }
+            scheduleFlush();
+            full = pendingCells >= maxCells;
+        }
+        if (full) {
+            flush(false);
+        }
+    }
+
+    /**
+     * Send the buffered cells and wait until they are written
+     * <p>The cells of a timed flush failed with a transient error are sent again
+     *
+     * @throws IOException if the cells can't be written, they are kept for the next flush only if the error
+     *                     is transient and the buffer is open. Or if a timed flush has dropped cells
+     */
+    public void flush() throws IOException {
+        flush(false);
+        throwIfFailed();
+    }
+
+    /**
+     * Flush the buffered cells when the JVM shuts down, unless the buffer is closed before
+     *
+     * @return current instance of the {@link WriteBehindBuffer}
+     */
+    public synchronized WriteBehindBuffer flushOnShutdown() {
+        if (closed) {
+            throw new IllegalStateException("The buffer is closed");
+        }
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::closeQuietly, THREAD_NAME + "-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        return this;
+    }
+
+    /**
+     * Send the buffered cells and stop accepting writes
+     *
+     * @throws IOException if the cells can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // the JVM is shutting down, the hook is running or has run
+                }
+            }
+        }
+        flush(false);
+        throwIfFailed();
+    }
+
+    /**
+     * Number of buffered cells
+     *
+     * @return the number of cells waiting for the flush
+     */
+    public synchronized int getPendingCells() {
+        return pendingCells;
+    }
+
+    /**
+     * Number of cells written
+     *
+     * @return the total number of cells sent by the successful flushes
+     */
+    public long getCellsFlushed() {
+        return cellsFlushed.get();
+    }
+
+    /**
+     * Number of cells dropped
+     *
+     * @return the total number of cells not written because their flush failed with a permanent error
+     * or after the buffer was closed
+     */
+    public long getCellsDropped() {
+        return cellsDropped.get();
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Sends the buffered cells
+     *
+     * @param timed true for the timed flush, which keeps the failure of the dropped cells for the next call
+     * @throws IOException if the cells can't be written
+     */
+    private void flush(boolean timed) throws IOException {
+        synchronized (flushLock) {
+            Map<String, TreeMap<Long, Object>> taken;
+            int takenCells;
+            synchronized (this) {
+                taken = cellsBySheet;
+                takenCells = pendingCells;
+                cellsBySheet = new HashMap<>();
+                pendingCells = 0;
+                if (timedFlush != null) {
+                    timedFlush.cancel(false);
+                    timedFlush = null;
+                }
+            }
+            if (takenCells == 0) {
+                return;
+            }
+            try {
+                uploader.upload(blocks(taken));
+                cellsFlushed.addAndGet(takenCells);
+            } catch (IOException e) {
+                if (!restore(taken, takenCells, isTransient(e)) && timed) {
+                    failure.compareAndSet(null, e);
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                restore(taken, takenCells, false);
+                if (timed) {
+                    failure.compareAndSet(null, new IOException("Write-behind flush has failed", e));
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Groups the cells of each sheet into rectangular blocks
+     *
+     * @param cellsBySheet the cells keyed by the sheet name, sorted by row and column
+     * @return the values of the blocks keyed by the range with the sheet name
+     */
+    private static Map<String, Object[][]> blocks(Map<String, TreeMap<Long, Object>> cellsBySheet) {
+        Map<String, Object[][]> blocks = new LinkedHashMap<>();
+        for (Map.Entry<String, TreeMap<Long, Object>> entry : cellsBySheet.entrySet()) {
+            String sheet = entry.getKey();
+            List<List<Object[]>> rowsOfBlocks = new ArrayList<>();
+            List<int[]> bounds = new ArrayList<>();
+            Map<Long, Integer> open = new HashMap<>();
+            Map<Long, Integer> extended = new HashMap<>();
+            List<Object> run = new ArrayList<>();
+            int row = -1;
+            int runStart = -1;
+            int runEnd = -1;
+            for (Map.Entry<Long, Object> cell : entry.getValue().entrySet()) {
+                int cellRow = (int) (cell.getKey() >>> 32);
+                int cellColumn = (int) (long) cell.getKey();
+                if (cellRow != row || cellColumn != runEnd + 1) {
+                    if (!run.isEmpty()) {
+                        addRun(row, runStart, runEnd, run, open, extended, rowsOfBlocks, bounds);
+                    }
+                    if (cellRow != row) {
+                        open = cellRow == row + 1 ? extended : new HashMap<>();
+                        extended = new HashMap<>();
+                        row = cellRow;
+                    }
+                    run = new ArrayList<>();
+                    runStart = cellColumn;
+                }
+                run.add(cell.getValue());
+                runEnd = cellColumn;
+            }
+            if (!run.isEmpty()) {
+                addRun(row, runStart, runEnd, run, open, extended, rowsOfBlocks, bounds);
+            }
+            for (int i = 0; i < bounds.size(); i++) {
+                int[] block = bounds.get(i);
+                blocks.put(Utils.numericRangeToLiteral(new NumericRange(sheet, block[1], block[0], block[2],
+                        block[0] + rowsOfBlocks.get(i).size() - 1)), rowsOfBlocks.get(i).toArray(new Object[0][]));
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Adds a run of adjacent cells of one row to the block above it, or starts a new block
+     *
+     * @param row          the row of the run
+     * @param start        the first column of the run
+     * @param end          the last column of the run
+     * @param run          the values of the run
+     * @param open         the blocks ending on the previous row, keyed by their columns
+     * @param extended     the blocks ending on this row, keyed by their columns
+     * @param rowsOfBlocks the rows of every block
+     * @param bounds       the first row, first column and last column of every block
+     */
+    private static void addRun(int row, int start, int end, List<Object> run, Map<Long, Integer> open,
+                               Map<Long, Integer> extended, List<List<Object[]>> rowsOfBlocks, List<int[]> bounds) {
+        long columns = cellKey(start, end);
+        Integer block = open.remove(columns);
+        if (block == null) {
+            block = bounds.size();
+            bounds.add(new int[]{row, start, end});
+            rowsOfBlocks.add(new ArrayList<>());
+        }
+        rowsOfBlocks.get(block).add(run.toArray());
+        extended.put(columns, block);
+    }
+
+    /**
+     * Puts the cells of a failed flush back, keeping the values written since, or drops them
+     *
+     * @param taken      the cells of the failed flush
+     * @param takenCells the number of the cells
+     * @param retry      true if the failure is transient and the cells can be sent again
+     * @return true if the cells were put back, false if they were dropped
+     */
+    private synchronized boolean restore(Map<String, TreeMap<Long, Object>> taken, int takenCells, boolean retry) {
+        if (!retry || closed) {
+            cellsDropped.addAndGet(takenCells);
+            return false;
+        }
+        for (Map.Entry<String, TreeMap<Long, Object>> entry : taken.entrySet()) {
+            TreeMap<Long, Object> cells = cellsBySheet.computeIfAbsent(entry.getKey(), key -> new TreeMap<>());
+            for (Map.Entry<Long, Object> cell : entry.getValue().entrySet()) {
+                if (cells.putIfAbsent(cell.getKey(), cell.getValue()) == null) {
+                    pendingCells++;
+                }
+            }
+        }
+        scheduleFlush();
+        return true;
+    }
+
+    /**
+     * Schedules the timed flush of the buffered cells, unless it is already scheduled
+     */
+    private void scheduleFlush() {
+        if (pendingCells > 0 && timedFlush == null && !closed) {
+            timedFlush = TimerHolder.TIMER.schedule(() -> executor.execute(this::flushQuietly),
+                    maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Checks whether the failed flush can succeed when sent again
+     *
+     * @param e the failure of the flush
+     * @return false for the client errors (4xx) other than 429, which fail the same way every time
+     */
+    private static boolean isTransient(IOException e) {
+        int status = RetryPolicy.statusCode(e);
+        return status < 400 || status >= 500 || status == RetryPolicy.TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Runs the timed flush. The failure of the dropped cells is kept by the flush for the next call,
+     * the cells of a transient failure are retried by the next flush
+     */
+    private void flushQuietly() {
+        try {
+            flush(true);
+        } catch (IOException | RuntimeException e) {
+            // kept or retried by the flush
+        }
+    }
+
+    /**
+     * Closes the buffer on the JVM shutdown
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // nothing can be done while the JVM is shutting down
+        }
+    }
+
+    /**
+     * Checks the buffer is open and rethrows the failure of a timed flush which dropped cells, if any
+     *
+     * @throws IOException if a timed flush has dropped cells
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IllegalStateException("The buffer is closed");
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Rethrows the failure of a timed flush which dropped cells once
+     *
+     * @throws IOException if a timed flush has dropped cells
+     */
+    private void throwIfFailed() throws IOException {
+        IOException e = failure.getAndSet(null);
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+     * Packs two 1-based indexes into one sortable key
+     *
+     * @param high the index compared first, e.g. the row
+     * @param low  the index compared second, e.g. the column
+     * @return the key
+     */
+    private static long cellKey(int high, int low) {
+        return ((long) high << 32) | low;
+    }
+
+    /**
+     * Lazy holder of the timer of the timed flushes, which only hands them over to the executors
+     */
+    private static final class TimerHolder {
+        private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
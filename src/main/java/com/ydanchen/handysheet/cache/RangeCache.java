@@ -0,0 +1,267 @@
+package com.ydanchen.handysheet.cache;
+
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded LRU cache of range values with a time to live
+ * <p>Entries are keyed by the spreadsheet id and the range with the sheet name, e.g. "Sheet1!A1:C3".
+ * Writes invalidate the cached ranges they overlap. Ranges which can't be parsed to a {@link NumericRange}
+ * are invalidated by any write to their sheet. One cache can be shared by several spreadsheets.
+ * The cached values are shared with the callers and must not be modified.
+ * <p>To avoid caching values read before a concurrent write, take {@link #getVersion(String)} before the read
+ * and pass it to {@link #put(String, String, List, long)}. The version is kept per spreadsheet, so writes
+ * to one spreadsheet don't keep the values of the others from being cached
+ *
+ * @author Yevhen Danchenko
+ */
+public class RangeCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, CachedRange> entries;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private final Map<String, Long> versions = new HashMap<>();
+    private long invalidationCount;
+    private long clearedAt;
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries the maximum number of cached ranges. Can't be lower than 1
+     * @param ttl        the time to live of a cached range
+     * @param unit       the time unit of the ttl
+     */
+    public RangeCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size can't be lower than 1: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<String, CachedRange>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRange> eldest) {
+                if (size() > RangeCache.this.maxEntries) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached values of the range
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param range         the range with the sheet name, e.g. "Sheet1!A1:C3"
+     * @return the values, or null if the range is not cached or expired
+     */
+    public synchronized List<List<Object>> get(String spreadsheetId, String range) {
+        String key = key(spreadsheetId, range);
+        CachedRange entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.cachedAt >= ttlNanos) {
+            entries.remove(key);
+            evictionCount++;
+            entry = null;
+        }
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.values;
+    }
+
+    /**
+     * Puts the values of the range to the cache
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param range         the range with the sheet name, e.g. "Sheet1!A1:C3"
+     * @param values        the values of the range
+     * @param version       the version of the spreadsheet taken before the values were read.
+     *                      The values are not cached if anything of the spreadsheet was invalidated since
+     */
+    public void put(String spreadsheetId, String range, List<List<Object>> values, long version) {
+        CachedRange entry = new CachedRange(spreadsheetId, sheetOf(range), boundsOf(range), values);
+        synchronized (this) {
+            if (version == getVersion(spreadsheetId)) {
+                entries.put(key(spreadsheetId, range), entry);
+            }
+        }
+    }
+
+    /**
+     * The version of the spreadsheet in the cache, changed by every invalidation of its ranges
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @return the current version
+     */
+    public synchronized long getVersion(String spreadsheetId) {
+        return Math.max(clearedAt, versions.getOrDefault(spreadsheetId, 0L));
+    }
+
+    /**
+     * Invalidates the cached ranges which overlap the written range
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param range         the written range with the sheet name, e.g. "Sheet1!A1:C3"
+     */
+    public void invalidate(String spreadsheetId, String range) {
+        invalidate(spreadsheetId, sheetOf(range), boundsOf(range));
+    }
+
+    /**
+     * Invalidates the cached ranges of the sheet which overlap the written cells
+     * <p>A write without a sheet name goes to the first sheet, whose name isn't known here,
+     * so it invalidates all cached ranges of the spreadsheet
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param sheet         the name of the sheet, null if the write has no sheet name
+     * @param written       the written cells, null to invalidate the whole sheet
+     */
+    public synchronized void invalidate(String spreadsheetId, String sheet, NumericRange written) {
+        if (sheet == null) {
+            invalidate(spreadsheetId);
+            return;
+        }
+        versions.put(spreadsheetId, ++invalidationCount);
+        Iterator<CachedRange> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CachedRange entry = iterator.next();
+            if (entry.spreadsheetId.equals(spreadsheetId) && Objects.equals(entry.sheet, sheet)
+                    && (written == null || entry.bounds == null || entry.bounds.intersects(written))) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Invalidates all cached ranges of the spreadsheet
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     */
+    public synchronized void invalidate(String spreadsheetId) {
+        versions.put(spreadsheetId, ++invalidationCount);
+        entries.values().removeIf(entry -> entry.spreadsheetId.equals(spreadsheetId));
+    }
+
+    /**
+     * Invalidates all cached ranges
+     */
+    public synchronized void invalidateAll() {
+        clearedAt = ++invalidationCount;
+        versions.clear();
+        entries.clear();
+    }
+
+    /**
+     * Number of cached ranges
+     *
+     * @return the number of entries, including the expired ones not evicted yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Number of reads served from the cache
+     *
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Number of reads not found in the cache
+     *
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Number of ranges evicted because the cache was full or their time to live expired.
+     * Invalidated ranges are not counted
+     *
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Builds the cache key
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param range         the range with the sheet name
+     * @return the key
+     */
+    private static String key(String spreadsheetId, String range) {
+        return spreadsheetId + '/' + range;
+    }
+
+    /**
+     * Gets the sheet name of a range like "Sheet1!A1:C3" or "'My Sheet'!A1:C3"
+     * <p>Quoted names are unquoted by the range parser, so they match the names passed to
+     * {@link #invalidate(String, String, NumericRange)}
+     *
+     * @param range the range with the sheet name
+     * @return the sheet name
+     */
+    private static String sheetOf(String range) {
+        NumericRange bounds = boundsOf(range);
+        if (bounds != null) {
+            return bounds.getSheet() != null ? bounds.getSheet() : "";
+        }
+        int separator = range.lastIndexOf('!');
+        return separator < 0 ? "" : range.substring(0, separator);
+    }
+
+    /**
+     * Gets the cells of a range like "Sheet1!A1:C3"
+     *
+     * @param range the range with the sheet name
+     * @return the cells of the range, or null if the range can't be parsed
+     */
+    private static NumericRange boundsOf(String range) {
+        try {
+            return Utils.literalRangeToNumerical(range);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The cached values of one range
+     */
+    private static final class CachedRange {
+        private final String spreadsheetId;
+        private final String sheet;
+        private final NumericRange bounds;
+        private final List<List<Object>> values;
+        private final long cachedAt = System.nanoTime();
+
+        private CachedRange(String spreadsheetId, String sheet, NumericRange bounds, List<List<Object>> values) {
+            this.spreadsheetId = spreadsheetId;
+            this.sheet = sheet;
+            this.bounds = bounds;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ydanchen.handysheet.cache;
+
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the properties of the sheets of one spreadsheet, indexed by the sheet title
+ * <p>The properties are loaded on the first access and kept until the time to live expires
+ * or {@link #invalidate()} is called. The cache is thread-safe: reads don't block,
+ * and concurrent reloads are collapsed into one API call
+ *
+ * @author Yevhen Danchenko
+ */
+public class SheetMetadataCache {
+    private final long ttlNanos;
+    private volatile Snapshot snapshot;
+
+    /**
+     * Loads the sheets of the spreadsheet
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Loads the sheets, only the properties are required
+         *
+         * @return the sheets of the spreadsheet
+         * @throws IOException might be thrown
+         */
+        List<Sheet> load() throws IOException;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ttl  the time to live of the loaded properties
+     * @param unit the time unit of the ttl
+     */
+    public SheetMetadataCache(long ttl, TimeUnit unit) {
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Gets the properties of all sheets, loading them if the cache is empty or expired
+     *
+     * @param loader loads the sheets
+     * @return the properties of all sheets in the spreadsheet order
+     * @throws IOException might be thrown by the loader
+     */
+    public List<SheetProperties> getAll(Loader loader) throws IOException {
+        return current(loader).ordered;
+    }
+
+    /**
+     * Gets the properties of the sheet with the title
+     * <p>If there is no such sheet in the cache, the properties are reloaded once,
+     * in case the sheet was added after they were loaded
+     *
+     * @param title  the title of the sheet
+     * @param loader loads the sheets
+     * @return the properties of the sheet, or null if there is no such sheet
+     * @throws IOException might be thrown by the loader
+     */
+    public SheetProperties get(String title, Loader loader) throws IOException {
+        Snapshot current = current(loader);
+        SheetProperties properties = current.byTitle.get(title);
+        if (properties == null) {
+            properties = reload(current, loader).byTitle.get(title);
+        }
+        return properties;
+    }
+
+    /**
+     * Drops the loaded properties, so they are reloaded on the next access
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Gets the loaded properties if they are still valid, or loads them
+     *
+     * @param loader loads the sheets
+     * @return the valid snapshot
+     * @throws IOException might be thrown by the loader
+     */
+    private Snapshot current(Loader loader) throws IOException {
+        Snapshot current = snapshot;
+        if (current != null && System.nanoTime() - current.loadedAt < ttlNanos) {
+            return current;
+        }
+        return reload(current, loader);
+    }
+
+    /**
+     * Loads the properties unless another thread has replaced the stale snapshot in the meantime
+     *
+     * @param stale  the snapshot found to be stale, null if there was none
+     * @param loader loads the sheets
+     * @return the fresh snapshot
+     * @throws IOException might be thrown by the loader
+     */
+    private synchronized Snapshot reload(Snapshot stale, Loader loader) throws IOException {
+        Snapshot current = snapshot;
+        if (current != null && current != stale) {
+            return current;
+        }
+        List<Sheet> sheets = loader.load();
+        current = new Snapshot(sheets != null ? sheets : Collections.emptyList(), System.nanoTime());
+        snapshot = current;
+        return current;
+    }
+
+    /**
+     * The properties loaded at once
+     */
+    private static final class Snapshot {
+        private final List<SheetProperties> ordered;
+        private final Map<String, SheetProperties> byTitle;
+        private final long loadedAt;
+
+        private Snapshot(List<Sheet> sheets, long loadedAt) {
+            List<SheetProperties> ordered = new ArrayList<>(sheets.size());
+            Map<String, SheetProperties> byTitle = new HashMap<>();
+            for (Sheet sheet : sheets) {
+                SheetProperties properties = sheet.getProperties();
+                if (properties != null) {
+                    ordered.add(properties);
+                    byTitle.put(properties.getTitle(), properties);
+                }
+            }
+            this.ordered = Collections.unmodifiableList(ordered);
+            this.byTitle = byTitle;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
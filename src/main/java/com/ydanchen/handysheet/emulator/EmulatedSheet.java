@@ -0,0 +1,549 @@
+package com.ydanchen.handysheet.emulator;
+
+import com.google.api.services.sheets.v4.model.GridProperties;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.SortSpec;
+import com.ydanchen.handysheet.util.NumericRange;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The cells of one emulated sheet
+ * <p>Cells are stored row by row, an empty cell is {@code null}. The grid grows to fit the written values.
+ * Not thread-safe, guarded by the {@link EmulatedSpreadsheet}
+ *
+ * @author Yevhen Danchenko
+ */
+class EmulatedSheet {
+    static final int DEFAULT_ROW_COUNT = 1000;
+    static final int DEFAULT_COLUMN_COUNT = 26;
+
+    private static final String ROWS = "ROWS";
+    private static final String COLUMNS = "COLUMNS";
+    private static final String DESCENDING = "DESCENDING";
+    private static final String UNFORMATTED_VALUE = "UNFORMATTED_VALUE";
+    private static final String FORMULA = "FORMULA";
+
+    private final int sheetId;
+    private final String title;
+    private final List<List<Object>> rows;
+    private final List<GridRange> merges;
+    private int rowCount;
+    private int columnCount;
+
+    /**
+     * Constructor
+     *
+     * @param sheetId the id of the sheet
+     * @param title   the title of the sheet
+     */
+    EmulatedSheet(int sheetId, String title) {
+        this(sheetId, title, new ArrayList<>(), new ArrayList<>(), DEFAULT_ROW_COUNT, DEFAULT_COLUMN_COUNT);
+    }
+
+    private EmulatedSheet(int sheetId, String title, List<List<Object>> rows, List<GridRange> merges,
+                          int rowCount, int columnCount) {
+        this.sheetId = sheetId;
+        this.title = title;
+        this.rows = rows;
+        this.merges = merges;
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+    }
+
+    /**
+     * Copies the sheet, so changes to the copy don't affect this sheet
+     *
+     * @return the copy
+     */
+    EmulatedSheet copy() {
+        List<List<Object>> copiedRows = new ArrayList<>(rows.size());
+        for (List<Object> row : rows) {
+            copiedRows.add(new ArrayList<>(row));
+        }
+        return new EmulatedSheet(sheetId, title, copiedRows, new ArrayList<>(merges), rowCount, columnCount);
+    }
+
+    /**
+     * Sheet id getter
+     *
+     * @return the id of the sheet
+     */
+    int getSheetId() {
+        return sheetId;
+    }
+
+    /**
+     * Title getter
+     *
+     * @return the title of the sheet
+     */
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * Describes the sheet as the API does
+     *
+     * @param index the position of the sheet in the spreadsheet
+     * @return the sheet with its properties and merges
+     */
+    Sheet toSheet(int index) {
+        return new Sheet()
+                .setProperties(new SheetProperties()
+                        .setSheetId(sheetId)
+                        .setTitle(title)
+                        .setIndex(index)
+                        .setSheetType("GRID")
+                        .setGridProperties(new GridProperties()
+                                .setRowCount(rowCount)
+                                .setColumnCount(columnCount)))
+                .setMerges(merges.isEmpty() ? null : new ArrayList<>(merges));
+    }
+
+    /**
+     * Resolves the unbounded parts of the range against the grid
+     *
+     * @param range the range, might be unbounded
+     * @return the bounded range within the sheet
+     */
+    NumericRange bound(NumericRange range) {
+        int startColumn = range.getStartColumn() == NumericRange.UNBOUNDED ? 1 : range.getStartColumn();
+        int startRow = range.getStartRow() == NumericRange.UNBOUNDED ? 1 : range.getStartRow();
+        int endColumn = range.getEndColumn() == NumericRange.UNBOUNDED ? columnCount : range.getEndColumn();
+        int endRow = range.getEndRow() == NumericRange.UNBOUNDED ? rowCount : range.getEndRow();
+        if (startColumn > endColumn || startRow > endRow) {
+            throw EmulatorException.badRequest("Invalid range: " + range);
+        }
+        return new NumericRange(title, startColumn, startRow, endColumn, endRow);
+    }
+
+    /**
+     * Reads the values of the range, omitting trailing empty rows and cells like the API does
+     *
+     * @param range       the bounded range
+     * @param renderOption how the values are rendered, FORMATTED_VALUE if null
+     * @return the values, or null if the range is empty
+     */
+    List<List<Object>> read(NumericRange range, String renderOption) {
+        boolean formatted = !UNFORMATTED_VALUE.equals(renderOption) && !FORMULA.equals(renderOption);
+        List<List<Object>> values = new ArrayList<>();
+        int lastRow = Math.min(range.getEndRow(), rows.size());
+        int nonEmptyRows = 0;
+        for (int row = range.getStartRow(); row <= lastRow; row++) {
+            List<Object> cells = rows.get(row - 1);
+            int lastColumn = Math.min(range.getEndColumn(), cells.size());
+            while (lastColumn >= range.getStartColumn() && cells.get(lastColumn - 1) == null) {
+                lastColumn--;
+            }
+            List<Object> rowValues = new ArrayList<>(Math.max(0, lastColumn - range.getStartColumn() + 1));
+            for (int column = range.getStartColumn(); column <= lastColumn; column++) {
+                rowValues.add(render(cells.get(column - 1), formatted));
+            }
+            values.add(rowValues);
+            if (!rowValues.isEmpty()) {
+                nonEmptyRows = values.size();
+            }
+        }
+        return nonEmptyRows == 0 ? null : new ArrayList<>(values.subList(0, nonEmptyRows));
+    }
+
+    /**
+     * Writes the values starting from the cell, growing the grid if needed.
+     * {@code null} values leave the cells unchanged, empty strings clear them
+     *
+     * @param startRow    the row of the first value
+     * @param startColumn the column of the first value
+     * @param values      the rows of values
+     * @param userEntered true to parse the strings as the UI does, false to store them as is
+     * @return the written range, or null if there were no values
+     */
+    NumericRange write(int startRow, int startColumn, List<List<Object>> values, boolean userEntered) {
+        int width = 0;
+        for (List<Object> row : values) {
+            width = Math.max(width, row == null ? 0 : row.size());
+        }
+        if (values.isEmpty() || width == 0) {
+            return null;
+        }
+        int endRow = startRow + values.size() - 1;
+        int endColumn = startColumn + width - 1;
+        rowCount = Math.max(rowCount, endRow);
+        columnCount = Math.max(columnCount, endColumn);
+        while (rows.size() < endRow) {
+            rows.add(new ArrayList<>());
+        }
+        for (int i = 0; i < values.size(); i++) {
+            List<Object> row = values.get(i);
+            if (row == null) {
+                continue;
+            }
+            List<Object> cells = rows.get(startRow - 1 + i);
+            for (int j = 0; j < row.size(); j++) {
+                Object value = row.get(j);
+                if (value == null) {
+                    continue;
+                }
+                int column = startColumn - 1 + j;
+                while (cells.size() <= column) {
+                    cells.add(null);
+                }
+                cells.set(column, store(value, userEntered));
+            }
+        }
+        return new NumericRange(title, startColumn, startRow, endColumn, endRow);
+    }
+
+    /**
+     * Finds the last row with a value in the columns
+     *
+     * @param startColumn the first column
+     * @param endColumn   the last column
+     * @return the row, or 0 if the columns are empty
+     */
+    int lastRowWithValues(int startColumn, int endColumn) {
+        for (int row = rows.size(); row > 0; row--) {
+            List<Object> cells = rows.get(row - 1);
+            for (int column = startColumn; column <= Math.min(endColumn, cells.size()); column++) {
+                if (cells.get(column - 1) != null) {
+                    return row;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds empty rows or columns at the end of the grid
+     *
+     * @param dimension ROWS or COLUMNS
+     * @param length    the number of rows or columns to add
+     */
+    void appendDimension(String dimension, Integer length) {
+        int count = checkIndex(length, 1, Integer.MAX_VALUE, "length");
+        if (isRows(dimension)) {
+            rowCount += count;
+        } else {
+            columnCount += count;
+        }
+    }
+
+    /**
+     * Inserts empty rows or columns before the start index
+     *
+     * @param dimension  ROWS or COLUMNS
+     * @param startIndex the 0-based start index, inclusive
+     * @param endIndex   the 0-based end index, exclusive
+     */
+    void insertDimension(String dimension, Integer startIndex, Integer endIndex) {
+        boolean byRows = isRows(dimension);
+        int size = byRows ? rowCount : columnCount;
+        int start = checkIndex(startIndex, 0, size, "startIndex");
+        int end = checkIndex(endIndex, start + 1, Integer.MAX_VALUE, "endIndex");
+        int count = end - start;
+        if (byRows) {
+            for (int i = 0; i < count && start < rows.size(); i++) {
+                rows.add(start, new ArrayList<>());
+            }
+            rowCount += count;
+        } else {
+            for (List<Object> cells : rows) {
+                if (start < cells.size()) {
+                    cells.addAll(start, Collections.nCopies(count, null));
+                }
+            }
+            columnCount += count;
+        }
+    }
+
+    /**
+     * Deletes rows or columns
+     *
+     * @param dimension  ROWS or COLUMNS
+     * @param startIndex the 0-based start index, inclusive
+     * @param endIndex   the 0-based end index, exclusive
+     */
+    void deleteDimension(String dimension, Integer startIndex, Integer endIndex) {
+        boolean byRows = isRows(dimension);
+        int size = byRows ? rowCount : columnCount;
+        int start = checkIndex(startIndex, 0, size - 1, "startIndex");
+        int end = checkIndex(endIndex == null ? size : endIndex, start + 1, size, "endIndex");
+        if (end - start == size) {
+            throw EmulatorException.badRequest("You can't delete all the " + dimension.toLowerCase() + " on the sheet");
+        }
+        if (byRows) {
+            if (start < rows.size()) {
+                rows.subList(start, Math.min(end, rows.size())).clear();
+            }
+            rowCount -= end - start;
+        } else {
+            for (List<Object> cells : rows) {
+                if (start < cells.size()) {
+                    cells.subList(start, Math.min(end, cells.size())).clear();
+                }
+            }
+            columnCount -= end - start;
+        }
+    }
+
+    /**
+     * Sorts the rows of the range by the columns of the sort specs. Empty cells go last in any order
+     *
+     * @param range     the range to sort
+     * @param sortSpecs the columns to sort by, the first one is the primary
+     */
+    void sort(GridRange range, List<SortSpec> sortSpecs) {
+        int startRow = checkIndex(range.getStartRowIndex(), 0, rowCount, "startRowIndex");
+        int endRow = checkIndex(range.getEndRowIndex() == null ? rowCount : range.getEndRowIndex(),
+                startRow, rowCount, "endRowIndex");
+        int startColumn = checkIndex(range.getStartColumnIndex(), 0, columnCount, "startColumnIndex");
+        int endColumn = checkIndex(range.getEndColumnIndex() == null ? columnCount : range.getEndColumnIndex(),
+                startColumn, columnCount, "endColumnIndex");
+        Comparator<Object[]> comparator = (a, b) -> 0;
+        for (SortSpec spec : sortSpecs == null ? Collections.<SortSpec>emptyList() : sortSpecs) {
+            int column = checkIndex(spec.getDimensionIndex(), startColumn, endColumn - 1, "dimensionIndex")
+                    - startColumn;
+            boolean descending = DESCENDING.equals(spec.getSortOrder());
+            comparator = comparator.thenComparing((a, b) -> compareCells(a[column], b[column], descending));
+        }
+
+        int width = endColumn - startColumn;
+        List<Object[]> sorted = new ArrayList<>(endRow - startRow);
+        for (int row = startRow; row < endRow; row++) {
+            Object[] cells = new Object[width];
+            if (row < rows.size()) {
+                List<Object> source = rows.get(row);
+                for (int column = startColumn; column < Math.min(endColumn, source.size()); column++) {
+                    cells[column - startColumn] = source.get(column);
+                }
+            }
+            sorted.add(cells);
+        }
+        sorted.sort(comparator);
+        for (int row = startRow; row < endRow; row++) {
+            Object[] cells = sorted.get(row - startRow);
+            for (int column = startColumn; column < endColumn; column++) {
+                setCell(row, column, cells[column - startColumn]);
+            }
+        }
+    }
+
+    /**
+     * Merges the cells of the range
+     *
+     * @param range     the range to merge
+     * @param mergeType MERGE_ALL, MERGE_COLUMNS or MERGE_ROWS
+     */
+    void merge(GridRange range, String mergeType) {
+        int startRow = checkIndex(range.getStartRowIndex(), 0, rowCount - 1, "startRowIndex");
+        int endRow = checkIndex(range.getEndRowIndex() == null ? rowCount : range.getEndRowIndex(),
+                startRow + 1, rowCount, "endRowIndex");
+        int startColumn = checkIndex(range.getStartColumnIndex(), 0, columnCount - 1, "startColumnIndex");
+        int endColumn = checkIndex(range.getEndColumnIndex() == null ? columnCount : range.getEndColumnIndex(),
+                startColumn + 1, columnCount, "endColumnIndex");
+        if ("MERGE_COLUMNS".equals(mergeType)) {
+            for (int column = startColumn; column < endColumn; column++) {
+                merges.add(gridRange(startRow, endRow, column, column + 1));
+            }
+        } else if ("MERGE_ROWS".equals(mergeType)) {
+            for (int row = startRow; row < endRow; row++) {
+                merges.add(gridRange(row, row + 1, startColumn, endColumn));
+            }
+        } else if (mergeType == null || "MERGE_ALL".equals(mergeType)) {
+            merges.add(gridRange(startRow, endRow, startColumn, endColumn));
+        } else {
+            throw EmulatorException.badRequest("Invalid mergeType: " + mergeType);
+        }
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Sets one cell, growing the row if needed
+     *
+     * @param row    the 0-based row
+     * @param column the 0-based column
+     * @param value  the value, null to clear the cell
+     */
+    private void setCell(int row, int column, Object value) {
+        if (row >= rows.size()) {
+            if (value == null) {
+                return;
+            }
+            while (rows.size() <= row) {
+                rows.add(new ArrayList<>());
+            }
+        }
+        List<Object> cells = rows.get(row);
+        if (column >= cells.size()) {
+            if (value == null) {
+                return;
+            }
+            while (cells.size() <= column) {
+                cells.add(null);
+            }
+        }
+        cells.set(column, value);
+    }
+
+    /**
+     * Creates the grid range of this sheet
+     *
+     * @param startRow    the 0-based start row, inclusive
+     * @param endRow      the 0-based end row, exclusive
+     * @param startColumn the 0-based start column, inclusive
+     * @param endColumn   the 0-based end column, exclusive
+     * @return the grid range
+     */
+    private GridRange gridRange(int startRow, int endRow, int startColumn, int endColumn) {
+        return new GridRange()
+                .setSheetId(sheetId)
+                .setStartRowIndex(startRow)
+                .setEndRowIndex(endRow)
+                .setStartColumnIndex(startColumn)
+                .setEndColumnIndex(endColumn);
+    }
+
+    /**
+     * Checks the dimension is ROWS or COLUMNS
+     *
+     * @param dimension the dimension
+     * @return true for ROWS
+     */
+    private static boolean isRows(String dimension) {
+        if (!ROWS.equals(dimension) && !COLUMNS.equals(dimension)) {
+            throw EmulatorException.badRequest("Invalid dimension: " + dimension);
+        }
+        return ROWS.equals(dimension);
+    }
+
+    /**
+     * Checks the index is within the bounds
+     *
+     * @param index the index, 0 if null
+     * @param min   the minimum index
+     * @param max   the maximum index
+     * @param name  the name of the field, for the error message
+     * @return the index
+     */
+    private static int checkIndex(Integer index, int min, int max, String name) {
+        int value = index == null ? 0 : index;
+        if (value < min || value > max) {
+            throw EmulatorException.badRequest("Invalid " + name + ": " + value + ", must be within " + min + ".." + max);
+        }
+        return value;
+    }
+
+    /**
+     * Compares two cells, empty cells go last regardless of the order
+     *
+     * @param a          the first cell
+     * @param b          the second cell
+     * @param descending true for the descending order
+     * @return the comparison result
+     */
+    private static int compareCells(Object a, Object b, boolean descending) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : 1) : -1;
+        }
+        int rankA = rank(a);
+        int rankB = rank(b);
+        int result;
+        if (rankA != rankB) {
+            result = Integer.compare(rankA, rankB);
+        } else if (a instanceof BigDecimal) {
+            result = ((BigDecimal) a).compareTo((BigDecimal) b);
+        } else if (a instanceof Boolean) {
+            result = Boolean.compare((Boolean) a, (Boolean) b);
+        } else {
+            result = String.valueOf(a).compareToIgnoreCase(String.valueOf(b));
+        }
+        return descending ? -result : result;
+    }
+
+    /**
+     * The order of the value types: numbers, text, booleans
+     *
+     * @param value the value of a cell
+     * @return the rank of the type
+     */
+    private static int rank(Object value) {
+        return value instanceof BigDecimal ? 0 : value instanceof Boolean ? 2 : 1;
+    }
+
+    /**
+     * Converts the written value to the stored one
+     *
+     * @param value       the written value
+     * @param userEntered true to parse the strings as the UI does
+     * @return the value to store, null for an empty string
+     */
+    private static Object store(Object value, boolean userEntered) {
+        if (value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof BigDecimal) {
+            return normalize((BigDecimal) value);
+        }
+        if (value instanceof Number) {
+            return normalize(new BigDecimal(value.toString()));
+        }
+        String text = String.valueOf(value);
+        if (text.isEmpty()) {
+            return null;
+        }
+        if (userEntered) {
+            if ("TRUE".equalsIgnoreCase(text) || "FALSE".equalsIgnoreCase(text)) {
+                return Boolean.valueOf(text);
+            }
+            try {
+                return normalize(new BigDecimal(text.trim()));
+            } catch (NumberFormatException e) {
+                return text;
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Drops the trailing zeros of the fraction, so 3.50 is stored as 3.5 and 100 stays 100
+     *
+     * @param number the number
+     * @return the normalized number
+     */
+    private static BigDecimal normalize(BigDecimal number) {
+        BigDecimal stripped = number.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    /**
+     * Renders the stored value
+     *
+     * @param value     the stored value, null for an empty cell
+     * @param formatted true to render everything as text
+     * @return the rendered value
+     */
+    private static Object render(Object value, boolean formatted) {
+        if (value == null) {
+            return "";
+        }
+        if (!formatted) {
+            return value;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "TRUE" : "FALSE";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,378 @@
+package com.ydanchen.handysheet.emulator;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.sheets.v4.model.AppendDimensionRequest;
+import com.google.api.services.sheets.v4.model.AppendValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchGetValuesResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.DimensionRange;
+import com.google.api.services.sheets.v4.model.GridRange;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.Response;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import com.google.api.services.sheets.v4.model.SpreadsheetProperties;
+import com.google.api.services.sheets.v4.model.UpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.ydanchen.handysheet.util.NumericRange;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One emulated spreadsheet, implementing the operations of the Sheets API on the model classes
+ * <p>All operations are serialized. spreadsheets.batchUpdate is atomic: the requests are applied
+ * to a copy of the sheets, which replaces them only if all requests succeed
+ *
+ * @author Yevhen Danchenko
+ */
+class EmulatedSpreadsheet {
+    private static final String USER_ENTERED = "USER_ENTERED";
+    private static final String RAW = "RAW";
+
+    private final String spreadsheetId;
+    private List<EmulatedSheet> sheets = new ArrayList<>();
+    private int nextSheetId;
+    private long modifiedTime = System.currentTimeMillis();
+
+    /**
+     * Constructor
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param titles        the titles of the sheets
+     */
+    EmulatedSpreadsheet(String spreadsheetId, String... titles) {
+        this.spreadsheetId = spreadsheetId;
+        for (String title : titles) {
+            sheets.add(new EmulatedSheet(nextSheetId++, title));
+        }
+    }
+
+    /**
+     * Describes the spreadsheet as spreadsheets.get does
+     *
+     * @return the spreadsheet with the properties and the merges of the sheets
+     */
+    synchronized Spreadsheet get() {
+        List<Sheet> described = new ArrayList<>(sheets.size());
+        for (int i = 0; i < sheets.size(); i++) {
+            described.add(sheets.get(i).toSheet(i));
+        }
+        return new Spreadsheet()
+                .setSpreadsheetId(spreadsheetId)
+                .setProperties(new SpreadsheetProperties().setTitle(spreadsheetId))
+                .setSheets(described);
+    }
+
+    /**
+     * Describes the spreadsheet file as files.get of the Drive API does
+     *
+     * @return the file with its id, name, type and modified time
+     */
+    synchronized File getFile() {
+        return new File()
+                .setId(spreadsheetId)
+                .setName(spreadsheetId)
+                .setMimeType("application/vnd.google-apps.spreadsheet")
+                .setModifiedTime(new DateTime(modifiedTime));
+    }
+
+    /**
+     * Reads the values of the range, as values.get does
+     *
+     * @param range        the range, e.g. "Sheet1!A1:C3"
+     * @param renderOption how the values are rendered, FORMATTED_VALUE if null
+     * @return the values of the range
+     */
+    synchronized ValueRange getValues(String range, String renderOption) {
+        NumericRange parsed = parse(range);
+        EmulatedSheet sheet = sheet(parsed.getSheet());
+        NumericRange bounded = sheet.bound(parsed);
+        return new ValueRange()
+                .setRange(Utils.numericRangeToLiteral(bounded))
+                .setMajorDimension("ROWS")
+                .setValues(sheet.read(bounded, renderOption));
+    }
+
+    /**
+     * Reads the values of several ranges, as values.batchGet does
+     *
+     * @param ranges       the ranges
+     * @param renderOption how the values are rendered, FORMATTED_VALUE if null
+     * @return the values of the ranges in the request order
+     */
+    synchronized BatchGetValuesResponse batchGetValues(List<String> ranges, String renderOption) {
+        List<ValueRange> valueRanges = new ArrayList<>(ranges.size());
+        for (String range : ranges) {
+            valueRanges.add(getValues(range, renderOption));
+        }
+        return new BatchGetValuesResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setValueRanges(valueRanges);
+    }
+
+    /**
+     * Writes the values to the range, as values.update does
+     *
+     * @param range            the range, e.g. "Sheet1!A1:C3". The values are written from its first cell
+     * @param body             the values
+     * @param valueInputOption RAW or USER_ENTERED
+     * @param includeValues    true to return the written values
+     * @param renderOption     how the returned values are rendered
+     * @return the update summary
+     */
+    synchronized UpdateValuesResponse updateValues(String range, ValueRange body, String valueInputOption,
+                                                   boolean includeValues, String renderOption) {
+        touch();
+        boolean userEntered = userEntered(valueInputOption);
+        NumericRange parsed = parse(range);
+        EmulatedSheet sheet = sheet(parsed.getSheet());
+        NumericRange start = sheet.bound(parsed);
+        List<List<Object>> values = body.getValues() == null ? Collections.emptyList() : body.getValues();
+        NumericRange written = sheet.write(start.getStartRow(), start.getStartColumn(), values, userEntered);
+        return updateResponse(sheet, written == null ? start : written, written, includeValues, renderOption);
+    }
+
+    /**
+     * Appends the values after the last row with values in the columns of the range, as values.append does
+     *
+     * @param range            the range, e.g. "Sheet1!A1:C1"
+     * @param body             the values
+     * @param valueInputOption RAW or USER_ENTERED
+     * @param includeValues    true to return the written values
+     * @param renderOption     how the returned values are rendered
+     * @return the append summary
+     */
+    synchronized AppendValuesResponse appendValues(String range, ValueRange body, String valueInputOption,
+                                                   boolean includeValues, String renderOption) {
+        touch();
+        boolean userEntered = userEntered(valueInputOption);
+        NumericRange parsed = parse(range);
+        EmulatedSheet sheet = sheet(parsed.getSheet());
+        NumericRange bounded = sheet.bound(parsed);
+        int lastRow = sheet.lastRowWithValues(bounded.getStartColumn(), bounded.getEndColumn());
+        int startRow = Math.max(bounded.getStartRow(), lastRow + 1);
+        List<List<Object>> values = body.getValues() == null ? Collections.emptyList() : body.getValues();
+        NumericRange written = sheet.write(startRow, bounded.getStartColumn(), values, userEntered);
+        NumericRange updated = written != null ? written
+                : new NumericRange(sheet.getTitle(), bounded.getStartColumn(), startRow, bounded.getStartColumn(), startRow);
+        return new AppendValuesResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setTableRange(lastRow < bounded.getStartRow() ? null : Utils.numericRangeToLiteral(
+                        new NumericRange(sheet.getTitle(), bounded.getStartColumn(), bounded.getStartRow(),
+                                bounded.getEndColumn(), lastRow)))
+                .setUpdates(updateResponse(sheet, updated, written, includeValues, renderOption));
+    }
+
+    /**
+     * Writes the values to several ranges, as values.batchUpdate does
+     *
+     * @param body         the request
+     * @param renderOption how the returned values are rendered
+     * @return the update summary
+     */
+    synchronized BatchUpdateValuesResponse batchUpdateValues(BatchUpdateValuesRequest body, String renderOption) {
+        touch();
+        boolean includeValues = Boolean.TRUE.equals(body.getIncludeValuesInResponse());
+        List<ValueRange> data = body.getData() == null ? Collections.emptyList() : body.getData();
+        List<UpdateValuesResponse> responses = new ArrayList<>(data.size());
+        Set<String> updatedSheets = new HashSet<>();
+        int rows = 0;
+        int columns = 0;
+        int cells = 0;
+        for (ValueRange valueRange : data) {
+            UpdateValuesResponse response = updateValues(valueRange.getRange(), valueRange,
+                    body.getValueInputOption(), includeValues, renderOption);
+            responses.add(response);
+            if (response.getUpdatedCells() != null) {
+                updatedSheets.add(parse(response.getUpdatedRange()).getSheet());
+                rows += response.getUpdatedRows();
+                columns += response.getUpdatedColumns();
+                cells += response.getUpdatedCells();
+            }
+        }
+        return new BatchUpdateValuesResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setTotalUpdatedRows(rows)
+                .setTotalUpdatedColumns(columns)
+                .setTotalUpdatedCells(cells)
+                .setTotalUpdatedSheets(updatedSheets.size())
+                .setResponses(responses);
+    }
+
+    /**
+     * Applies the requests atomically, as spreadsheets.batchUpdate does.
+     * Supports insertDimension, deleteDimension, sortRange and mergeCells
+     *
+     * @param body the request
+     * @return one empty reply per request
+     */
+    synchronized BatchUpdateSpreadsheetResponse batchUpdate(BatchUpdateSpreadsheetRequest body) {
+        touch();
+        List<EmulatedSheet> working = new ArrayList<>(sheets.size());
+        for (EmulatedSheet sheet : sheets) {
+            working.add(sheet.copy());
+        }
+        List<Request> requests = body.getRequests() == null ? Collections.emptyList() : body.getRequests();
+        List<Response> replies = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            apply(working, request);
+            replies.add(new Response());
+        }
+        sheets = working;
+        BatchUpdateSpreadsheetResponse response = new BatchUpdateSpreadsheetResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setReplies(replies);
+        if (Boolean.TRUE.equals(body.getIncludeSpreadsheetInResponse())) {
+            response.setUpdatedSpreadsheet(get());
+        }
+        return response;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Moves the modified time forward, at least by one millisecond, so every write changes it
+     */
+    private void touch() {
+        modifiedTime = Math.max(System.currentTimeMillis(), modifiedTime + 1);
+    }
+
+    /**
+     * Applies one request of the spreadsheets.batchUpdate
+     *
+     * @param working the sheets to change
+     * @param request the request
+     */
+    private static void apply(List<EmulatedSheet> working, Request request) {
+        if (request.getInsertDimension() != null) {
+            DimensionRange range = request.getInsertDimension().getRange();
+            sheetById(working, range.getSheetId())
+                    .insertDimension(range.getDimension(), range.getStartIndex(), range.getEndIndex());
+        } else if (request.getAppendDimension() != null) {
+            AppendDimensionRequest append = request.getAppendDimension();
+            sheetById(working, append.getSheetId()).appendDimension(append.getDimension(), append.getLength());
+        } else if (request.getDeleteDimension() != null) {
+            DimensionRange range = request.getDeleteDimension().getRange();
+            sheetById(working, range.getSheetId())
+                    .deleteDimension(range.getDimension(), range.getStartIndex(), range.getEndIndex());
+        } else if (request.getSortRange() != null) {
+            GridRange range = request.getSortRange().getRange();
+            sheetById(working, range.getSheetId()).sort(range, request.getSortRange().getSortSpecs());
+        } else if (request.getMergeCells() != null) {
+            GridRange range = request.getMergeCells().getRange();
+            sheetById(working, range.getSheetId()).merge(range, request.getMergeCells().getMergeType());
+        } else {
+            throw EmulatorException.badRequest("Unsupported request: " + request.keySet());
+        }
+    }
+
+    /**
+     * Finds the sheet by id
+     *
+     * @param working the sheets
+     * @param sheetId the id of the sheet, 0 if null
+     * @return the sheet
+     */
+    private static EmulatedSheet sheetById(List<EmulatedSheet> working, Integer sheetId) {
+        int id = sheetId == null ? 0 : sheetId;
+        for (EmulatedSheet sheet : working) {
+            if (sheet.getSheetId() == id) {
+                return sheet;
+            }
+        }
+        throw EmulatorException.badRequest("No grid with id: " + id);
+    }
+
+    /**
+     * Finds the sheet by title
+     *
+     * @param title the title of the sheet, the first sheet if null
+     * @return the sheet
+     */
+    private EmulatedSheet sheet(String title) {
+        if (sheets.isEmpty()) {
+            throw EmulatorException.badRequest("The spreadsheet has no sheets");
+        }
+        if (title == null) {
+            return sheets.get(0);
+        }
+        for (EmulatedSheet sheet : sheets) {
+            if (sheet.getTitle().equals(title)) {
+                return sheet;
+            }
+        }
+        throw EmulatorException.badRequest("Unable to parse range: " + title);
+    }
+
+    /**
+     * Parses the A1 range
+     *
+     * @param range the range
+     * @return the parsed range
+     */
+    private static NumericRange parse(String range) {
+        if (range == null) {
+            throw EmulatorException.badRequest("The range is missing");
+        }
+        try {
+            return Utils.literalRangeToNumerical(range);
+        } catch (IllegalArgumentException e) {
+            throw EmulatorException.badRequest("Unable to parse range: " + range);
+        }
+    }
+
+    /**
+     * Checks the value input option
+     *
+     * @param valueInputOption RAW or USER_ENTERED
+     * @return true for USER_ENTERED
+     */
+    private static boolean userEntered(String valueInputOption) {
+        if (!RAW.equals(valueInputOption) && !USER_ENTERED.equals(valueInputOption)) {
+            throw EmulatorException.badRequest("Invalid valueInputOption: " + valueInputOption);
+        }
+        return USER_ENTERED.equals(valueInputOption);
+    }
+
+    /**
+     * Builds the summary of a write
+     *
+     * @param sheet         the written sheet
+     * @param range         the range to report
+     * @param written       the written cells, null if nothing was written
+     * @param includeValues true to include the written values
+     * @param renderOption  how the values are rendered
+     * @return the update summary
+     */
+    private UpdateValuesResponse updateResponse(EmulatedSheet sheet, NumericRange range, NumericRange written,
+                                                boolean includeValues, String renderOption) {
+        UpdateValuesResponse response = new UpdateValuesResponse()
+                .setSpreadsheetId(spreadsheetId)
+                .setUpdatedRange(Utils.numericRangeToLiteral(range));
+        if (written != null) {
+            int rows = written.getEndRow() - written.getStartRow() + 1;
+            int columns = written.getEndColumn() - written.getStartColumn() + 1;
+            response.setUpdatedRows(rows)
+                    .setUpdatedColumns(columns)
+                    .setUpdatedCells(rows * columns);
+        }
+        if (includeValues) {
+            response.setUpdatedData(new ValueRange()
+                    .setRange(response.getUpdatedRange())
+                    .setMajorDimension("ROWS")
+                    .setValues(sheet.read(range, renderOption)));
+        }
+        return response;
+    }
+}
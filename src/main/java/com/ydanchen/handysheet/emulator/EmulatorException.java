@@ -0,0 +1,67 @@
+package com.ydanchen.handysheet.emulator;
+
+/**
+ * An error returned by the emulator as a Google API error response
+ *
+ * @author Yevhen Danchenko
+ */
+class EmulatorException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    static final int BAD_REQUEST = 400;
+    static final int NOT_FOUND = 404;
+    static final int TOO_MANY_REQUESTS = 429;
+    static final int SERVICE_UNAVAILABLE = 503;
+
+    private final int statusCode;
+
+    /**
+     * Constructor
+     *
+     * @param statusCode the HTTP status code
+     * @param message    the error message
+     */
+    EmulatorException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Creates the error of an invalid request
+     *
+     * @param message the error message
+     * @return new instance of the {@link EmulatorException}
+     */
+    static EmulatorException badRequest(String message) {
+        return new EmulatorException(BAD_REQUEST, message);
+    }
+
+    /**
+     * HTTP status code getter
+     *
+     * @return the HTTP status code
+     */
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * The canonical status name of the Google APIs
+     *
+     * @return the status, e.g. "RESOURCE_EXHAUSTED"
+     */
+    String getStatus() {
+        switch (statusCode) {
+            case BAD_REQUEST:
+                return "INVALID_ARGUMENT";
+            case NOT_FOUND:
+                return "NOT_FOUND";
+            case TOO_MANY_REQUESTS:
+                return "RESOURCE_EXHAUSTED";
+            case SERVICE_UNAVAILABLE:
+                return "UNAVAILABLE";
+            default:
+                return "INTERNAL";
+        }
+    }
+}
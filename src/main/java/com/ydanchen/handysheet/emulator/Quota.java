@@ -0,0 +1,47 @@
+package com.ydanchen.handysheet.emulator;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sliding window request quota, like the per-minute quotas of the Sheets API
+ *
+ * @author Yevhen Danchenko
+ */
+class Quota {
+    private final int limit;
+    private final long windowNanos;
+    private final ArrayDeque<Long> accepted = new ArrayDeque<>();
+
+    /**
+     * Constructor
+     *
+     * @param limit  the number of requests accepted within the window
+     * @param window the length of the window
+     * @param unit   the time unit of the window
+     */
+    Quota(int limit, long window, TimeUnit unit) {
+        if (limit < 1 || window <= 0) {
+            throw new IllegalArgumentException("Invalid quota: " + limit + " per " + window + " " + unit);
+        }
+        this.limit = limit;
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    /**
+     * Counts the request if the quota allows it
+     *
+     * @return true if the request is accepted, false if the quota is exhausted
+     */
+    synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        while (!accepted.isEmpty() && now - accepted.peekFirst() >= windowNanos) {
+            accepted.pollFirst();
+        }
+        if (accepted.size() >= limit) {
+            return false;
+        }
+        accepted.addLast(now);
+        return true;
+    }
+}
@@ -0,0 +1,559 @@
+package com.ydanchen.handysheet.emulator;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetRequest;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesRequest;
+import com.google.api.services.sheets.v4.model.ValueRange;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * In-memory emulator of the Sheets API v4, served through an {@link HttpTransport}
+ * <p>Bind a client to it with {@link com.ydanchen.handysheet.services.SheetsServiceProvider#createEmulatedClients}
+ * to run the library without network and credentials, e.g. for load tests. Supported calls:
+ * <ul>
+ * <li>spreadsheets.get and spreadsheets.batchUpdate with insertDimension, deleteDimension, sortRange
+ * and mergeCells requests</li>
+ * <li>values.get, values.update, values.append, values.batchGet and values.batchUpdate</li>
+ * <li>files.get of the Drive API v3, with the modified time moved forward by every write</li>
+ * </ul>
+ * Every call can be delayed by a random latency, rejected with 429 when a read or write quota is exhausted,
+ * or failed with an injected error. Formulas are stored as text and not evaluated, merges are not shifted
+ * by inserted or deleted dimensions
+ *
+ * @author Yevhen Danchenko
+ */
+public class SheetsEmulator extends HttpTransport {
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+    private static final String JSON = "application/json; charset=UTF-8";
+    private static final String GET = "GET";
+    private static final String PUT = "PUT";
+    private static final String POST = "POST";
+    private static final String SPREADSHEETS = "spreadsheets";
+    private static final String VALUES = "values";
+    private static final String APPEND = ":append";
+    private static final String DRIVE = "drive";
+    private static final String FILES = "files";
+
+    private final Map<String, EmulatedSpreadsheet> spreadsheets = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Integer> forcedErrors = new ConcurrentLinkedQueue<>();
+    private final long minLatencyNanos;
+    private final long maxLatencyNanos;
+    private final Map<Integer, Double> errorRates;
+    private final Quota readQuota;
+    private final Quota writeQuota;
+    private final Random random;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param builder the configured builder
+     */
+    private SheetsEmulator(Builder builder) {
+        this.minLatencyNanos = builder.minLatencyNanos;
+        this.maxLatencyNanos = builder.maxLatencyNanos;
+        this.errorRates = new LinkedHashMap<>(builder.errorRates);
+        this.readQuota = builder.readQuota;
+        this.writeQuota = builder.writeQuota;
+        this.random = builder.seed != null ? new Random(builder.seed) : new Random();
+    }
+
+    /**
+     * Create an emulator without latency, quotas and errors
+     *
+     * @return new instance of the {@link SheetsEmulator}
+     */
+    public static SheetsEmulator create() {
+        return builder().build();
+    }
+
+    /**
+     * Create a builder of the emulator
+     *
+     * @return new instance of the {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create an empty spreadsheet. The sheets get ids from 0 in the given order
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param sheets        the titles of the sheets
+     * @return current instance of the {@link SheetsEmulator}
+     */
+    public SheetsEmulator createSpreadsheet(String spreadsheetId, String... sheets) {
+        spreadsheets.put(spreadsheetId, new EmulatedSpreadsheet(spreadsheetId, sheets));
+        return this;
+    }
+
+    /**
+     * Read the values directly, bypassing the latency, the quotas and the errors
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param range         the range, e.g. "Sheet1!A1:C3"
+     * @return the unformatted values, empty if there are none
+     */
+    public List<List<Object>> getValues(String spreadsheetId, String range) {
+        List<List<Object>> values = spreadsheet(spreadsheetId).getValues(range, "UNFORMATTED_VALUE").getValues();
+        return values != null ? values : Collections.emptyList();
+    }
+
+    /**
+     * Fail the next calls with the status code, before the latency and the quotas are applied
+     *
+     * @param statusCode the HTTP status code, e.g. 429 or 503
+     * @param count      the number of calls to fail
+     * @return current instance of the {@link SheetsEmulator}
+     */
+    public SheetsEmulator failNext(int statusCode, int count) {
+        for (int i = 0; i < count; i++) {
+            forcedErrors.add(statusCode);
+        }
+        return this;
+    }
+
+    /**
+     * Number of API calls received
+     *
+     * @return the total number of calls, including the failed ones
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Number of API calls rejected because a quota was exhausted
+     *
+     * @return the number of 429 responses caused by the quotas
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * Number of API calls failed with an injected error
+     *
+     * @return the number of injected errors, random and forced
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    @Override
+    public boolean supportsMethod(String method) {
+        return GET.equals(method) || PUT.equals(method) || POST.equals(method);
+    }
+
+    @Override
+    protected LowLevelHttpRequest buildRequest(String method, String url) {
+        return new EmulatedRequest(method, url);
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Handles one API call
+     *
+     * @param method  the HTTP method
+     * @param url     the URL of the call
+     * @param content the request body, empty if none
+     * @return the JSON response
+     * @throws IOException if the body can't be parsed
+     */
+    private GenericJson handle(String method, GenericUrl url, byte[] content) throws IOException {
+        List<String> parts = url.getPathParts();
+        int files = parts == null || !parts.contains(DRIVE) ? -1 : parts.indexOf(FILES);
+        if (files >= 0 && files + 2 == parts.size() && GET.equals(method)) {
+            return spreadsheet(parts.get(files + 1)).getFile();
+        }
+        int index = parts == null ? -1 : parts.indexOf(SPREADSHEETS);
+        if (index < 0 || index + 1 >= parts.size()) {
+            throw new EmulatorException(EmulatorException.NOT_FOUND, "Unknown method: " + method + " " + url);
+        }
+        List<String> path = parts.subList(index + 1, parts.size());
+        String render = string(url.getFirst("valueRenderOption"));
+        String input = string(url.getFirst("valueInputOption"));
+        boolean includeValues = Boolean.parseBoolean(string(url.getFirst("includeValuesInResponse")));
+
+        String head = path.get(0);
+        if (path.size() == 1 && GET.equals(method)) {
+            return spreadsheet(head).get();
+        }
+        if (path.size() == 1 && POST.equals(method) && head.endsWith(":batchUpdate")) {
+            return spreadsheet(head.substring(0, head.length() - ":batchUpdate".length()))
+                    .batchUpdate(parse(content, BatchUpdateSpreadsheetRequest.class));
+        }
+        if (path.size() == 2 && GET.equals(method) && "values:batchGet".equals(path.get(1))) {
+            List<String> ranges = new ArrayList<>();
+            for (Object range : url.getAll("ranges")) {
+                ranges.add(String.valueOf(range));
+            }
+            return spreadsheet(head).batchGetValues(ranges, render);
+        }
+        if (path.size() == 2 && POST.equals(method) && "values:batchUpdate".equals(path.get(1))) {
+            return spreadsheet(head).batchUpdateValues(parse(content, BatchUpdateValuesRequest.class),
+                    string(url.getFirst("responseValueRenderOption")));
+        }
+        if (path.size() == 3 && VALUES.equals(path.get(1))) {
+            String range = path.get(2);
+            String responseRender = string(url.getFirst("responseValueRenderOption"));
+            if (GET.equals(method)) {
+                return spreadsheet(head).getValues(range, render);
+            }
+            if (PUT.equals(method)) {
+                return spreadsheet(head).updateValues(range, parse(content, ValueRange.class), input,
+                        includeValues, responseRender);
+            }
+            if (POST.equals(method) && range.endsWith(APPEND)) {
+                return spreadsheet(head).appendValues(range.substring(0, range.length() - APPEND.length()),
+                        parse(content, ValueRange.class), input, includeValues, responseRender);
+            }
+        }
+        throw new EmulatorException(EmulatorException.NOT_FOUND, "Unknown method: " + method + " " + url);
+    }
+
+    /**
+     * Applies the latency, the injected errors and the quotas to the call
+     *
+     * @param method the HTTP method, GET calls are reads
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    private void simulate(String method) throws InterruptedIOException {
+        Integer forced = forcedErrors.poll();
+        if (forced != null) {
+            injectedErrorCount.incrementAndGet();
+            throw new EmulatorException(forced, "Injected error");
+        }
+        if (maxLatencyNanos > 0) {
+            long latency = minLatencyNanos + (long) (random.nextDouble() * (maxLatencyNanos - minLatencyNanos));
+            try {
+                TimeUnit.NANOSECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while emulating the latency");
+            }
+        }
+        Quota quota = GET.equals(method) ? readQuota : writeQuota;
+        if (quota != null && !quota.tryAcquire()) {
+            throttledCount.incrementAndGet();
+            throw new EmulatorException(EmulatorException.TOO_MANY_REQUESTS,
+                    "Quota exceeded for quota metric '" + (GET.equals(method) ? "Read" : "Write") + " requests'");
+        }
+        for (Map.Entry<Integer, Double> errorRate : errorRates.entrySet()) {
+            if (random.nextDouble() < errorRate.getValue()) {
+                injectedErrorCount.incrementAndGet();
+                throw new EmulatorException(errorRate.getKey(), "Injected error");
+            }
+        }
+    }
+
+    /**
+     * Finds the spreadsheet
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @return the spreadsheet
+     */
+    private EmulatedSpreadsheet spreadsheet(String spreadsheetId) {
+        EmulatedSpreadsheet spreadsheet = spreadsheets.get(spreadsheetId);
+        if (spreadsheet == null) {
+            throw new EmulatorException(EmulatorException.NOT_FOUND, "Requested entity was not found.");
+        }
+        return spreadsheet;
+    }
+
+    /**
+     * Parses the request body
+     *
+     * @param content the JSON
+     * @param type    the model class
+     * @param <T>     the type of the model
+     * @return the parsed request
+     * @throws IOException if the JSON can't be parsed
+     */
+    private static <T> T parse(byte[] content, Class<T> type) throws IOException {
+        if (content.length == 0) {
+            throw EmulatorException.badRequest("The request body is missing");
+        }
+        return JSON_FACTORY.fromInputStream(new ByteArrayInputStream(content), StandardCharsets.UTF_8, type);
+    }
+
+    /**
+     * Converts a query parameter to a string
+     *
+     * @param value the parameter, might be null
+     * @return the string, or null
+     */
+    private static String string(Object value) {
+        return value == null ? null : String.valueOf(value);
+    }
+
+    /**
+     * Builds the JSON response
+     *
+     * @param statusCode the HTTP status code
+     * @param body       the response body
+     * @return the response
+     * @throws IOException if the body can't be serialized
+     */
+    private static LowLevelHttpResponse response(int statusCode, GenericJson body) throws IOException {
+        return new EmulatedResponse(statusCode, JSON_FACTORY.toByteArray(body));
+    }
+
+    /**
+     * Builds the error response in the format of the Google APIs
+     *
+     * @param error the error
+     * @return the response
+     * @throws IOException if the body can't be serialized
+     */
+    private static LowLevelHttpResponse errorResponse(EmulatorException error) throws IOException {
+        GenericJson details = new GenericJson();
+        details.set("code", error.getStatusCode());
+        details.set("message", error.getMessage());
+        details.set("status", error.getStatus());
+        GenericJson body = new GenericJson();
+        body.set("error", details);
+        return response(error.getStatusCode(), body);
+    }
+
+    /**
+     * The HTTP request handled by the emulator
+     */
+    private final class EmulatedRequest extends LowLevelHttpRequest {
+        private final String method;
+        private final String url;
+
+        private EmulatedRequest(String method, String url) {
+            this.method = method;
+            this.url = url;
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+        }
+
+        @Override
+        public LowLevelHttpResponse execute() throws IOException {
+            requestCount.incrementAndGet();
+            try {
+                simulate(method);
+                return response(200, handle(method, new GenericUrl(url), readContent()));
+            } catch (EmulatorException e) {
+                return errorResponse(e);
+            }
+        }
+
+        /**
+         * Reads the request body, decompressing it if needed
+         *
+         * @return the body, empty if none
+         * @throws IOException might be thrown
+         */
+        private byte[] readContent() throws IOException {
+            if (getStreamingContent() == null) {
+                return new byte[0];
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            getStreamingContent().writeTo(buffer);
+            if (!"gzip".equals(getContentEncoding())) {
+                return buffer.toByteArray();
+            }
+            ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = in.read(chunk)) > 0) {
+                    decompressed.write(chunk, 0, read);
+                }
+            }
+            return decompressed.toByteArray();
+        }
+    }
+
+    /**
+     * The HTTP response of the emulator, a JSON body without headers
+     */
+    private static final class EmulatedResponse extends LowLevelHttpResponse {
+        private final int statusCode;
+        private final byte[] content;
+
+        private EmulatedResponse(int statusCode, byte[] content) {
+            this.statusCode = statusCode;
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public long getContentLength() {
+            return content.length;
+        }
+
+        @Override
+        public String getContentType() {
+            return JSON;
+        }
+
+        @Override
+        public String getStatusLine() {
+            return "HTTP/1.1 " + statusCode;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        public String getReasonPhrase() {
+            return null;
+        }
+
+        @Override
+        public int getHeaderCount() {
+            return 0;
+        }
+
+        @Override
+        public String getHeaderName(int index) {
+            return null;
+        }
+
+        @Override
+        public String getHeaderValue(int index) {
+            return null;
+        }
+    }
+
+    /**
+     * Configures the latency, the errors and the quotas of the emulator
+     */
+    public static final class Builder {
+        private final Map<Integer, Double> errorRates = new LinkedHashMap<>();
+        private long minLatencyNanos;
+        private long maxLatencyNanos;
+        private Quota readQuota;
+        private Quota writeQuota;
+        private Long seed;
+
+        private Builder() {
+        }
+
+        /**
+         * Delay every call by a random latency within the bounds
+         *
+         * @param min  the minimum latency
+         * @param max  the maximum latency
+         * @param unit the time unit of the latency
+         * @return current instance of the {@link Builder}
+         */
+        public Builder latency(long min, long max, TimeUnit unit) {
+            if (min < 0 || max < min) {
+                throw new IllegalArgumentException("Invalid latency: " + min + ".." + max);
+            }
+            this.minLatencyNanos = unit.toNanos(min);
+            this.maxLatencyNanos = unit.toNanos(max);
+            return this;
+        }
+
+        /**
+         * Fail a share of the calls with the status code, e.g. 429 or 503
+         *
+         * @param statusCode  the HTTP status code
+         * @param probability the probability of the error, from 0 to 1
+         * @return current instance of the {@link Builder}
+         */
+        public Builder errorRate(int statusCode, double probability) {
+            if (probability < 0 || probability > 1) {
+                throw new IllegalArgumentException("Invalid probability: " + probability);
+            }
+            errorRates.put(statusCode, probability);
+            return this;
+        }
+
+        /**
+         * Limit the read calls, like the "Read requests per minute per user" quota.
+         * Calls beyond the limit fail with 429
+         *
+         * @param requests the number of calls accepted within the window
+         * @param window   the length of the window
+         * @param unit     the time unit of the window
+         * @return current instance of the {@link Builder}
+         */
+        public Builder readQuota(int requests, long window, TimeUnit unit) {
+            this.readQuota = new Quota(requests, window, unit);
+            return this;
+        }
+
+        /**
+         * Limit the write calls, like the "Write requests per minute per user" quota.
+         * Calls beyond the limit fail with 429
+         *
+         * @param requests the number of calls accepted within the window
+         * @param window   the length of the window
+         * @param unit     the time unit of the window
+         * @return current instance of the {@link Builder}
+         */
+        public Builder writeQuota(int requests, long window, TimeUnit unit) {
+            this.writeQuota = new Quota(requests, window, unit);
+            return this;
+        }
+
+        /**
+         * Seed the random latency and errors, to make the runs reproducible
+         *
+         * @param seed the seed
+         * @return current instance of the {@link Builder}
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Build the emulator
+         *
+         * @return new instance of the {@link SheetsEmulator}
+         */
+        public SheetsEmulator build() {
+            return new SheetsEmulator(this);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ydanchen.handysheet.enums;
+
+/**
+ * How dates, times, and durations should be rendered when the values are not formatted
+ *
+ * @author Yevhen Danchenko
+ * @link https://developers.google.com/sheets/api/reference/rest/v4/DateTimeRenderOption
+ */
+public enum DateTimeRenderOption {
+    /**
+     * Dates are returned as doubles in "serial number" format, as popularized by Lotus 1-2-3:
+     * the whole number part is the number of days since December 30th 1899,
+     * the fractional part is the time as a fraction of the day.
+     */
+    SERIAL_NUMBER("SERIAL_NUMBER"),
+
+    /**
+     * Dates are returned as strings in their given number format, which is dependent on the spreadsheet locale.
+     */
+    FORMATTED_STRING("FORMATTED_STRING");
+
+    private final String value;
+
+    /**
+     * Constructor
+     *
+     * @param value the value of the enum
+     */
+    DateTimeRenderOption(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets string representation of the enum
+     *
+     * @return string representation
+     */
+    public String getValue() {
+        return this.value;
+    }
+}
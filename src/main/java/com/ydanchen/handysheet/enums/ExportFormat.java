@@ -0,0 +1,24 @@
+package com.ydanchen.handysheet.enums;
+
+/**
+ * The format of the files written by {@code SheetOperation.exportTo()}, all encoded as UTF-8
+ *
+ * @author Yevhen Danchenko
+ */
+public enum ExportFormat {
+    /**
+     * Comma-separated values, one row per line. Fields with commas, quotes or line breaks are quoted
+     * and their quotes are doubled
+     */
+    CSV,
+    /**
+     * Tab-separated values, one row per line. Fields with tabs, quotes or line breaks are quoted
+     * the same way as in {@link #CSV}
+     */
+    TSV,
+    /**
+     * One JSON array of the values of a row per line. Numbers and booleans are kept as JSON numbers and booleans
+     * when the values are not formatted
+     */
+    JSON_LINES
+}
@@ -0,0 +1,20 @@
+package com.ydanchen.handysheet.enums;
+
+/**
+ * How much of the responses of the write calls is requested from the API
+ *
+ * @author Yevhen Danchenko
+ */
+public enum ResponsePolicy {
+    /**
+     * Only the fields the library and the callers commonly use: the updated ranges and counts
+     * and the replies of the structural operations. The written values and the spreadsheet
+     * are not included in the responses. The default
+     */
+    MINIMAL,
+    /**
+     * The whole responses without field masks, including the written values
+     * and the updated spreadsheet properties
+     */
+    FULL
+}
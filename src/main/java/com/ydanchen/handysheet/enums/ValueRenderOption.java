@@ -0,0 +1,46 @@
+package com.ydanchen.handysheet.enums;
+
+/**
+ * How the read values should be rendered
+ *
+ * @author Yevhen Danchenko
+ * @link https://developers.google.com/sheets/api/reference/rest/v4/ValueRenderOption
+ */
+public enum ValueRenderOption {
+    /**
+     * Values will be calculated and formatted according to the cell's formatting.
+     * Formatting is based on the spreadsheet's locale, not the requesting user's locale.
+     */
+    FORMATTED_VALUE("FORMATTED_VALUE"),
+
+    /**
+     * Values will be calculated, but not formatted in the reply.
+     * Numbers are returned as numbers, not as formatted strings.
+     */
+    UNFORMATTED_VALUE("UNFORMATTED_VALUE"),
+
+    /**
+     * Values will not be calculated. The reply will include the formulas.
+     */
+    FORMULA("FORMULA");
+
+    private final String value;
+
+    /**
+     * Constructor
+     *
+     * @param value the value of the enum
+     */
+    ValueRenderOption(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets string representation of the enum
+     *
+     * @return string representation
+     */
+    public String getValue() {
+        return this.value;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ydanchen.handysheet.frame;
+
+/**
+ * A column of checkbox values backed by a bitmap
+ *
+ * @author Yevhen Danchenko
+ */
+public class BooleanColumn extends Column {
+    private final long[] values;
+
+    /**
+     * Constructor
+     *
+     * @param name   the name of the column
+     * @param size   the number of rows
+     * @param nulls  the bitmap of empty cells
+     * @param values the bitmap of the values, bit set for true
+     */
+    BooleanColumn(String name, int size, long[] nulls, long[] values) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.BOOLEAN;
+    }
+
+    /**
+     * Gets the value of the cell
+     *
+     * @param row the 0-based row
+     * @return the value, false if the cell is empty
+     */
+    public boolean getBoolean(int row) {
+        checkRow(row);
+        return isBitSet(values, row);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : getBoolean(row);
+    }
+
+    /**
+     * Bitmap of the values, not copied
+     *
+     * @return the bitmap, bit set for true
+     */
+    long[] values() {
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ydanchen.handysheet.frame;
+
+/**
+ * One column of a {@link SheetFrame}
+ * <p>The values are stored in primitive arrays, empty cells are marked in a bitmap of one bit per row
+ *
+ * @author Yevhen Danchenko
+ */
+public abstract class Column {
+    private final String name;
+    private final int size;
+    private final long[] nulls;
+
+    /**
+     * Constructor
+     *
+     * @param name  the name of the column
+     * @param size  the number of rows
+     * @param nulls the bitmap of empty cells, bit set for an empty cell
+     */
+    Column(String name, int size, long[] nulls) {
+        this.name = name;
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Name getter
+     *
+     * @return the header of the column, or its letter if the frame has no header
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Number of rows
+     *
+     * @return the number of rows, including the empty cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the cell is empty
+     *
+     * @param row the 0-based row
+     * @return true if the cell is empty
+     */
+    public boolean isNull(int row) {
+        checkRow(row);
+        return isBitSet(nulls, row);
+    }
+
+    /**
+     * Number of empty cells
+     *
+     * @return the number of empty cells
+     */
+    public int getNullCount() {
+        int count = 0;
+        for (long word : nulls) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Type getter
+     *
+     * @return the type of the values
+     */
+    public abstract ColumnType getType();
+
+    /**
+     * Gets the value of the cell boxed, prefer the typed accessors of the subclasses
+     *
+     * @param row the 0-based row
+     * @return the value, or null if the cell is empty
+     */
+    public abstract Object getObject(int row);
+
+    /**
+     * Bitmap of the empty cells, not copied
+     *
+     * @return the bitmap, bit set for an empty cell
+     */
+    long[] nulls() {
+        return nulls;
+    }
+
+    /**
+     * Checks the row is within the column
+     *
+     * @param row the 0-based row
+     */
+    void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " is out of 0.." + (size - 1));
+        }
+    }
+
+    /**
+     * Checks the bit of the row in a bitmap
+     *
+     * @param bitmap the bitmap
+     * @param row    the 0-based row
+     * @return true if the bit is set
+     */
+    static boolean isBitSet(long[] bitmap, int row) {
+        return (bitmap[row >>> 6] & (1L << row)) != 0;
+    }
+}
@@ -0,0 +1,332 @@
+package com.ydanchen.handysheet.frame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the values of one column, choosing the narrowest storage for them
+ * <p>A column starts untyped and is promoted as the values arrive: whole numbers are stored as {@code long},
+ * a number with a fraction turns the column into {@code double}, and any mix of types turns it into text
+ *
+ * @author Yevhen Danchenko
+ */
+final class ColumnBuilder {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private ColumnType type;
+    private int size;
+    private int capacity = INITIAL_CAPACITY;
+    private long[] nulls = new long[bitmapLength(INITIAL_CAPACITY)];
+    private long[] longs;
+    private double[] doubles;
+    private long[] booleans;
+    private int[] codes;
+    private Map<String, Integer> codesByValue;
+    private List<String> dictionary;
+
+    /**
+     * Number of values added
+     *
+     * @return the number of rows
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds an empty cell
+     */
+    void addNull() {
+        ensureCapacity();
+        nulls[size >>> 6] |= 1L << size;
+        if (type == ColumnType.DOUBLE) {
+            doubles[size] = Double.NaN;
+        } else if (type == ColumnType.STRING) {
+            codes[size] = StringColumn.NULL_CODE;
+        }
+        size++;
+    }
+
+    /**
+     * Adds the cell value of any type, as parsed by the API client
+     *
+     * @param value the value, null or an empty string for an empty cell
+     */
+    void add(Object value) {
+        if (value == null || "".equals(value)) {
+            addNull();
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            addLong(((Number) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            addDecimal((BigDecimal) value);
+        } else if (value instanceof Number) {
+            addDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            addBoolean((Boolean) value);
+        } else {
+            addString(String.valueOf(value));
+        }
+    }
+
+    /**
+     * Adds a whole number
+     *
+     * @param value the number
+     */
+    void addLong(long value) {
+        if (type == null) {
+            promote(ColumnType.LONG);
+        }
+        ensureCapacity();
+        switch (type) {
+            case LONG:
+                longs[size++] = value;
+                break;
+            case DOUBLE:
+                doubles[size++] = value;
+                break;
+            default:
+                addString(Long.toString(value));
+        }
+    }
+
+    /**
+     * Adds a number, stored as {@code long} if it is whole and the column has no fractions yet
+     *
+     * @param value the number
+     */
+    void addDouble(double value) {
+        if ((type == null || type == ColumnType.LONG) && isWhole(value)) {
+            addLong((long) value);
+            return;
+        }
+        if (type == null || type == ColumnType.LONG) {
+            promote(ColumnType.DOUBLE);
+        }
+        ensureCapacity();
+        if (type == ColumnType.DOUBLE) {
+            doubles[size++] = value;
+        } else {
+            addString(doubleToText(value));
+        }
+    }
+
+    /**
+     * Adds a decimal number as parsed from JSON
+     *
+     * @param value the number
+     */
+    void addDecimal(BigDecimal value) {
+        if (type == ColumnType.STRING) {
+            BigDecimal stripped = value.stripTrailingZeros();
+            addString(stripped.scale() < 0 ? stripped.setScale(0).toPlainString() : stripped.toPlainString());
+            return;
+        }
+        if ((type == null || type == ColumnType.LONG) && value.signum() != 0 && value.scale() > 0) {
+            value = value.stripTrailingZeros();
+        }
+        if ((type == null || type == ColumnType.LONG) && value.scale() <= 0 && value.precision() - value.scale() <= MAX_LONG_DIGITS) {
+            addLong(value.longValue());
+        } else {
+            addDouble(value.doubleValue());
+        }
+    }
+
+    /**
+     * Adds a checkbox value
+     *
+     * @param value the value
+     */
+    void addBoolean(boolean value) {
+        if (type == null) {
+            promote(ColumnType.BOOLEAN);
+        }
+        if (type != ColumnType.BOOLEAN) {
+            addString(value ? "TRUE" : "FALSE");
+            return;
+        }
+        ensureCapacity();
+        if (value) {
+            booleans[size >>> 6] |= 1L << size;
+        }
+        size++;
+    }
+
+    /**
+     * Adds a text value, turning a typed column into a text one
+     *
+     * @param value the text
+     */
+    void addString(String value) {
+        if (type != ColumnType.STRING) {
+            promote(ColumnType.STRING);
+        }
+        ensureCapacity();
+        Integer code = codesByValue.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            codesByValue.put(value, code);
+        }
+        codes[size++] = code;
+    }
+
+    /**
+     * Builds the column, trimming the arrays to the number of rows
+     *
+     * @param name the name of the column
+     * @return the column
+     */
+    Column build(String name) {
+        long[] trimmedNulls = Arrays.copyOf(nulls, bitmapLength(size));
+        if (type == null) {
+            promote(ColumnType.STRING);
+        }
+        switch (type) {
+            case LONG:
+                return new LongColumn(name, size, trimmedNulls, Arrays.copyOf(longs, size));
+            case DOUBLE:
+                return new DoubleColumn(name, size, trimmedNulls, Arrays.copyOf(doubles, size));
+            case BOOLEAN:
+                return new BooleanColumn(name, size, trimmedNulls, Arrays.copyOf(booleans, bitmapLength(size)));
+            default:
+                return new StringColumn(name, size, trimmedNulls, Arrays.copyOf(codes, size),
+                        dictionary.toArray(new String[0]));
+        }
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Changes the storage of the column, converting the values added so far
+     *
+     * @param target the new type
+     */
+    private void promote(ColumnType target) {
+        ColumnType previous = type;
+        type = target;
+        switch (target) {
+            case LONG:
+                longs = new long[capacity];
+                break;
+            case DOUBLE:
+                doubles = new double[capacity];
+                for (int row = 0; row < size; row++) {
+                    doubles[row] = isNull(row) ? Double.NaN : longs[row];
+                }
+                longs = null;
+                break;
+            case BOOLEAN:
+                booleans = new long[bitmapLength(capacity)];
+                break;
+            default:
+                codes = new int[capacity];
+                codesByValue = new HashMap<>();
+                dictionary = new ArrayList<>();
+                int count = size;
+                size = 0;
+                for (int row = 0; row < count; row++) {
+                    if (isNull(row)) {
+                        codes[size++] = StringColumn.NULL_CODE;
+                    } else {
+                        addString(text(previous, row));
+                    }
+                }
+                longs = null;
+                doubles = null;
+                booleans = null;
+        }
+    }
+
+    /**
+     * Renders a typed value of the column as text
+     *
+     * @param previous the type of the column
+     * @param row      the 0-based row
+     * @return the text
+     */
+    private String text(ColumnType previous, int row) {
+        switch (previous) {
+            case LONG:
+                return Long.toString(longs[row]);
+            case DOUBLE:
+                return doubleToText(doubles[row]);
+            default:
+                return (booleans[row >>> 6] & (1L << row)) != 0 ? "TRUE" : "FALSE";
+        }
+    }
+
+    /**
+     * Grows the arrays when they are full
+     */
+    private void ensureCapacity() {
+        if (size < capacity) {
+            return;
+        }
+        capacity = capacity * 2;
+        nulls = Arrays.copyOf(nulls, bitmapLength(capacity));
+        if (longs != null) {
+            longs = Arrays.copyOf(longs, capacity);
+        }
+        if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, capacity);
+        }
+        if (booleans != null) {
+            booleans = Arrays.copyOf(booleans, bitmapLength(capacity));
+        }
+        if (codes != null) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+    }
+
+    /**
+     * Checks whether the cell is empty
+     *
+     * @param row the 0-based row
+     * @return true if the cell is empty
+     */
+    private boolean isNull(int row) {
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Checks the number is whole and fits a long
+     *
+     * @param value the number
+     * @return true if the number can be stored as long
+     */
+    private static boolean isWhole(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 0x1p63;
+    }
+
+    /**
+     * Renders a number like the formatted values, without the exponent and trailing zeros
+     *
+     * @param value the number
+     * @return the text
+     */
+    private static String doubleToText(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        BigDecimal decimal = BigDecimal.valueOf(value).stripTrailingZeros();
+        return decimal.scale() < 0 ? decimal.setScale(0).toPlainString() : decimal.toPlainString();
+    }
+
+    /**
+     * Number of words of a bitmap
+     *
+     * @param bits the number of bits
+     * @return the length of the {@code long[]}
+     */
+    private static int bitmapLength(int bits) {
+        return (bits + 63) >>> 6;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ydanchen.handysheet.frame;
+
+/**
+ * The type of the values stored in a {@link Column}
+ *
+ * @author Yevhen Danchenko
+ */
+public enum ColumnType {
+    /**
+     * Whole numbers, stored as {@code long}. See {@link LongColumn}
+     */
+    LONG,
+    /**
+     * Numbers with a fraction, dates and times as serial numbers, stored as {@code double}. See {@link DoubleColumn}
+     */
+    DOUBLE,
+    /**
+     * Checkbox values, stored as bits. See {@link BooleanColumn}
+     */
+    BOOLEAN,
+    /**
+     * Text and mixed values, dictionary-encoded. See {@link StringColumn}
+     */
+    STRING
+}
@@ -0,0 +1,59 @@
+package com.ydanchen.handysheet.frame;
+
+import java.util.Arrays;
+
+/**
+ * A column of numbers backed by a {@code double[]}. Dates and times are serial numbers
+ *
+ * @author Yevhen Danchenko
+ */
+public class DoubleColumn extends NumericColumn {
+    private final double[] values;
+
+    /**
+     * Constructor
+     *
+     * @param name   the name of the column
+     * @param size   the number of rows
+     * @param nulls  the bitmap of empty cells
+     * @param values the values, {@link Double#NaN} for the empty cells
+     */
+    DoubleColumn(String name, int size, long[] nulls, double[] values) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.DOUBLE;
+    }
+
+    @Override
+    public double getDouble(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    /**
+     * Values, not copied
+     *
+     * @return the values of all rows, {@link Double#NaN} for the empty cells
+     */
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * Copies the values
+     *
+     * @return the values of all rows, {@link Double#NaN} for the empty cells
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(values, size());
+    }
+}
@@ -0,0 +1,383 @@
+package com.ydanchen.handysheet.frame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link SheetFrame} saved to a local file together with the spreadsheet revision it was read at
+ * <p>The file keeps the columns in their primitive form: the bitmaps and the {@code long}, {@code double}
+ * and {@code int} arrays are copied as is, and the text dictionaries as UTF-8. It is written and read through
+ * memory-mapped NIO buffers, so a reload is a bulk copy of the arrays without any parsing.
+ * The modified time of the spreadsheet tells whether the snapshot is stale,
+ * see {@code SheetOperation.getValuesAsFrame(boolean, Path)}.
+ * The file is written to a temporary file and moved in place, so readers never see a partial snapshot.
+ * A snapshot can't be larger than 2 GB
+ *
+ * @author Yevhen Danchenko
+ */
+public class FrameSnapshot {
+    private static final int MAGIC = 0x48534E50;
+    private static final int VERSION = 1;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final int NULL_LENGTH = -1;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final SheetFrame frame;
+    private final String spreadsheetId;
+    private final String range;
+    private final boolean withHeader;
+    private final long modifiedTime;
+
+    /**
+     * Constructor
+     *
+     * @param frame         the values
+     * @param spreadsheetId the id of the spreadsheet the values were read from
+     * @param range         the range the values were read from, with the sheet name
+     * @param withHeader    true if the column names were taken from the first row
+     * @param modifiedTime  the modified time of the spreadsheet read before the values, in milliseconds since the epoch
+     */
+    public FrameSnapshot(SheetFrame frame, String spreadsheetId, String range, boolean withHeader, long modifiedTime) {
+        this.frame = frame;
+        this.spreadsheetId = spreadsheetId;
+        this.range = range;
+        this.withHeader = withHeader;
+        this.modifiedTime = modifiedTime;
+    }
+
+    /**
+     * Read a snapshot from the file
+     *
+     * @param file the file written with {@link #write(Path)}
+     * @return new instance of the {@link FrameSnapshot}
+     * @throws IOException if the file can't be read or isn't a snapshot
+     */
+    public static FrameSnapshot read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a snapshot file, too large: " + file);
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                return decode(in, file);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Corrupted snapshot file: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Write the snapshot to the file, replacing it
+     *
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        long size = Integer.BYTES * 2L + encodedSize(spreadsheetId) + encodedSize(range)
+                + 1 + Long.BYTES + Integer.BYTES * 2L;
+        int bitmapLength = (frame.getRowCount() + 63) >>> 6;
+        for (Column column : frame.getColumns()) {
+            size += encodedSize(column.getName()) + 1 + (long) Long.BYTES * bitmapLength;
+            switch (column.getType()) {
+                case LONG:
+                case DOUBLE:
+                    size += (long) Long.BYTES * frame.getRowCount();
+                    break;
+                case BOOLEAN:
+                    size += (long) Long.BYTES * bitmapLength;
+                    break;
+                default:
+                    size += Integer.BYTES + (long) Integer.BYTES * frame.getRowCount();
+                    for (String value : ((StringColumn) column).getDictionary()) {
+                        size += encodedSize(value);
+                    }
+            }
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot is larger than 2 GB: " + size + " bytes");
+        }
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                encode(out);
+                out.force();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException deleteFailure) {
+                e.addSuppressed(deleteFailure);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether the snapshot holds the values of the range
+     *
+     * @param spreadsheetId the id of the spreadsheet
+     * @param range         the range with the sheet name
+     * @param withHeader    true if the column names are taken from the first row
+     * @return true if the snapshot was taken from the same range the same way
+     */
+    public boolean isSnapshotOf(String spreadsheetId, String range, boolean withHeader) {
+        return this.withHeader == withHeader && this.spreadsheetId != null && this.spreadsheetId.equals(spreadsheetId)
+                && this.range != null && this.range.equals(range);
+    }
+
+    /**
+     * Frame getter
+     *
+     * @return the values
+     */
+    public SheetFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Spreadsheet ID getter
+     *
+     * @return the id of the spreadsheet the values were read from
+     */
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+
+    /**
+     * Range getter
+     *
+     * @return the range the values were read from, with the sheet name
+     */
+    public String getRange() {
+        return range;
+    }
+
+    /**
+     * With header getter
+     *
+     * @return true if the column names were taken from the first row
+     */
+    public boolean isWithHeader() {
+        return withHeader;
+    }
+
+    /**
+     * Modified time getter
+     *
+     * @return the modified time of the spreadsheet the values were read at, in milliseconds since the epoch
+     */
+    public long getModifiedTime() {
+        return modifiedTime;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Writes the snapshot to the buffer
+     *
+     * @param out the buffer of the exact size of the snapshot
+     */
+    private void encode(ByteBuffer out) {
+        out.putInt(MAGIC).putInt(VERSION);
+        putString(out, spreadsheetId);
+        putString(out, range);
+        out.put((byte) (withHeader ? 1 : 0)).putLong(modifiedTime);
+        out.putInt(frame.getRowCount()).putInt(frame.getColumnCount());
+        for (Column column : frame.getColumns()) {
+            putString(out, column.getName());
+            putLongs(out, column.nulls());
+            switch (column.getType()) {
+                case LONG:
+                    out.put(TYPE_LONG);
+                    putLongs(out, ((LongColumn) column).values());
+                    break;
+                case DOUBLE:
+                    out.put(TYPE_DOUBLE);
+                    out.asDoubleBuffer().put(((DoubleColumn) column).values());
+                    out.position(out.position() + Double.BYTES * column.size());
+                    break;
+                case BOOLEAN:
+                    out.put(TYPE_BOOLEAN);
+                    putLongs(out, ((BooleanColumn) column).values());
+                    break;
+                default:
+                    StringColumn text = (StringColumn) column;
+                    out.put(TYPE_STRING);
+                    out.putInt(text.getDictionary().size());
+                    for (String value : text.getDictionary()) {
+                        putString(out, value);
+                    }
+                    out.asIntBuffer().put(text.codes());
+                    out.position(out.position() + Integer.BYTES * column.size());
+            }
+        }
+    }
+
+    /**
+     * Reads the snapshot from the buffer
+     *
+     * @param in   the buffer positioned at the start of the snapshot
+     * @param file the file, for the error messages
+     * @return new instance of the {@link FrameSnapshot}
+     * @throws IOException if the buffer doesn't hold a snapshot
+     */
+    private static FrameSnapshot decode(ByteBuffer in, Path file) throws IOException {
+        if (in.remaining() < Integer.BYTES * 2 || in.getInt() != MAGIC) {
+            throw new IOException("Not a snapshot file: " + file);
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + file);
+        }
+        String spreadsheetId = getString(in);
+        String range = getString(in);
+        boolean withHeader = in.get() != 0;
+        long modifiedTime = in.getLong();
+        int rows = in.getInt();
+        int columnCount = in.getInt();
+        require(in, rows);
+        require(in, columnCount);
+        int bitmapLength = (rows + 63) >>> 6;
+        List<Column> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            String name = getString(in);
+            long[] nulls = getLongs(in, bitmapLength);
+            byte type = in.get();
+            switch (type) {
+                case TYPE_LONG:
+                    columns.add(new LongColumn(name, rows, nulls, getLongs(in, rows)));
+                    break;
+                case TYPE_DOUBLE:
+                    require(in, (long) Double.BYTES * rows);
+                    double[] doubles = new double[rows];
+                    in.asDoubleBuffer().get(doubles);
+                    in.position(in.position() + Double.BYTES * rows);
+                    columns.add(new DoubleColumn(name, rows, nulls, doubles));
+                    break;
+                case TYPE_BOOLEAN:
+                    columns.add(new BooleanColumn(name, rows, nulls, getLongs(in, bitmapLength)));
+                    break;
+                case TYPE_STRING:
+                    int dictionarySize = in.getInt();
+                    require(in, (long) Integer.BYTES * dictionarySize);
+                    String[] dictionary = new String[dictionarySize];
+                    for (int code = 0; code < dictionary.length; code++) {
+                        dictionary[code] = getString(in);
+                    }
+                    require(in, (long) Integer.BYTES * rows);
+                    int[] codes = new int[rows];
+                    in.asIntBuffer().get(codes);
+                    in.position(in.position() + Integer.BYTES * rows);
+                    columns.add(new StringColumn(name, rows, nulls, codes, dictionary));
+                    break;
+                default:
+                    throw new IOException("Unknown column type " + type + ": " + file);
+            }
+        }
+        return new FrameSnapshot(new SheetFrame(columns, rows), spreadsheetId, range, withHeader, modifiedTime);
+    }
+
+    /**
+     * Counts the size of the string in the file
+     *
+     * @param value the string, might be null
+     * @return the number of bytes the string takes in the file, with its length
+     */
+    private static long encodedSize(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    /**
+     * Writes the string as UTF-8, prefixed by its length
+     *
+     * @param out   the buffer
+     * @param value the string, might be null
+     */
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    /**
+     * Reads a string prefixed by its length
+     *
+     * @param in the buffer
+     * @return the string, might be null
+     * @throws IOException if the length doesn't fit in the buffer
+     */
+    private static String getString(ByteBuffer in) throws IOException {
+        int length = in.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        require(in, length);
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the array as is
+     *
+     * @param out    the buffer
+     * @param values the array
+     */
+    private static void putLongs(ByteBuffer out, long[] values) {
+        out.asLongBuffer().put(values);
+        out.position(out.position() + Long.BYTES * values.length);
+    }
+
+    /**
+     * Reads an array
+     *
+     * @param in     the buffer
+     * @param length the length of the array
+     * @return the array
+     * @throws IOException if the array doesn't fit in the buffer
+     */
+    private static long[] getLongs(ByteBuffer in, int length) throws IOException {
+        require(in, (long) Long.BYTES * length);
+        long[] values = new long[length];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + Long.BYTES * length);
+        return values;
+    }
+
+    /**
+     * Checks a size read from the file before anything of that size is allocated
+     *
+     * @param in    the buffer
+     * @param bytes the number of bytes which must remain in the buffer
+     * @throws IOException if the size is negative or larger than the rest of the file
+     */
+    private static void require(ByteBuffer in, long bytes) throws IOException {
+        if (bytes < 0 || bytes > in.remaining()) {
+            throw new IOException("Corrupted snapshot file");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ydanchen.handysheet.frame;
+
+import java.util.Arrays;
+
+/**
+ * A column of whole numbers backed by a {@code long[]}
+ *
+ * @author Yevhen Danchenko
+ */
+public class LongColumn extends NumericColumn {
+    private final long[] values;
+
+    /**
+     * Constructor
+     *
+     * @param name   the name of the column
+     * @param size   the number of rows
+     * @param nulls  the bitmap of empty cells
+     * @param values the values, 0 for the empty cells
+     */
+    LongColumn(String name, int size, long[] nulls, long[] values) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.LONG;
+    }
+
+    /**
+     * Gets the number in the cell
+     *
+     * @param row the 0-based row
+     * @return the number, 0 if the cell is empty. Check {@link #isNull(int)} to tell them apart
+     */
+    public long getLong(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    @Override
+    public double getDouble(int row) {
+        return isNull(row) ? Double.NaN : values[row];
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return isNull(row) ? null : values[row];
+    }
+
+    /**
+     * Values, not copied
+     *
+     * @return the values of all rows, 0 for the empty cells
+     */
+    long[] values() {
+        return values;
+    }
+
+    /**
+     * Copies the values
+     *
+     * @return the values of all rows, 0 for the empty cells
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, size());
+    }
+}
@@ -0,0 +1,28 @@
+package com.ydanchen.handysheet.frame;
+
+/**
+ * A column of numbers, either whole or with a fraction
+ *
+ * @author Yevhen Danchenko
+ */
+public abstract class NumericColumn extends Column {
+
+    /**
+     * Constructor
+     *
+     * @param name  the name of the column
+     * @param size  the number of rows
+     * @param nulls the bitmap of empty cells
+     */
+    NumericColumn(String name, int size, long[] nulls) {
+        super(name, size, nulls);
+    }
+
+    /**
+     * Gets the number in the cell as double
+     *
+     * @param row the 0-based row
+     * @return the number, or {@link Double#NaN} if the cell is empty
+     */
+    public abstract double getDouble(int row);
+}
@@ -0,0 +1,404 @@
+package com.ydanchen.handysheet.frame;
+
+import com.ydanchen.handysheet.json.RowHandler;
+import com.ydanchen.handysheet.util.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, typed copy of a range of values
+ * <p>Each column is stored in primitive arrays of its type: whole numbers in {@code long[]},
+ * other numbers, dates and times in {@code double[]}, checkboxes and empty cells in bitmaps,
+ * and text dictionary-encoded. A numeric cell costs 8 bytes instead of a boxed formatted String.
+ * Obtain an instance with {@code SheetOperation.getValuesAsFrame()} or build one with {@link Builder}
+ *
+ * @author Yevhen Danchenko
+ */
+public class SheetFrame {
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final int rowCount;
+
+    /**
+     * Constructor
+     *
+     * @param columns  the columns
+     * @param rowCount the number of rows
+     */
+    SheetFrame(List<Column> columns, int rowCount) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.rowCount = rowCount;
+        Map<String, Column> byName = new LinkedHashMap<>();
+        for (Column column : columns) {
+            byName.putIfAbsent(column.getName(), column);
+        }
+        this.columnsByName = byName;
+    }
+
+    /**
+     * Create a builder of the frame
+     *
+     * @return new instance of the {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Number of rows
+     *
+     * @return the number of rows, without the header
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Number of columns
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Columns getter
+     *
+     * @return all columns, left to right
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the column by position
+     *
+     * @param index the 0-based position of the column
+     * @return the column
+     */
+    public Column getColumn(int index) {
+        return columns.get(index);
+    }
+
+    /**
+     * Gets the column by name
+     *
+     * @param name the header of the column, or its letter if the frame has no header
+     * @return the column
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public Column getColumn(String name) {
+        Column column = columnsByName.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("There is no column: " + name);
+        }
+        return column;
+    }
+
+    /**
+     * Gets the column of numbers by name
+     *
+     * @param name the header of the column, or its letter if the frame has no header
+     * @return the column
+     * @throws IllegalArgumentException if there is no such column or it isn't numeric
+     */
+    public NumericColumn getNumericColumn(String name) {
+        return typed(getColumn(name), NumericColumn.class);
+    }
+
+    /**
+     * Gets the column of text by name
+     *
+     * @param name the header of the column, or its letter if the frame has no header
+     * @return the column
+     * @throws IllegalArgumentException if there is no such column or it isn't text
+     */
+    public StringColumn getStringColumn(String name) {
+        return typed(getColumn(name), StringColumn.class);
+    }
+
+    /**
+     * Gets the column of checkboxes by name
+     *
+     * @param name the header of the column, or its letter if the frame has no header
+     * @return the column
+     * @throws IllegalArgumentException if there is no such column or it isn't boolean
+     */
+    public BooleanColumn getBooleanColumn(String name) {
+        return typed(getColumn(name), BooleanColumn.class);
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Casts the column to the expected class
+     *
+     * @param column the column
+     * @param type   the expected class
+     * @param <T>    the expected type
+     * @return the column
+     */
+    private static <T extends Column> T typed(Column column, Class<T> type) {
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + column.getName() + " is " + column.getType());
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * Builds a frame row by row, cell by cell
+     * <p>Rows may have different lengths, the missing cells are empty. Not thread-safe
+     */
+    public static final class Builder {
+        private final List<ColumnBuilder> columns = new ArrayList<>();
+        private final List<String> header = new ArrayList<>();
+        private boolean withHeader;
+        private boolean headerDone;
+        private int firstColumn = 1;
+        private int rows;
+        private int column;
+
+        private Builder() {
+        }
+
+        /**
+         * Take the column names from the first row
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder withHeader() {
+            this.withHeader = true;
+            return this;
+        }
+
+        /**
+         * Set the sheet column of the first frame column, used to name the columns by letter
+         *
+         * @param firstColumn the 1-based column index, e.g. 2 to name the columns B, C...
+         * @return current instance of the {@link Builder}
+         */
+        public Builder firstColumn(int firstColumn) {
+            this.firstColumn = Math.max(1, firstColumn);
+            return this;
+        }
+
+        /**
+         * Add the next cell of the current row
+         *
+         * @param value the value as parsed by the API client, null or an empty string for an empty cell
+         * @return current instance of the {@link Builder}
+         */
+        public Builder add(Object value) {
+            if (isHeaderRow()) {
+                header.add(value == null ? null : String.valueOf(value));
+                column++;
+            } else {
+                nextColumn().add(value);
+            }
+            return this;
+        }
+
+        /**
+         * Add an empty cell to the current row
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addNull() {
+            return add(null);
+        }
+
+        /**
+         * Add a whole number to the current row
+         *
+         * @param value the number
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addLong(long value) {
+            if (isHeaderRow()) {
+                return add(value);
+            }
+            nextColumn().addLong(value);
+            return this;
+        }
+
+        /**
+         * Add a number to the current row
+         *
+         * @param value the number
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addDouble(double value) {
+            if (isHeaderRow()) {
+                return add(value);
+            }
+            nextColumn().addDouble(value);
+            return this;
+        }
+
+        /**
+         * Add a checkbox value to the current row
+         *
+         * @param value the value
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addBoolean(boolean value) {
+            if (isHeaderRow()) {
+                return add(value);
+            }
+            nextColumn().addBoolean(value);
+            return this;
+        }
+
+        /**
+         * Add a text value to the current row
+         *
+         * @param value the text, null or empty for an empty cell
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addString(String value) {
+            return add(value);
+        }
+
+        /**
+         * Finish the current row, the cells not added are empty
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder endRow() {
+            if (isHeaderRow()) {
+                headerDone = true;
+            } else {
+                rows++;
+                for (ColumnBuilder builder : columns) {
+                    if (builder.size() < rows) {
+                        builder.addNull();
+                    }
+                }
+            }
+            column = 0;
+            return this;
+        }
+
+        /**
+         * Add a whole row
+         *
+         * @param row the values of the row as parsed by the API client
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addRow(List<Object> row) {
+            for (Object value : row) {
+                add(value);
+            }
+            return endRow();
+        }
+
+        /**
+         * Add the rows
+         *
+         * @param values the rows as parsed by the API client, might be null
+         * @return current instance of the {@link Builder}
+         */
+        public Builder addRows(List<List<Object>> values) {
+            if (values != null) {
+                for (List<Object> row : values) {
+                    addRow(row);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Create a handler which adds the decoded values to this builder
+         *
+         * @return new instance of the {@link RowHandler}
+         */
+        public RowHandler rowHandler() {
+            return new RowHandler() {
+                @Override
+                public void addNull() {
+                    Builder.this.addNull();
+                }
+
+                @Override
+                public void addString(String value) {
+                    Builder.this.addString(value);
+                }
+
+                @Override
+                public void addLong(long value) {
+                    Builder.this.addLong(value);
+                }
+
+                @Override
+                public void addDouble(double value) {
+                    Builder.this.addDouble(value);
+                }
+
+                @Override
+                public void addBoolean(boolean value) {
+                    Builder.this.addBoolean(value);
+                }
+
+                @Override
+                public void endRow() {
+                    Builder.this.endRow();
+                }
+            };
+        }
+
+        /**
+         * Build the frame, finishing the current row if it has cells
+         *
+         * @return new instance of the {@link SheetFrame}
+         */
+        public SheetFrame build() {
+            if (column > 0) {
+                endRow();
+            }
+            List<Column> built = new ArrayList<>(Math.max(columns.size(), header.size()));
+            for (int i = 0; i < Math.max(columns.size(), header.size()); i++) {
+                String name = i < header.size() && header.get(i) != null && !header.get(i).isEmpty()
+                        ? header.get(i)
+                        : Utils.columnIndexToLetter(firstColumn + i);
+                ColumnBuilder builder = i < columns.size() ? columns.get(i) : new ColumnBuilder();
+                while (builder.size() < rows) {
+                    builder.addNull();
+                }
+                built.add(builder.build(name));
+            }
+            return new SheetFrame(built, rows);
+        }
+
+        /**
+         * Checks whether the cells go to the header
+         *
+         * @return true while the first row of a frame with header is added
+         */
+        private boolean isHeaderRow() {
+            return withHeader && !headerDone;
+        }
+
+        /**
+         * Gets the builder of the current column and moves to the next one
+         *
+         * @return the builder of the current column
+         */
+        private ColumnBuilder nextColumn() {
+            if (column == columns.size()) {
+                ColumnBuilder builder = new ColumnBuilder();
+                for (int row = 0; row < rows; row++) {
+                    builder.addNull();
+                }
+                columns.add(builder);
+            }
+            return columns.get(column++);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ydanchen.handysheet.frame;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A dictionary-encoded column of text
+ * <p>Every distinct value is stored once, the rows keep the {@code int} codes of their values,
+ * so repeated values like categories and statuses cost 4 bytes per cell
+ *
+ * @author Yevhen Danchenko
+ */
+public class StringColumn extends Column {
+    /**
+     * The code of the empty cells
+     */
+    public static final int NULL_CODE = -1;
+
+    private final int[] codes;
+    private final List<String> dictionary;
+
+    /**
+     * Constructor
+     *
+     * @param name       the name of the column
+     * @param size       the number of rows
+     * @param nulls      the bitmap of empty cells
+     * @param codes      the codes of the values, {@link #NULL_CODE} for the empty cells
+     * @param dictionary the distinct values indexed by the code
+     */
+    StringColumn(String name, int size, long[] nulls, int[] codes, String[] dictionary) {
+        super(name, size, nulls);
+        this.codes = codes;
+        this.dictionary = Collections.unmodifiableList(Arrays.asList(dictionary));
+    }
+
+    @Override
+    public ColumnType getType() {
+        return ColumnType.STRING;
+    }
+
+    /**
+     * Gets the value of the cell
+     *
+     * @param row the 0-based row
+     * @return the value, or null if the cell is empty
+     */
+    public String getString(int row) {
+        checkRow(row);
+        int code = codes[row];
+        return code == NULL_CODE ? null : dictionary.get(code);
+    }
+
+    /**
+     * Gets the dictionary code of the cell
+     *
+     * @param row the 0-based row
+     * @return the index of the value in {@link #getDictionary()}, or {@link #NULL_CODE} if the cell is empty
+     */
+    public int getCode(int row) {
+        checkRow(row);
+        return codes[row];
+    }
+
+    /**
+     * Dictionary getter
+     *
+     * @return the distinct values in the order of their first appearance
+     */
+    public List<String> getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return getString(row);
+    }
+
+    /**
+     * Codes of the values, not copied
+     *
+     * @return the codes of all rows, {@link #NULL_CODE} for the empty cells
+     */
+    int[] codes() {
+        return codes;
+    }
+}
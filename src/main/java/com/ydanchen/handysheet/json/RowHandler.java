@@ -0,0 +1,112 @@
+package com.ydanchen.handysheet.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Receives the decoded values cell by cell, as they are read from the response
+ * <p>Cells of a row arrive left to right and are followed by {@link #endRow()}.
+ * Empty cells inside a row arrive as empty strings, as the API returns them
+ *
+ * @author Yevhen Danchenko
+ * @see ValueRangeDecoder
+ */
+public interface RowHandler {
+
+    /**
+     * Called before the rows of a range
+     *
+     * @param range the range as returned by the API, e.g. "Sheet1!A1:C3", null if the response has none
+     */
+    default void startRange(String range) {
+    }
+
+    /**
+     * Called after the rows of a range
+     */
+    default void endRange() {
+    }
+
+    /**
+     * A cell without a value
+     */
+    void addNull();
+
+    /**
+     * A text cell, or a formatted value
+     *
+     * @param value the text
+     */
+    void addString(String value);
+
+    /**
+     * A whole number cell
+     *
+     * @param value the number
+     */
+    void addLong(long value);
+
+    /**
+     * A number cell with a fraction, or a date as a serial number
+     *
+     * @param value the number
+     */
+    void addDouble(double value);
+
+    /**
+     * A checkbox cell
+     *
+     * @param value the value
+     */
+    void addBoolean(boolean value);
+
+    /**
+     * The end of the current row
+     */
+    void endRow();
+
+    /**
+     * Creates a handler which collects every row into a List and passes it to the consumer
+     *
+     * @param consumer receives the rows as soon as they are decoded
+     * @return new instance of the {@link RowHandler}
+     */
+    static RowHandler rows(Consumer<List<Object>> consumer) {
+        return new RowHandler() {
+            private List<Object> row = new ArrayList<>();
+
+            @Override
+            public void addNull() {
+                row.add(null);
+            }
+
+            @Override
+            public void addString(String value) {
+                row.add(value);
+            }
+
+            @Override
+            public void addLong(long value) {
+                row.add(value);
+            }
+
+            @Override
+            public void addDouble(double value) {
+                row.add(value);
+            }
+
+            @Override
+            public void addBoolean(boolean value) {
+                row.add(value);
+            }
+
+            @Override
+            public void endRow() {
+                List<Object> completed = row;
+                row = new ArrayList<>(completed.size());
+                consumer.accept(completed);
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package com.ydanchen.handysheet.json;
+
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.client.json.jackson2.JacksonFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the JSON of values.get and values.batchGet responses token by token
+ * <p>Unlike the model classes of the API client, the decoder doesn't build a tree of the whole response:
+ * every cell is pushed to a {@link RowHandler} as soon as it is read from the stream,
+ * so the rows are processed while the rest of the body is still arriving
+ *
+ * @author Yevhen Danchenko
+ */
+public final class ValueRangeDecoder {
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+    private ValueRangeDecoder() {
+    }
+
+    /**
+     * Decodes a ValueRange, the response of values.get
+     *
+     * @param in      the JSON stream, not closed by the decoder
+     * @param handler receives the values
+     * @return the number of cells passed to the handler
+     * @throws IOException if the stream can't be read or parsed
+     */
+    public static long decodeValueRange(InputStream in, RowHandler handler) throws IOException {
+        JsonParser parser = JSON_FACTORY.createJsonParser(in, StandardCharsets.UTF_8);
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        return readValueRange(parser, handler);
+    }
+
+    /**
+     * Decodes a BatchGetValuesResponse, the response of values.batchGet.
+     * The ranges are passed to the handler in the request order
+     *
+     * @param in      the JSON stream, not closed by the decoder
+     * @param handler receives the values of all ranges
+     * @return the number of cells passed to the handler
+     * @throws IOException if the stream can't be read or parsed
+     */
+    public static long decodeBatchGet(InputStream in, RowHandler handler) throws IOException {
+        JsonParser parser = JSON_FACTORY.createJsonParser(in, StandardCharsets.UTF_8);
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        long cells = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("valueRanges".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    cells += readValueRange(parser, handler);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return cells;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Reads one ValueRange object, the start of which is the current token
+     *
+     * @param parser  the parser
+     * @param handler receives the values
+     * @return the number of cells of the range
+     * @throws IOException if the stream can't be read or parsed
+     */
+    private static long readValueRange(JsonParser parser, RowHandler handler) throws IOException {
+        boolean started = false;
+        long cells = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("range".equals(field) && !started) {
+                handler.startRange(parser.getText());
+                started = true;
+            } else if ("values".equals(field) && token == JsonToken.START_ARRAY) {
+                if (!started) {
+                    handler.startRange(null);
+                    started = true;
+                }
+                cells += readRows(parser, handler);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!started) {
+            handler.startRange(null);
+        }
+        handler.endRange();
+        return cells;
+    }
+
+    /**
+     * Reads the array of rows, the start of which is the current token
+     *
+     * @param parser  the parser
+     * @param handler receives the values
+     * @return the number of cells of the rows
+     * @throws IOException if the stream can't be read or parsed
+     */
+    private static long readRows(JsonParser parser, RowHandler handler) throws IOException {
+        long cells = 0;
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                readCell(parser, token, handler);
+                cells++;
+            }
+            handler.endRow();
+        }
+        return cells;
+    }
+
+    /**
+     * Passes the value of the current token to the handler
+     *
+     * @param parser  the parser
+     * @param token   the current token
+     * @param handler receives the value
+     * @throws IOException if the stream can't be read or parsed
+     */
+    private static void readCell(JsonParser parser, JsonToken token, RowHandler handler) throws IOException {
+        if (token == null) {
+            throw new IOException("Unexpected end of the values");
+        }
+        switch (token) {
+            case VALUE_STRING:
+                handler.addString(parser.getText());
+                break;
+            case VALUE_NUMBER_INT:
+                readWholeNumber(parser, handler);
+                break;
+            case VALUE_NUMBER_FLOAT:
+                handler.addDouble(parser.getDoubleValue());
+                break;
+            case VALUE_TRUE:
+                handler.addBoolean(true);
+                break;
+            case VALUE_FALSE:
+                handler.addBoolean(false);
+                break;
+            case VALUE_NULL:
+                handler.addNull();
+                break;
+            default:
+                throw new IOException("Unexpected token in the values: " + token);
+        }
+    }
+
+    /**
+     * Passes the whole number of the current token to the handler, as double if it doesn't fit a long
+     *
+     * @param parser  the parser
+     * @param handler receives the value
+     * @throws IOException if the stream can't be read or parsed
+     */
+    private static void readWholeNumber(JsonParser parser, RowHandler handler) throws IOException {
+        long value;
+        try {
+            value = parser.getLongValue();
+        } catch (IOException outOfRange) {
+            handler.addDouble(parser.getDoubleValue());
+            return;
+        }
+        handler.addLong(value);
+    }
+
+    /**
+     * Checks the token
+     *
+     * @param actual   the read token
+     * @param expected the expected token
+     * @throws IOException if the tokens differ
+     */
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.ydanchen.handysheet.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the API calls of one operation on one sheet, recorded by {@link InMemoryInstrumentation}
+ * <p>The counters are updated live, read them at any time
+ *
+ * @author Yevhen Danchenko
+ */
+public class CallStats {
+    private final Operation operation;
+    private final String spreadsheetId;
+    private final String sheet;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final ConcurrentMap<Integer, LongAdder> errorCodes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param operation     the operation
+     * @param spreadsheetId the id of the spreadsheet
+     * @param sheet         the sheet name, null for the calls not bound to one sheet
+     */
+    CallStats(Operation operation, String spreadsheetId, String sheet) {
+        this.operation = operation;
+        this.spreadsheetId = spreadsheetId;
+        this.sheet = sheet;
+    }
+
+    /**
+     * Operation getter
+     *
+     * @return the operation
+     */
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Spreadsheet ID getter
+     *
+     * @return the id of the spreadsheet
+     */
+    public String getSpreadsheetId() {
+        return spreadsheetId;
+    }
+
+    /**
+     * Sheet getter
+     *
+     * @return the sheet name, null for the calls not bound to one sheet
+     */
+    public String getSheet() {
+        return sheet;
+    }
+
+    /**
+     * Latency getter
+     *
+     * @return the histogram of the call latencies, including the retries and the waits for the rate limit
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Number of completed calls
+     *
+     * @return the number of calls, successful or not
+     */
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    /**
+     * Number of failed calls
+     *
+     * @return the number of calls which failed after all retries
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Number of retries
+     *
+     * @return the number of failed attempts which were retried
+     */
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * Request bytes getter
+     *
+     * @return the total size of the request bodies of all attempts
+     */
+    public long getRequestBytes() {
+        return requestBytes.sum();
+    }
+
+    /**
+     * Response bytes getter
+     *
+     * @return the total size of the response bodies
+     */
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    /**
+     * Cells getter
+     *
+     * @return the total number of cells read or written
+     */
+    public long getCells() {
+        return cells.sum();
+    }
+
+    /**
+     * Error codes getter
+     * <p>Both the retried attempts and the failed calls are counted. Failures which are not
+     * HTTP error responses, like timeouts, are counted under 0
+     *
+     * @return the number of failures keyed by the HTTP status code, sorted by the code
+     */
+    public Map<Integer, Long> getErrorCodes() {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        errorCodes.forEach((code, count) -> snapshot.put(code, count.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return operation + " " + spreadsheetId + (sheet != null ? " " + sheet : "")
+                + ": calls=" + getCallCount()
+                + " failures=" + getFailureCount()
+                + " retries=" + getRetryCount()
+                + " requestBytes=" + getRequestBytes()
+                + " responseBytes=" + getResponseBytes()
+                + " cells=" + getCells()
+                + " errors=" + getErrorCodes()
+                + " latency[" + latency + "]";
+    }
+
+    // =====================================
+    // Package-private methods
+    // =====================================
+
+    /**
+     * Records a completed call
+     *
+     * @param nanos      the latency of the call
+     * @param failed     true if the call failed
+     * @param statusCode the status code of the failure
+     */
+    void recordCall(long nanos, boolean failed, int statusCode) {
+        latency.record(nanos);
+        callCount.increment();
+        if (failed) {
+            failureCount.increment();
+            recordError(statusCode);
+        }
+    }
+
+    /**
+     * Records a retried attempt
+     *
+     * @param statusCode the status code of the failure
+     */
+    void recordRetry(int statusCode) {
+        retryCount.increment();
+        recordError(statusCode);
+    }
+
+    /**
+     * Records the size of a request body
+     *
+     * @param bytes the size
+     */
+    void recordRequestBytes(long bytes) {
+        requestBytes.add(bytes);
+    }
+
+    /**
+     * Records the size of a response body
+     *
+     * @param bytes the size
+     */
+    void recordResponseBytes(long bytes) {
+        responseBytes.add(bytes);
+    }
+
+    /**
+     * Records the cells read or written
+     *
+     * @param count the number of cells
+     */
+    void recordCells(long count) {
+        cells.add(count);
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Counts a failure
+     *
+     * @param statusCode the status code of the failure
+     */
+    private void recordError(int statusCode) {
+        errorCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+    }
+}
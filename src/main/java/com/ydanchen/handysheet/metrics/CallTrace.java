@@ -0,0 +1,56 @@
+package com.ydanchen.handysheet.metrics;
+
+/**
+ * Receives the events of one API call, from {@link Instrumentation#start} to {@link #end(Throwable)}
+ * <p>A trace is used by one thread at a time. The sizes are reported for every attempt,
+ * so a retried call reports the request bytes of each attempt
+ *
+ * @author Yevhen Danchenko
+ */
+public interface CallTrace {
+    /**
+     * The trace which ignores all events
+     */
+    CallTrace NOOP = new CallTrace() {
+    };
+
+    /**
+     * Called when a failed attempt is going to be retried
+     *
+     * @param statusCode the HTTP status code of the failure, 0 if it is not an HTTP error response
+     */
+    default void onRetry(int statusCode) {
+    }
+
+    /**
+     * Called after an attempt is sent
+     *
+     * @param bytes the size of the request body, before compression
+     */
+    default void onRequestBytes(long bytes) {
+    }
+
+    /**
+     * Called after the response body is read
+     *
+     * @param bytes the size of the response body, after decompression
+     */
+    default void onResponseBytes(long bytes) {
+    }
+
+    /**
+     * Called with the number of cells read or written by the call
+     *
+     * @param cells the number of cells
+     */
+    default void onCells(long cells) {
+    }
+
+    /**
+     * Called once when the call completes
+     *
+     * @param error the failure of the call, null if it succeeded
+     */
+    default void end(Throwable error) {
+    }
+}
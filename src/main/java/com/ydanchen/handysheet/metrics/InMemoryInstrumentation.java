@@ -0,0 +1,158 @@
+package com.ydanchen.handysheet.metrics;
+
+import com.google.api.client.http.HttpResponseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Instrumentation which keeps the statistics of the calls in memory
+ * <p>The calls are grouped by the operation, the spreadsheet and the sheet, see {@link CallStats}.
+ * One instance can be shared by all spreadsheets, e.g. to find the jobs which use most of the quota:
+ * <pre>{@code
+ * InMemoryInstrumentation metrics = new InMemoryInstrumentation();
+ * SpreadSheet spreadsheet = new SpreadSheet(service).withId(id).withInstrumentation(metrics);
+ * ...
+ * metrics.getStats().forEach(System.out::println);
+ * }</pre>
+ *
+ * @author Yevhen Danchenko
+ */
+public class InMemoryInstrumentation implements Instrumentation {
+    private final ConcurrentMap<Key, CallStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public CallTrace start(Operation operation, String spreadsheetId, String sheet) {
+        CallStats callStats = stats.computeIfAbsent(new Key(operation, spreadsheetId, sheet),
+                key -> new CallStats(operation, spreadsheetId, sheet));
+        return new Trace(callStats, System.nanoTime());
+    }
+
+    /**
+     * Gets the statistics of all operations
+     *
+     * @return the statistics, one per operation, spreadsheet and sheet
+     */
+    public List<CallStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    /**
+     * Gets the statistics of the operation
+     *
+     * @param operation the operation
+     * @return the statistics of the operation, one per spreadsheet and sheet
+     */
+    public List<CallStats> getStats(Operation operation) {
+        return stats.values().stream()
+                .filter(callStats -> callStats.getOperation() == operation)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the statistics of the operation on the sheet
+     *
+     * @param operation     the operation
+     * @param spreadsheetId the id of the spreadsheet
+     * @param sheet         the sheet name, null for the calls not bound to one sheet
+     * @return the statistics, or null if there were no such calls
+     */
+    public CallStats getStats(Operation operation, String spreadsheetId, String sheet) {
+        return stats.get(new Key(operation, spreadsheetId, sheet));
+    }
+
+    /**
+     * Discards all statistics
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * The trace of one call
+     */
+    private static final class Trace implements CallTrace {
+        private final CallStats stats;
+        private final long startedAt;
+
+        /**
+         * Constructor
+         *
+         * @param stats     the statistics to record to
+         * @param startedAt the start of the call, by {@link System#nanoTime()}
+         */
+        private Trace(CallStats stats, long startedAt) {
+            this.stats = stats;
+            this.startedAt = startedAt;
+        }
+
+        @Override
+        public void onRetry(int statusCode) {
+            stats.recordRetry(statusCode);
+        }
+
+        @Override
+        public void onRequestBytes(long bytes) {
+            stats.recordRequestBytes(bytes);
+        }
+
+        @Override
+        public void onResponseBytes(long bytes) {
+            stats.recordResponseBytes(bytes);
+        }
+
+        @Override
+        public void onCells(long cells) {
+            stats.recordCells(cells);
+        }
+
+        @Override
+        public void end(Throwable error) {
+            int statusCode = error instanceof HttpResponseException
+                    ? ((HttpResponseException) error).getStatusCode()
+                    : 0;
+            stats.recordCall(System.nanoTime() - startedAt, error != null, statusCode);
+        }
+    }
+
+    /**
+     * The key of the statistics
+     */
+    private static final class Key {
+        private final Operation operation;
+        private final String spreadsheetId;
+        private final String sheet;
+
+        /**
+         * Constructor
+         *
+         * @param operation     the operation
+         * @param spreadsheetId the id of the spreadsheet
+         * @param sheet         the sheet name
+         */
+        private Key(Operation operation, String spreadsheetId, String sheet) {
+            this.operation = operation;
+            this.spreadsheetId = spreadsheetId;
+            this.sheet = sheet;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return operation == key.operation &&
+                    Objects.equals(spreadsheetId, key.spreadsheetId) &&
+                    Objects.equals(sheet, key.sheet);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, spreadsheetId, sheet);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.ydanchen.handysheet.metrics;
+
+/**
+ * Observes the API calls of a {@code SpreadSheet}
+ * <p>Every call starts a {@link CallTrace} which receives the retries, the sizes and the outcome of the call.
+ * Implement it to export metrics or tracing spans to a monitoring system, or use
+ * {@link InMemoryInstrumentation}. Implementations must be thread-safe and fast, as they run on the calling thread
+ *
+ * @author Yevhen Danchenko
+ */
+@FunctionalInterface
+public interface Instrumentation {
+    /**
+     * The instrumentation which records nothing, the default one
+     */
+    Instrumentation NOOP = (operation, spreadsheetId, sheet) -> CallTrace.NOOP;
+
+    /**
+     * Called before an API call is sent
+     *
+     * @param operation     the operation of the call
+     * @param spreadsheetId the id of the spreadsheet
+     * @param sheet         the sheet name, null if the call isn't bound to one sheet
+     * @return the trace of the call
+     */
+    CallTrace start(Operation operation, String spreadsheetId, String sheet);
+}
@@ -0,0 +1,137 @@
+package com.ydanchen.handysheet.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies with log-linear buckets
+ * <p>Every power of two is split into 8 buckets, so the percentiles are within 12.5% of the recorded values
+ * whatever their magnitude, and the histogram takes a fixed 4 KB of memory
+ *
+ * @author Yevhen Danchenko
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency
+     *
+     * @param nanos the latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Number of recorded latencies
+     *
+     * @return the number of latencies
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Highest recorded latency
+     *
+     * @param unit the time unit of the result
+     * @return the highest latency, 0 if nothing is recorded
+     */
+    public long getMax(TimeUnit unit) {
+        return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Mean of the recorded latencies
+     *
+     * @param unit the time unit of the result
+     * @return the mean latency, 0 if nothing is recorded
+     */
+    public double getMean(TimeUnit unit) {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) total.sum() / recorded / unit.toNanos(1);
+    }
+
+    /**
+     * Latency at the percentile, e.g. 99 for the latency 99% of the calls don't exceed
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @param unit       the time unit of the result
+     * @return the upper bound of the bucket the percentile falls in, 0 if nothing is recorded
+     */
+    public long getPercentile(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile should be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            recorded += snapshot[i];
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS && recorded > 0; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return unit.convert(Math.min(upperBoundOf(i), max.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d p50=%dms p90=%dms p99=%dms max=%dms", getCount(),
+                getPercentile(50, TimeUnit.MILLISECONDS), getPercentile(90, TimeUnit.MILLISECONDS),
+                getPercentile(99, TimeUnit.MILLISECONDS), getMax(TimeUnit.MILLISECONDS));
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Gets the bucket of the value
+     *
+     * @param value the non-negative value
+     * @return the index of the bucket
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the highest value of the bucket
+     *
+     * @param bucket the index of the bucket
+     * @return the highest value which falls in the bucket
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long upper = ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
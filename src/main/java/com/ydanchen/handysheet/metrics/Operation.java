@@ -0,0 +1,49 @@
+package com.ydanchen.handysheet.metrics;
+
+/**
+ * The operations the API calls are recorded under
+ *
+ * @author Yevhen Danchenko
+ */
+public enum Operation {
+    /**
+     * Reading values: values.get and values.batchGet
+     */
+    GET_VALUES,
+    /**
+     * Writing values: values.update and values.batchUpdate
+     */
+    WRITE_VALUES,
+    /**
+     * Appending values: values.append
+     */
+    APPEND_VALUES,
+    /**
+     * Inserting empty rows or columns
+     */
+    INSERT_EMPTY,
+    /**
+     * Deleting rows or columns
+     */
+    DELETE,
+    /**
+     * Sorting a range
+     */
+    SORT,
+    /**
+     * Merging cells
+     */
+    MERGE_CELLS,
+    /**
+     * Reading the sheet properties
+     */
+    GET_SHEETS,
+    /**
+     * Sending the queued structural operations of a batch, see {@code SpreadSheet.commit()}
+     */
+    BATCH_UPDATE,
+    /**
+     * Reading the modified time of the spreadsheet file from the Drive API
+     */
+    GET_MODIFIED_TIME
+}
@@ -0,0 +1,114 @@
+package com.ydanchen.handysheet.scheduling;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter which adapts its rate to the throttling signals of the API
+ * <p>The rate is halved every time a request is throttled, down to the minimum rate,
+ * and grows back additively with every successful request, up to the maximum rate.
+ * The bucket allows bursts up to its capacity, so per-minute quotas can be used in full
+ *
+ * @author Yevhen Danchenko
+ */
+public class AdaptiveRateLimiter {
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double maxRate;
+    private final double minRate;
+    private final double increaseStep;
+    private final double capacity;
+    private double rate;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Constructor
+     *
+     * @param maxRate  the maximum number of permits per second
+     * @param minRate  the minimum number of permits per second the rate can be lowered to
+     * @param capacity the maximum number of permits which can be accumulated for a burst. Can't be lower than 1
+     */
+    public AdaptiveRateLimiter(double maxRate, double minRate, double capacity) {
+        if (minRate <= 0 || maxRate < minRate || capacity < 1) {
+            throw new IllegalArgumentException("Invalid rate limits: " + minRate + ".." + maxRate + ", " + capacity);
+        }
+        this.maxRate = maxRate;
+        this.minRate = minRate;
+        this.capacity = capacity;
+        this.increaseStep = maxRate / capacity;
+        this.rate = maxRate;
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Takes one permit, waiting until it is available
+     *
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedIOException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a rate limit permit");
+            }
+        }
+    }
+
+    /**
+     * Lowers the rate after the API has throttled a request
+     */
+    public synchronized void onThrottled() {
+        refill();
+        rate = Math.max(minRate, rate * DECREASE_FACTOR);
+        tokens = Math.min(tokens, 0);
+    }
+
+    /**
+     * Raises the rate after a request has succeeded
+     */
+    public synchronized void onSuccess() {
+        if (rate < maxRate) {
+            refill();
+            rate = Math.min(maxRate, rate + increaseStep);
+        }
+    }
+
+    /**
+     * Current rate
+     *
+     * @return the number of permits per second currently allowed
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Takes one permit, possibly in advance
+     *
+     * @return the time to wait until the permit becomes valid, in nanoseconds
+     */
+    private synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Adds the tokens accumulated since the last refill
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (double) (now - refilledAt) / NANOS_PER_SECOND * rate);
+        refilledAt = now;
+    }
+}
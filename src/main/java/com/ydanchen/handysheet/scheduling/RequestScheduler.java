@@ -0,0 +1,337 @@
+package com.ydanchen.handysheet.scheduling;
+
+import com.google.api.client.googleapis.services.AbstractGoogleClient;
+import com.google.api.client.googleapis.services.AbstractGoogleClientRequest;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.ydanchen.handysheet.metrics.CallTrace;
+import com.ydanchen.handysheet.metrics.CountingInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends API requests within the rate limit and retries the failed ones
+ * <p>Every attempt takes a permit from an {@link AdaptiveRateLimiter}: GET requests from the read limiter,
+ * the others from the write one, as the Sheets API has separate read and write quotas. Throttled attempts (429)
+ * lower the rate of the limiter, successful ones raise it back, so the sustained throughput
+ * stays close to the quota instead of bursting and failing.
+ * Use {@link #forService(AbstractGoogleClient)} to share one scheduler between all clients
+ * authorized with the same credential, as the Sheets quotas are enforced per user
+ *
+ * @author Yevhen Danchenko
+ */
+public class RequestScheduler {
+    /**
+     * Default sustained rate of each of the reads and the writes: the per-user quota of 60 requests per minute
+     */
+    public static final double DEFAULT_MAX_RATE = 1.0;
+    /**
+     * Default burst of each of the reads and the writes: a full minute of the per-user quota
+     */
+    public static final double DEFAULT_CAPACITY = 60;
+    private static final double DEFAULT_MIN_RATE = 0.05;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 500;
+    private static final long DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(32);
+
+    private static final String GET = "GET";
+
+    private static final Map<Object, RequestScheduler> SHARED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final AdaptiveRateLimiter readLimiter;
+    private final AdaptiveRateLimiter writeLimiter;
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Constructor. Reads and writes take their permits from the same limiter
+     *
+     * @param rateLimiter the limiter every attempt takes a permit from
+     * @param retryPolicy the policy of the retries
+     */
+    public RequestScheduler(AdaptiveRateLimiter rateLimiter, RetryPolicy retryPolicy) {
+        this(rateLimiter, rateLimiter, retryPolicy);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param readLimiter  the limiter the attempts of the GET requests take a permit from, null for no limit
+     * @param writeLimiter the limiter the attempts of the other requests take a permit from, null for no limit
+     * @param retryPolicy  the policy of the retries
+     */
+    public RequestScheduler(AdaptiveRateLimiter readLimiter, AdaptiveRateLimiter writeLimiter,
+                            RetryPolicy retryPolicy) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Creates a scheduler with the default read and write rate limits and the default retry policy
+     *
+     * @return new instance of the {@link RequestScheduler}
+     */
+    public static RequestScheduler withDefaults() {
+        return new RequestScheduler(
+                new AdaptiveRateLimiter(DEFAULT_MAX_RATE, DEFAULT_MIN_RATE, DEFAULT_CAPACITY),
+                new AdaptiveRateLimiter(DEFAULT_MAX_RATE, DEFAULT_MIN_RATE, DEFAULT_CAPACITY),
+                defaultRetryPolicy());
+    }
+
+    /**
+     * Creates a scheduler without a rate limit, which only retries with the default retry policy
+     *
+     * @return new instance of the {@link RequestScheduler}
+     */
+    public static RequestScheduler unlimited() {
+        return new RequestScheduler(null, null, defaultRetryPolicy());
+    }
+
+    /**
+     * Gets the scheduler shared by all clients with the same credential, creating it with the defaults
+     * <p>The credential is the request initializer of the client. Clients without one share the scheduler
+     * only with themselves
+     *
+     * @param service the API client
+     * @return the shared instance of the {@link RequestScheduler}
+     */
+    public static RequestScheduler forService(AbstractGoogleClient service) {
+        HttpRequestInitializer initializer = service.getRequestFactory().getInitializer();
+        return SHARED.computeIfAbsent(initializer != null ? initializer : service, key -> withDefaults());
+    }
+
+    /**
+     * Sends the request, waiting for the rate limit and retrying the retryable failures
+     *
+     * @param request    the request to send
+     * @param idempotent true if repeating the request can't change the result, see {@link RetryPolicy}
+     * @param <T>        the type of the response
+     * @return the response
+     * @throws IOException the failure of the last attempt
+     */
+    public <T> T execute(AbstractGoogleClientRequest<T> request, boolean idempotent) throws IOException {
+        return execute(request, idempotent, CallTrace.NOOP);
+    }
+
+    /**
+     * Sends the request like {@link #execute(AbstractGoogleClientRequest, boolean)}, reporting the retries
+     * and the sizes of the bodies to the trace
+     *
+     * @param request    the request to send
+     * @param idempotent true if repeating the request can't change the result, see {@link RetryPolicy}
+     * @param trace      receives the events of the attempts, not ended by the scheduler
+     * @param <T>        the type of the response
+     * @return the response
+     * @throws IOException the failure of the last attempt
+     */
+    public <T> T execute(AbstractGoogleClientRequest<T> request, boolean idempotent, CallTrace trace)
+            throws IOException {
+        return send(request, () -> parse(request, request.executeUnparsed(), trace), idempotent, trace);
+    }
+
+    /**
+     * Sends the request like {@link #execute(AbstractGoogleClientRequest, boolean)}, but returns the raw response
+     * <p>Only the attempts failed before the response arrives are retried. The caller reads the body
+     * and must disconnect the response
+     *
+     * @param request    the request to send
+     * @param idempotent true if repeating the request can't change the result, see {@link RetryPolicy}
+     * @return the successful HTTP response with the unread body
+     * @throws IOException the failure of the last attempt
+     */
+    public HttpResponse executeUnparsed(AbstractGoogleClientRequest<?> request, boolean idempotent)
+            throws IOException {
+        return executeUnparsed(request, idempotent, CallTrace.NOOP);
+    }
+
+    /**
+     * Sends the request like {@link #executeUnparsed(AbstractGoogleClientRequest, boolean)}, reporting the retries
+     * and the size of the request body to the trace. The caller reports the size of the response body
+     *
+     * @param request    the request to send
+     * @param idempotent true if repeating the request can't change the result, see {@link RetryPolicy}
+     * @param trace      receives the events of the attempts, not ended by the scheduler
+     * @return the successful HTTP response with the unread body
+     * @throws IOException the failure of the last attempt
+     */
+    public HttpResponse executeUnparsed(AbstractGoogleClientRequest<?> request, boolean idempotent,
+                                        CallTrace trace) throws IOException {
+        return send(request, request::executeUnparsed, idempotent, trace);
+    }
+
+    /**
+     * Read rate limiter getter
+     *
+     * @return the limiter the attempts of the GET requests take a permit from, null if they aren't limited
+     */
+    public AdaptiveRateLimiter getReadLimiter() {
+        return readLimiter;
+    }
+
+    /**
+     * Write rate limiter getter
+     *
+     * @return the limiter the attempts of the other requests take a permit from, null if they aren't limited
+     */
+    public AdaptiveRateLimiter getWriteLimiter() {
+        return writeLimiter;
+    }
+
+    /**
+     * Current rate of the scheduler
+     *
+     * @return the lower of the current read and write rates in requests per second,
+     * {@link Double#POSITIVE_INFINITY} if neither is limited
+     */
+    public double getRate() {
+        return Math.min(rateOf(readLimiter), rateOf(writeLimiter));
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Runs the attempts, waiting for the rate limit and retrying the retryable failures
+     *
+     * @param request    the request sent by the attempts
+     * @param call       sends the request once
+     * @param idempotent true if repeating the request can't change the result
+     * @param trace      receives the events of the attempts
+     * @param <R>        the type of the response
+     * @return the response
+     * @throws IOException the failure of the last attempt
+     */
+    private <R> R send(AbstractGoogleClientRequest<?> request, Attempt<R> call, boolean idempotent,
+                       CallTrace trace) throws IOException {
+        AdaptiveRateLimiter rateLimiter = GET.equals(request.getRequestMethod()) ? readLimiter : writeLimiter;
+        for (int attempt = 1; ; attempt++) {
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            try {
+                R response = call.run();
+                if (rateLimiter != null) {
+                    rateLimiter.onSuccess();
+                }
+                return response;
+            } catch (IOException e) {
+                int statusCode = RetryPolicy.statusCode(e);
+                if (statusCode == RetryPolicy.TOO_MANY_REQUESTS && rateLimiter != null) {
+                    rateLimiter.onThrottled();
+                }
+                if (!retryPolicy.shouldRetry(e, attempt, idempotent)) {
+                    throw e;
+                }
+                trace.onRetry(statusCode);
+                sleep(retryPolicy.backoffMillis(attempt));
+            } finally {
+                if (trace != CallTrace.NOOP) {
+                    trace.onRequestBytes(contentLength(request));
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the default retry policy
+     *
+     * @return new instance of the {@link RetryPolicy}
+     */
+    private static RetryPolicy defaultRetryPolicy() {
+        return new RetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Gets the current rate of the limiter
+     *
+     * @param rateLimiter the limiter, might be null
+     * @return the rate, {@link Double#POSITIVE_INFINITY} if there is no limiter
+     */
+    private static double rateOf(AdaptiveRateLimiter rateLimiter) {
+        return rateLimiter == null ? Double.POSITIVE_INFINITY : rateLimiter.getRate();
+    }
+
+    /**
+     * Parses the response body like the API client does, counting its bytes
+     *
+     * @param request  the sent request
+     * @param response the successful response
+     * @param trace    receives the size of the body
+     * @param <T>      the type of the response
+     * @return the parsed response, null if it has no body
+     * @throws IOException if the body can't be read or parsed
+     */
+    private static <T> T parse(AbstractGoogleClientRequest<T> request, HttpResponse response, CallTrace trace)
+            throws IOException {
+        InputStream content = response.getContent();
+        if (content == null) {
+            return null;
+        }
+        CountingInputStream counting = new CountingInputStream(content);
+        try {
+            return response.getRequest().getParser()
+                    .parseAndClose(counting, response.getContentCharset(), request.getResponseClass());
+        } finally {
+            trace.onResponseBytes(counting.getCount());
+        }
+    }
+
+    /**
+     * Gets the size of the request body
+     * <p>The length is computed once per request and cached by the content. Unless the HTTP client
+     * has computed it already, the body is serialized once more to count the bytes, so it is only done for traced calls
+     *
+     * @param request the request
+     * @return the size of the body before compression, 0 if it has no body or the size is unknown
+     */
+    private static long contentLength(AbstractGoogleClientRequest<?> request) {
+        HttpContent content = request.getHttpContent();
+        if (content == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, content.getLength());
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Waits before the next attempt
+     *
+     * @param millis the time to wait
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * One attempt to send a request
+     *
+     * @param <R> the type of the response
+     */
+    @FunctionalInterface
+    private interface Attempt<R> {
+        /**
+         * Sends the request
+         *
+         * @return the response
+         * @throws IOException might be thrown
+         */
+        R run() throws IOException;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ydanchen.handysheet.scheduling;
+
+import com.google.api.client.http.HttpResponseException;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed requests are retried and how long to wait before the next attempt
+ * <p>Uses exponential backoff with full jitter: the delay before attempt {@code n} is a random value
+ * between 0 and {@code min(maxBackoff, initialBackoff * 2^(n-1))}
+ *
+ * @author Yevhen Danchenko
+ */
+public class RetryPolicy {
+    /**
+     * HTTP status code of the throttled requests
+     */
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    /**
+     * Constructor
+     *
+     * @param maxAttempts          the maximum number of attempts, including the first one. Can't be lower than 1
+     * @param initialBackoffMillis the upper bound of the delay before the first retry, in milliseconds
+     * @param maxBackoffMillis     the upper bound of any delay, in milliseconds
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Attempts can't be lower than 1: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Policy which never retries
+     *
+     * @return new instance of the {@link RetryPolicy}
+     */
+    public static RetryPolicy noRetries() {
+        return new RetryPolicy(1, 0, 0);
+    }
+
+    /**
+     * Checks whether the failed attempt should be retried
+     * <p>Throttled requests (429) are always safe to retry, as the API rejects them before doing anything.
+     * Server errors (500, 502, 503, 504) are retried only for idempotent requests,
+     * as the failed request might have been applied
+     *
+     * @param e          the failure of the attempt
+     * @param attempt    the number of the failed attempt, starting from 1
+     * @param idempotent true if repeating the request can't change the result, e.g. reads and value updates
+     * @return true if the request should be sent again
+     */
+    public boolean shouldRetry(IOException e, int attempt, boolean idempotent) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        int status = statusCode(e);
+        return status == TOO_MANY_REQUESTS || (idempotent && isServerError(status));
+    }
+
+    /**
+     * Computes a random delay before the next attempt
+     *
+     * @param attempt the number of the failed attempt, starting from 1
+     * @return the delay in milliseconds
+     */
+    public long backoffMillis(int attempt) {
+        long bound = initialBackoffMillis << Math.min(attempt - 1, 30);
+        bound = bound <= 0 || bound > maxBackoffMillis ? maxBackoffMillis : bound;
+        return bound <= 0 ? 0 : ThreadLocalRandom.current().nextLong(bound + 1);
+    }
+
+    /**
+     * Gets the HTTP status code of a failure
+     *
+     * @param e the failure
+     * @return the status code, or 0 if the failure is not an HTTP error response
+     */
+    public static int statusCode(IOException e) {
+        return e instanceof HttpResponseException ? ((HttpResponseException) e).getStatusCode() : 0;
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Checks whether the status code means a transient server error
+     *
+     * @param status the HTTP status code
+     * @return true for 500, 502, 503 and 504
+     */
+    private static boolean isServerError(int status) {
+        return status == 500 || status == 502 || status == 503 || status == 504;
+    }
+}
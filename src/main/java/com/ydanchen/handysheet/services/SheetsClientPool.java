@@ -0,0 +1,276 @@
+package com.ydanchen.handysheet.services;
+
+import com.google.api.client.http.HttpRequestFactory;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.sheets.v4.Sheets;
+import com.ydanchen.handysheet.scheduling.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of Sheets API clients authorized with different credentials
+ * <p>The Sheets quotas are enforced per user, so a pool of N service accounts sustains roughly N times
+ * the throughput of one. Every client keeps its own {@link RequestScheduler}, so the rate limit, the throttling
+ * and the retries are accounted per credential. A call is routed to the least-loaded client: the one with
+ * the fewest calls in flight relative to the current rate of its limiter. Calls whose order matters
+ * (writes and structural operations) stick to one client per spreadsheet, so they are sent in the order
+ * of one scheduler. Every credential must have access to the spreadsheets used through the pool
+ *
+ * @author Yevhen Danchenko
+ */
+public class SheetsClientPool {
+    private final List<Client> clients;
+    private final Map<String, Client> stickyClients = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param clients the clients of the pool
+     */
+    private SheetsClientPool(List<Client> clients) {
+        this.clients = Collections.unmodifiableList(clients);
+    }
+
+    /**
+     * Create a pool of the clients, each using the scheduler shared by the clients with the same credential
+     *
+     * @param services authorized Sheets API client services, one per credential
+     * @return new instance of the {@link SheetsClientPool}
+     */
+    public static SheetsClientPool of(Sheets... services) {
+        Builder builder = builder();
+        for (Sheets service : services) {
+            builder.add(service);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Create a builder of the pool
+     *
+     * @return new instance of the {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Take a client for one API call
+     * <p>The client must be given back with {@link #release(Client)} once the call is done
+     *
+     * @param spreadsheetId the id of the spreadsheet the call is sent to
+     * @param ordered       true to route the call to the client the spreadsheet sticks to
+     * @return the client to send the call with
+     */
+    public Client acquire(String spreadsheetId, boolean ordered) {
+        Client client;
+        if (clients.size() == 1) {
+            client = clients.get(0);
+        } else if (ordered && spreadsheetId != null) {
+            client = stickyClients.computeIfAbsent(spreadsheetId, id -> leastLoaded());
+        } else {
+            client = leastLoaded();
+        }
+        client.inFlight.incrementAndGet();
+        return client;
+    }
+
+    /**
+     * Give back the client after the API call is done
+     *
+     * @param client the client taken with {@link #acquire(String, boolean)}
+     */
+    public void release(Client client) {
+        client.inFlight.decrementAndGet();
+        client.calls.increment();
+    }
+
+    /**
+     * Clients getter
+     *
+     * @return the clients of the pool, in the order they were added
+     */
+    public List<Client> getClients() {
+        return clients;
+    }
+
+    /**
+     * Number of clients
+     *
+     * @return the number of clients of the pool
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Find the client with the lowest load
+     * <p>The load is the number of calls in flight, including the new one, divided by the current rate
+     * of the limiter. A throttled credential gets fewer calls until its rate recovers.
+     * Ties go to the client with fewer calls made
+     *
+     * @return the least-loaded client
+     */
+    private Client leastLoaded() {
+        Client best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (Client client : clients) {
+            double load = (client.inFlight.get() + 1) / client.getRate();
+            if (best == null || load < bestLoad || load == bestLoad && client.getCallCount() < best.getCallCount()) {
+                best = client;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * One client of the pool with its scheduler and load
+     */
+    public static final class Client {
+        private final Sheets service;
+        private final RequestScheduler scheduler;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder calls = new LongAdder();
+        private volatile Drive drive;
+
+        /**
+         * Constructor
+         *
+         * @param service   an authorized Sheets API client service
+         * @param scheduler the scheduler the calls of the client are sent through
+         */
+        private Client(Sheets service, RequestScheduler scheduler) {
+            this.service = service;
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * Service getter
+         *
+         * @return the authorized Sheets API client service
+         */
+        public Sheets getService() {
+            return service;
+        }
+
+        /**
+         * Drive getter
+         * <p>The Drive API client shares the transport and the credential of the Sheets client.
+         * It is used to read the file metadata of the spreadsheets, e.g. their modified time,
+         * which needs a Drive scope, e.g. {@code drive.metadata.readonly}
+         *
+         * @return the Drive API client, created on the first call
+         */
+        public Drive getDrive() {
+            Drive result = drive;
+            if (result == null) {
+                HttpRequestFactory requestFactory = service.getRequestFactory();
+                result = new Drive.Builder(requestFactory.getTransport(), service.getJsonFactory(),
+                        requestFactory.getInitializer())
+                        .setApplicationName(service.getApplicationName())
+                        .build();
+                drive = result;
+            }
+            return result;
+        }
+
+        /**
+         * Scheduler getter
+         *
+         * @return the scheduler the calls of the client are sent through
+         */
+        public RequestScheduler getScheduler() {
+            return scheduler;
+        }
+
+        /**
+         * Number of calls in flight
+         *
+         * @return the number of calls taken and not given back yet
+         */
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Number of calls made
+         *
+         * @return the number of calls given back
+         */
+        public long getCallCount() {
+            return calls.sum();
+        }
+
+        /**
+         * Current rate of the credential
+         *
+         * @return the number of requests per second the limiters of the client currently allow,
+         * the lower of the read and the write rates
+         */
+        public double getRate() {
+            return scheduler.getRate();
+        }
+
+        @Override
+        public String toString() {
+            return "Client{inFlight=" + getInFlight() + ", calls=" + getCallCount() + ", rate=" + getRate() + "}";
+        }
+    }
+
+    /**
+     * Builds a pool of clients
+     */
+    public static final class Builder {
+        private final List<Client> clients = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a client using the scheduler shared by the clients with the same credential,
+         * see {@link RequestScheduler#forService}
+         *
+         * @param service an authorized Sheets API client service
+         * @return current instance of the {@link Builder}
+         */
+        public Builder add(Sheets service) {
+            return add(service, RequestScheduler.forService(service));
+        }
+
+        /**
+         * Add a client
+         *
+         * @param service   an authorized Sheets API client service
+         * @param scheduler the scheduler the calls of the client are sent through
+         * @return current instance of the {@link Builder}
+         */
+        public Builder add(Sheets service, RequestScheduler scheduler) {
+            clients.add(new Client(service, scheduler));
+            return this;
+        }
+
+        /**
+         * Build the pool
+         *
+         * @return new instance of the {@link SheetsClientPool}
+         * @throws IllegalStateException if no client was added
+         */
+        public SheetsClientPool build() {
+            if (clients.isEmpty()) {
+                throw new IllegalStateException("The pool needs at least one client");
+            }
+            return new SheetsClientPool(new ArrayList<>(clients));
+        }
+    }
+}
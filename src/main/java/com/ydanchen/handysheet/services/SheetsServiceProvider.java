@@ -5,21 +5,40 @@ import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInsta
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
+import com.google.api.client.googleapis.GoogleUtils;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
 import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.drive.DriveScopes;
 import com.google.api.services.sheets.v4.Sheets;
 import com.ydanchen.handysheet.SpreadSheet;
+import com.ydanchen.handysheet.emulator.SheetsEmulator;
+import com.ydanchen.handysheet.scheduling.RequestScheduler;
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class creates an authorized Sheets API client service.
+ * <p>Nothing is initialized when the class is loaded: the transport and the credential store
+ * are created with the first client that needs them
  */
 public class SheetsServiceProvider {
     /**
@@ -42,48 +61,72 @@ public class SheetsServiceProvider {
     private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
 
     /**
-     * Global instance of the {@link com.google.api.client.util.store.FileDataStoreFactory}
+     * Client secrets of the interactive authorization, looked up on the classpath
      */
-    private static FileDataStoreFactory DATA_STORE_FACTORY;
+    private static final String CLIENT_SECRETS_RESOURCE = "/sheet_client_secret.json";
 
     /**
-     * Global instance of the HTTP transport.
+     * Global instance of the HTTP transport, created on first use.
      */
-    private static HttpTransport HTTP_TRANSPORT;
+    private static HttpTransport httpTransport;
 
-    static {
-        try {
-            HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-            DATA_STORE_FACTORY = new FileDataStoreFactory(DATA_STORE_DIR);
-        } catch (Throwable t) {
-            t.printStackTrace();
-            System.exit(1);
+    /**
+     * Gets the shared default HTTP transport, creating it on first use
+     *
+     * @return the shared {@code HttpURLConnection} based transport
+     * @throws IOException if the trusted certificates can't be loaded
+     */
+    private static synchronized HttpTransport defaultTransport() throws IOException {
+        if (httpTransport == null) {
+            try {
+                httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Can't load the trusted certificates", e);
+            }
         }
+        return httpTransport;
     }
 
     /**
      * Creates an authorized Credential object.
+     * <p>Opens the browser to ask the user for the consent on the first run and stores the tokens
+     * in {@code ~/.credentials}, so it requires an interactive session. Use the service account
+     * or pre-provisioned credentials of the {@link Builder} on servers and in containers
      *
+     * @param transport the HTTP transport to request the tokens with
      * @return an authorized Credential object.
      * @throws IOException will be thrown if occurs
      */
-    private static Credential authorize() throws IOException {
+    private static Credential authorize(HttpTransport transport) throws IOException {
         // Load client secrets.
         InputStream in =
-                SpreadSheet.class.getResourceAsStream("/sheet_client_secret.json");
+                SpreadSheet.class.getResourceAsStream(CLIENT_SECRETS_RESOURCE);
+        if (in == null) {
+            throw new IOException("Client secrets not found on the classpath: " + CLIENT_SECRETS_RESOURCE);
+        }
         GoogleClientSecrets clientSecrets =
-                GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in));
+                GoogleClientSecrets.load(JSON_FACTORY, new InputStreamReader(in, StandardCharsets.UTF_8));
 
         // Build flow and trigger user authorization request.
         GoogleAuthorizationCodeFlow flow =
                 new GoogleAuthorizationCodeFlow.Builder(
-                        HTTP_TRANSPORT, JSON_FACTORY, clientSecrets, SCOPES)
-                        .setDataStoreFactory(DATA_STORE_FACTORY)
+                        transport, JSON_FACTORY, clientSecrets, SCOPES)
+                        .setDataStoreFactory(new FileDataStoreFactory(DATA_STORE_DIR))
                         .setAccessType("offline")
                         .build();
         return new AuthorizationCodeInstalledApp(flow, new LocalServerReceiver()).authorize("user");
     }
 
+    /**
+     * Adds the scopes of the library to a credential which requires them, like a service account
+     *
+     * @param credential the credential
+     * @return the scoped credential
+     */
+    private static Credential scoped(GoogleCredential credential) {
+        return credential.createScopedRequired() ? credential.createScoped(SCOPES) : credential;
+    }
+
     /**
      * Build and return an authorized Sheets API client service.
      *
@@ -92,9 +135,351 @@ public class SheetsServiceProvider {
      * @throws IOException will be thrown if occurs
      */
     public static Sheets createSheetsService(final String applicationName) throws IOException {
-        Credential credential = authorize();
-        return new Sheets.Builder(HTTP_TRANSPORT, JSON_FACTORY, credential)
+        return builder(applicationName).build();
+    }
+
+    /**
+     * Build a Sheets API client service bound to the in-memory emulator, without network and credentials
+     *
+     * @param applicationName the name of the application
+     * @param emulator        the emulator to send the calls to
+     * @return a Sheets API client service
+     */
+    public static Sheets createEmulatedService(final String applicationName, SheetsEmulator emulator) {
+        return new Sheets.Builder(emulator, JSON_FACTORY, null)
                 .setApplicationName(applicationName)
                 .build();
     }
+
+    /**
+     * Build a pool of one Sheets API client service bound to the in-memory emulator
+     * <p>The client isn't rate limited, see {@link RequestScheduler#unlimited()}: the emulator applies
+     * its own quotas if it has any. Clients made with {@link #createEmulatedService} directly get the default
+     * rate limits of the real API
+     *
+     * @param applicationName the name of the application
+     * @param emulator        the emulator to send the calls to
+     * @return new instance of the {@link SheetsClientPool}
+     */
+    public static SheetsClientPool createEmulatedClients(final String applicationName, SheetsEmulator emulator) {
+        return SheetsClientPool.builder()
+                .add(createEmulatedService(applicationName, emulator), RequestScheduler.unlimited())
+                .build();
+    }
+
+    /**
+     * Create a builder to tune the HTTP transport of the Sheets API client service
+     *
+     * @param applicationName the name of the application
+     * @return new instance of the {@link Builder}
+     */
+    public static Builder builder(final String applicationName) {
+        return new Builder(applicationName);
+    }
+
+    /**
+     * Builds an authorized Sheets API client service with a tuned HTTP transport
+     * <p>By default the client uses the shared {@code HttpURLConnection} based transport.
+     * The Apache transport keeps a pool of connections, so concurrent calls reuse warm TLS connections;
+     * the pool settings only apply to it. Timeouts and compression apply to both transports.
+     * <p>By default the user is asked for the consent in the browser. For headless servers and containers
+     * use a service account, the application default credentials or a pre-provisioned credential instead.
+     * Their access tokens are refreshed in the background before they expire, see {@link #refreshTokensAhead}
+     */
+    public static final class Builder {
+        private static final int DEFAULT_TIMEOUT_MILLIS = 20000;
+        private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+        private static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+        private static final long DEFAULT_REFRESH_LEAD_SECONDS = TimeUnit.MINUTES.toSeconds(5);
+        private static final long MIN_REFRESH_LEAD_SECONDS = 60;
+
+        private final String applicationName;
+        private CredentialFactory credentialFactory;
+        private long refreshLeadSeconds = DEFAULT_REFRESH_LEAD_SECONDS;
+        private boolean apacheTransport;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+        private int connectTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        private int readTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+        private boolean gzipRequests = true;
+        private boolean gzipResponses = true;
+
+        /**
+         * Constructor
+         *
+         * @param applicationName the name of the application
+         */
+        private Builder(String applicationName) {
+            this.applicationName = applicationName;
+        }
+
+        /**
+         * Authorize with the JSON key of a service account, without user interaction
+         * <p>The spreadsheets should be shared with the e-mail of the service account.
+         * A JSON of an authorized user with a refresh token, as written by {@code gcloud}, is accepted as well
+         *
+         * @param keyFile the path to the JSON key file
+         * @return current instance of the {@link Builder}
+         */
+        public Builder withServiceAccount(Path keyFile) {
+            this.credentialFactory = transport -> {
+                try (InputStream in = Files.newInputStream(keyFile)) {
+                    return scoped(GoogleCredential.fromStream(in, transport, JSON_FACTORY));
+                }
+            };
+            return this;
+        }
+
+        /**
+         * Authorize with the JSON key of a service account, without user interaction
+         *
+         * @param keyJson the JSON key, read and closed by {@link #build()}
+         * @return current instance of the {@link Builder}
+         * @see #withServiceAccount(Path)
+         */
+        public Builder withServiceAccount(InputStream keyJson) {
+            this.credentialFactory = transport -> {
+                try (InputStream in = keyJson) {
+                    return scoped(GoogleCredential.fromStream(in, transport, JSON_FACTORY));
+                }
+            };
+            return this;
+        }
+
+        /**
+         * Authorize with the application default credentials: the key file named by the
+         * {@code GOOGLE_APPLICATION_CREDENTIALS} environment variable, the {@code gcloud} credentials
+         * or the service account of the Google Cloud environment the application runs in
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder withApplicationDefaultCredentials() {
+            this.credentialFactory = transport -> scoped(GoogleCredential.getApplicationDefault(transport, JSON_FACTORY));
+            return this;
+        }
+
+        /**
+         * Authorize with a credential obtained elsewhere, e.g. built from a stored refresh token
+         *
+         * @param credential the credential
+         * @return current instance of the {@link Builder}
+         */
+        public Builder withCredential(Credential credential) {
+            this.credentialFactory = transport -> credential;
+            return this;
+        }
+
+        /**
+         * Proactive token refresh setter
+         * <p>The access token is refreshed in the background the given time before it expires, and the first
+         * token is requested in the background right after {@link #build()}. The client refreshes an expiring token
+         * itself only within the last minute, on the request which then waits for it, so the lead should be longer.
+         * The lead is capped at half of the lifetime of the token
+         *
+         * @param lead how long before the expiration the token is refreshed, 0 to refresh it on demand only
+         * @param unit the time unit of the lead
+         * @return current instance of the {@link Builder}
+         */
+        public Builder refreshTokensAhead(long lead, TimeUnit unit) {
+            long seconds = unit.toSeconds(lead);
+            this.refreshLeadSeconds = seconds <= 0 ? 0 : Math.max(MIN_REFRESH_LEAD_SECONDS, seconds);
+            return this;
+        }
+
+        /**
+         * Use the Apache HTTP client transport with a pool of connections
+         *
+         * @return current instance of the {@link Builder}
+         */
+        public Builder withApacheTransport() {
+            this.apacheTransport = true;
+            return this;
+        }
+
+        /**
+         * Maximum connections per route setter. Applies to the Apache transport only
+         *
+         * @param maxConnectionsPerRoute the maximum number of pooled connections to one host.
+         *                               Requests to the Sheets API all go to the same host
+         * @return current instance of the {@link Builder}
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Maximum connections setter. Applies to the Apache transport only
+         *
+         * @param maxConnectionsTotal the maximum number of pooled connections to all hosts
+         * @return current instance of the {@link Builder}
+         */
+        public Builder maxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+            return this;
+        }
+
+        /**
+         * Connect timeout setter
+         *
+         * @param connectTimeoutMillis the timeout to establish a connection in milliseconds, 0 for no timeout
+         * @return current instance of the {@link Builder}
+         */
+        public Builder connectTimeout(int connectTimeoutMillis) {
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Read timeout setter
+         *
+         * @param readTimeoutMillis the timeout to read data from a connection in milliseconds, 0 for no timeout
+         * @return current instance of the {@link Builder}
+         */
+        public Builder readTimeout(int readTimeoutMillis) {
+            this.readTimeoutMillis = readTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Request compression setter
+         *
+         * @param gzipRequests true to send the request bodies gzip-compressed
+         * @return current instance of the {@link Builder}
+         */
+        public Builder gzipRequests(boolean gzipRequests) {
+            this.gzipRequests = gzipRequests;
+            return this;
+        }
+
+        /**
+         * Response compression setter
+         *
+         * @param gzipResponses true to accept gzip-compressed responses
+         * @return current instance of the {@link Builder}
+         */
+        public Builder gzipResponses(boolean gzipResponses) {
+            this.gzipResponses = gzipResponses;
+            return this;
+        }
+
+        /**
+         * Build and return an authorized Sheets API client service
+         * <p>The credentials are loaded but no token is requested on the calling thread, unless the user
+         * is asked for the consent
+         *
+         * @return an authorized Sheets API client service
+         * @throws IOException will be thrown if occurs
+         */
+        public Sheets build() throws IOException {
+            HttpTransport transport = buildTransport();
+            Credential credential = credentialFactory != null
+                    ? credentialFactory.create(transport)
+                    : authorize(transport);
+            if (refreshLeadSeconds > 0) {
+                TokenRefresher.schedule(credential, refreshLeadSeconds);
+            }
+            return new Sheets.Builder(transport, JSON_FACTORY, new TunedRequestInitializer(credential, this))
+                    .setApplicationName(applicationName)
+                    .build();
+        }
+
+        /**
+         * Creates the HTTP transport
+         *
+         * @return the shared default transport, or a new pooled Apache transport
+         * @throws IOException will be thrown if occurs
+         */
+        private HttpTransport buildTransport() throws IOException {
+            if (!apacheTransport) {
+                return defaultTransport();
+            }
+            try {
+                ApacheHttpTransport.Builder builder = new ApacheHttpTransport.Builder()
+                        .trustCertificates(GoogleUtils.getCertificateTrustStore());
+                HttpParams params = builder.getHttpParams();
+                ConnManagerParams.setMaxConnectionsPerRoute(params, new ConnPerRouteBean(maxConnectionsPerRoute));
+                ConnManagerParams.setMaxTotalConnections(params, maxConnectionsTotal);
+                HttpConnectionParams.setConnectionTimeout(params, connectTimeoutMillis);
+                HttpConnectionParams.setSoTimeout(params, readTimeoutMillis);
+                return builder.build();
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Can't load the trusted certificates", e);
+            }
+        }
+    }
+
+    /**
+     * Creates the credential of a client
+     */
+    @FunctionalInterface
+    private interface CredentialFactory {
+        /**
+         * Creates the credential
+         *
+         * @param transport the HTTP transport to request the tokens with
+         * @return the credential
+         * @throws IOException will be thrown if occurs
+         */
+        Credential create(HttpTransport transport) throws IOException;
+    }
+
+    /**
+     * Authorizes the requests and applies the settings of the {@link Builder}
+     * <p>Initializers wrapping the same credential are equal, so all clients authorized with it
+     * are recognized as one user, e.g. by {@link com.ydanchen.handysheet.scheduling.RequestScheduler#forService}
+     */
+    private static final class TunedRequestInitializer implements HttpRequestInitializer {
+        private final HttpRequestInitializer credential;
+        private final int connectTimeoutMillis;
+        private final int readTimeoutMillis;
+        private final boolean gzipRequests;
+        private final boolean gzipResponses;
+
+        /**
+         * Constructor
+         *
+         * @param credential the credential to authorize the requests with
+         * @param builder    the builder to take the settings from
+         */
+        private TunedRequestInitializer(HttpRequestInitializer credential, Builder builder) {
+            this.credential = credential;
+            this.connectTimeoutMillis = builder.connectTimeoutMillis;
+            this.readTimeoutMillis = builder.readTimeoutMillis;
+            this.gzipRequests = builder.gzipRequests;
+            this.gzipResponses = builder.gzipResponses;
+        }
+
+        @Override
+        public void initialize(HttpRequest request) throws IOException {
+            credential.initialize(request);
+            request.setConnectTimeout(connectTimeoutMillis);
+            request.setReadTimeout(readTimeoutMillis);
+            if (!gzipResponses) {
+                request.getHeaders().setAcceptEncoding(null);
+            }
+            if (!gzipRequests) {
+                // the client enables compression after the initializer, so disable it right before execution
+                HttpExecuteInterceptor interceptor = request.getInterceptor();
+                request.setInterceptor(executed -> {
+                    if (interceptor != null) {
+                        interceptor.intercept(executed);
+                    }
+                    executed.setEncoding(null);
+                });
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return credential == ((TunedRequestInitializer) o).credential;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(credential);
+        }
+    }
 }
\ No newline at end of file
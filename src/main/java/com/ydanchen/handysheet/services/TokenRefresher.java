@@ -0,0 +1,134 @@
+package com.ydanchen.handysheet.services;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the access tokens of the credentials in the background, before they expire
+ * <p>The credential refreshes an expiring token itself only on the next request, which then waits
+ * for the token endpoint. Refreshing ahead keeps the tokens valid, so the requests never wait.
+ * One daemon thread serves all credentials. A failed refresh is retried after {@value #RETRY_DELAY_SECONDS} seconds.
+ * A credential stops being refreshed once it is garbage collected or can't be refreshed at all, e.g. an access token
+ * without a refresh token, or its token doesn't expire. The lead is capped at half of the lifetime of the token,
+ * so a lead longer than the lifetime doesn't make the token refreshed over and over
+ *
+ * @author Yevhen Danchenko
+ */
+final class TokenRefresher {
+    private static final String THREAD_NAME = "handysheet-token-refresh";
+    private static final long RETRY_DELAY_SECONDS = 30;
+    private static final long MIN_DELAY_SECONDS = 1;
+
+    private TokenRefresher() {
+    }
+
+    /**
+     * Starts refreshing the credential in the background. The first token is requested right away
+     *
+     * @param credential  the credential to refresh
+     * @param leadSeconds how long before the expiration the token is refreshed
+     */
+    static void schedule(Credential credential, long leadSeconds) {
+        SchedulerHolder.SCHEDULER.execute(new Refresh(credential, leadSeconds));
+    }
+
+    /**
+     * Lazy holder of the scheduler, created with the first refreshed credential
+     */
+    private static final class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    Thread thread = new Thread(runnable, THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Refreshes one credential and schedules its next refresh
+     */
+    private static final class Refresh implements Runnable {
+        private final WeakReference<Credential> credential;
+        private final long leadSeconds;
+        private long lifetimeSeconds;
+
+        /**
+         * Constructor
+         *
+         * @param credential  the credential to refresh
+         * @param leadSeconds how long before the expiration the token is refreshed
+         */
+        private Refresh(Credential credential, long leadSeconds) {
+            this.credential = new WeakReference<>(credential);
+            this.leadSeconds = leadSeconds;
+        }
+
+        @Override
+        public void run() {
+            Credential current = credential.get();
+            if (current == null) {
+                return;
+            }
+            long delay;
+            try {
+                Long expiresIn = current.getExpiresInSeconds();
+                if (expiresIn != null) {
+                    lifetimeSeconds = Math.max(lifetimeSeconds, expiresIn);
+                }
+                if (current.getAccessToken() == null || expiresIn != null && expiresIn <= lead()) {
+                    if (!current.refreshToken()) {
+                        if (!canRefresh(current)) {
+                            return;
+                        }
+                        throw new IOException("The token endpoint didn't return a token");
+                    }
+                    expiresIn = current.getExpiresInSeconds();
+                    if (expiresIn != null) {
+                        lifetimeSeconds = expiresIn;
+                    }
+                }
+                if (expiresIn == null) {
+                    return;
+                }
+                delay = Math.max(MIN_DELAY_SECONDS, expiresIn - lead());
+            } catch (IOException | RuntimeException e) {
+                delay = RETRY_DELAY_SECONDS;
+            }
+            SchedulerHolder.SCHEDULER.schedule(this, delay, TimeUnit.SECONDS);
+        }
+
+        /**
+         * Lead capped at half of the lifetime of the token seen so far
+         *
+         * @return how long before the expiration the token is refreshed, in seconds
+         */
+        private long lead() {
+            return lifetimeSeconds > 0 ? Math.min(leadSeconds, lifetimeSeconds / 2) : leadSeconds;
+        }
+
+        /**
+         * Checks whether the credential can get a new token at all
+         * <p>The credentials of subclasses, e.g. the Compute Engine ones, get their tokens without
+         * a refresh token or a private key, so they are considered refreshable
+         *
+         * @param credential the credential
+         * @return false if the credential has neither a refresh token nor a private key to get a new token with
+         */
+        private static boolean canRefresh(Credential credential) {
+            if (credential.getRefreshToken() != null) {
+                return true;
+            }
+            if (credential instanceof GoogleCredential) {
+                return ((GoogleCredential) credential).getServiceAccountPrivateKey() != null
+                        || credential.getClass() != GoogleCredential.class;
+            }
+            return credential.getClass() != Credential.class;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ydanchen.handysheet.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for the background API calls: prefetching, pipelined uploads etc.
+ *
+ * @author Yevhen Danchenko
+ */
+public final class AsyncExecutors {
+    private static final String THREAD_NAME_PREFIX = "handysheet-async-";
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Shared executor backed by a cached pool of daemon threads
+     * <p>API calls block on network I/O, so they are not run on the common fork-join pool
+     *
+     * @return the default executor
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Executor which starts a new virtual thread for each task
+     * <p>Virtual threads are available since Java 21. On earlier versions the default executor is returned
+     *
+     * @return the virtual thread executor, or the default executor if virtual threads are not supported
+     */
+    public static Executor virtualThreadExecutor() {
+        return VirtualThreadExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Checks whether the running JVM supports virtual threads
+     *
+     * @return true if {@link #virtualThreadExecutor()} runs tasks on virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreadExecutorHolder.EXECUTOR != DefaultExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Lazy holder of the default executor
+     */
+    private static final class DefaultExecutorHolder {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(daemonThreadFactory());
+    }
+
+    /**
+     * Lazy holder of the virtual thread executor.
+     * Looked up reflectively, as the library is compiled for Java 8
+     */
+    private static final class VirtualThreadExecutorHolder {
+        private static final Executor EXECUTOR = newVirtualThreadExecutor();
+
+        private static Executor newVirtualThreadExecutor() {
+            try {
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return defaultExecutor();
+            }
+        }
+    }
+
+    /**
+     * Creates a factory of daemon threads, so the pending background calls don't keep the JVM alive
+     *
+     * @return the thread factory
+     */
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
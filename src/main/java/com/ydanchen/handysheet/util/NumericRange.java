@@ -4,8 +4,16 @@ import java.util.Objects;
 
 /**
  * This class represents the Range on the spreadsheet
+ * <p>Columns and rows are 1-based. {@link #UNBOUNDED} marks an omitted part of an A1 range:
+ * "A:C" has unbounded rows, "2:5" has unbounded columns and "A5:E" has an unbounded end row
  */
 public class NumericRange {
+    /**
+     * The index of an omitted column or row
+     */
+    public static final int UNBOUNDED = 0;
+
+    private String sheet;
     private int startColumn;
     private int startRow;
     private int endColumn;
@@ -20,12 +28,35 @@ public class NumericRange {
      * @param endRow      the end row oth range
      */
     public NumericRange(int startColumn, int startRow, int endColumn, int endRow) {
+        this(null, startColumn, startRow, endColumn, endRow);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param sheet       the name of the sheet, null if the range is not bound to a sheet
+     * @param startColumn the start column of the range
+     * @param startRow    the start row of the range
+     * @param endColumn   the end column of the range
+     * @param endRow      the end row oth range
+     */
+    public NumericRange(String sheet, int startColumn, int startRow, int endColumn, int endRow) {
+        this.sheet = sheet;
         this.startColumn = startColumn;
         this.startRow = startRow;
         this.endColumn = endColumn;
         this.endRow = endRow;
     }
 
+    /**
+     * Sheet getter
+     *
+     * @return the name of the sheet, or null if the range is not bound to a sheet
+     */
+    public String getSheet() {
+        return sheet;
+    }
+
     /**
      * Start Column getter
      *
@@ -62,6 +93,32 @@ public class NumericRange {
         return endRow;
     }
 
+    /**
+     * Checks whether two ranges have at least one cell in common
+     * <p>Unbounded parts extend to the edge of the sheet. The sheets of the ranges are not compared
+     *
+     * @param other the range to check
+     * @return true if the ranges overlap
+     */
+    public boolean intersects(NumericRange other) {
+        return startColumn <= end(other.endColumn) && other.startColumn <= end(endColumn) &&
+                startRow <= end(other.endRow) && other.startRow <= end(endRow);
+    }
+
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Maps an unbounded end to the largest index
+     *
+     * @param end the end column or row
+     * @return the end, or {@link Integer#MAX_VALUE} if it is unbounded
+     */
+    private static int end(int end) {
+        return end == UNBOUNDED ? Integer.MAX_VALUE : end;
+    }
+
     // =================
     // Override Methods
     // =================
@@ -71,7 +128,8 @@ public class NumericRange {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         NumericRange that = (NumericRange) o;
-        return startColumn == that.startColumn &&
+        return Objects.equals(sheet, that.sheet) &&
+                startColumn == that.startColumn &&
                 startRow == that.startRow &&
                 endColumn == that.endColumn &&
                 endRow == that.endRow;
@@ -79,11 +137,11 @@ public class NumericRange {
 
     @Override
     public int hashCode() {
-        return Objects.hash(startColumn, startRow, endColumn, endRow);
+        return Objects.hash(sheet, startColumn, startRow, endColumn, endRow);
     }
 
     @Override
     public String toString() {
-        return startColumn + ", " + startRow + ", " + endColumn + ", " + endRow;
+        return (sheet != null ? sheet + ", " : "") + startColumn + ", " + startRow + ", " + endColumn + ", " + endRow;
     }
 }
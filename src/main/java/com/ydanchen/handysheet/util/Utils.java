@@ -14,7 +14,17 @@ public final class Utils {
     private static final char CHAR_Z = 'Z';
     private static final char CHAR_0 = '0';
     private static final char CHAR_9 = '9';
+    private static final char CHAR_LOWER_A = 'a';
+    private static final char CHAR_LOWER_Z = 'z';
+    private static final char COLON = ':';
+    private static final char EXCLAMATION_MARK = '!';
+    private static final char QUOTE = '\'';
     private static final int ALPHABET_LENGTH = 26;
+    private static final int CACHED_COLUMNS = ALPHABET_LENGTH + ALPHABET_LENGTH * ALPHABET_LENGTH;
+    private static final int MAX_COLUMN = 18278;
+    private static final int MAX_COLUMN_LETTERS = 3;
+    private static final int MAX_ROW = 100_000_000;
+    private static final int MAX_CELL_LENGTH = 12;
 
     private Utils() {
     }
@@ -73,6 +83,7 @@ public final class Utils {
 
     /**
      * Converts numeric indexes to a literal range, e.g. (1, 1, 2, 2) --> A1:B2
+     * <p>{@link NumericRange#UNBOUNDED} parts are omitted, e.g. (1, 0, 3, 0) --> A:C
      *
      * @param startColumn start column index
      * @param startRow    start row index
@@ -81,101 +92,321 @@ public final class Utils {
      * @return the formatted range
      */
     public static String numericRangeToLiteral(int startColumn, int startRow, int endColumn, int endRow) {
-        return columnIndexToLetter(startColumn) + startRow + ":" + columnIndexToLetter(endColumn) + endRow;
+        StringBuilder literal = new StringBuilder(MAX_CELL_LENGTH * 2 + 1);
+        appendCell(literal, startColumn, startRow);
+        literal.append(COLON);
+        appendCell(literal, endColumn, endRow);
+        return literal.toString();
     }
 
     /**
      * Converts numeric range instance to a literal
+     * <p>The sheet name is prepended and quoted when needed, e.g. 'Sheet 1'!A1:C3
      *
      * @param range {@link NumericRange}
      * @return the formatted range, e.g. 'A1:C3'
      */
     public static String numericRangeToLiteral(NumericRange range) {
-        return numericRangeToLiteral(range.getStartColumn(),
-                range.getStartRow(),
-                range.getEndColumn(),
-                range.getEndRow());
+        String sheet = range.getSheet();
+        if (sheet == null) {
+            return numericRangeToLiteral(range.getStartColumn(),
+                    range.getStartRow(),
+                    range.getEndColumn(),
+                    range.getEndRow());
+        }
+        StringBuilder literal = new StringBuilder(sheet.length() + MAX_CELL_LENGTH * 2 + 4);
+        appendSheet(literal, sheet);
+        literal.append(EXCLAMATION_MARK);
+        appendCell(literal, range.getStartColumn(), range.getStartRow());
+        literal.append(COLON);
+        appendCell(literal, range.getEndColumn(), range.getEndRow());
+        return literal.toString();
     }
 
     /**
      * Converts literal range to a numeric
+     * <p>Parses the string in a single pass, case-insensitive. Supported forms:
+     * <ul>
+     * <li>cells: "A1:C3", single cell "B2"</li>
+     * <li>whole columns: "A:C", whole rows: "2:5"</li>
+     * <li>open-ended: "A5:E", the omitted parts are {@link NumericRange#UNBOUNDED}</li>
+     * <li>with the sheet name: "Sheet1!A1:C3", "'Sheet 1'!A:C"</li>
+     * </ul>
      *
      * @param range formatted range like 'A1:C3"
      * @return the instance of {@link NumericRange}
+     * @throws IllegalArgumentException if the range can't be parsed
      */
     public static NumericRange literalRangeToNumerical(String range) {
-        String[] tokens = range.toUpperCase().split(":");
-        int startColumn = letterToColumnIndex(getLetterPart(tokens[0]));
-        int startRow = Integer.parseInt(getNumericPart(tokens[0]));
-        int endColumn = letterToColumnIndex(getLetterPart(tokens[1]));
-        int endRow = Integer.parseInt(getNumericPart(tokens[1]));
-        return new NumericRange(startColumn, startRow, endColumn, endRow);
-    }
+        int length = range.length();
+        int position = 0;
+        String sheet = null;
+        if (length > 0 && range.charAt(0) == QUOTE) {
+            position = parseQuotedSheetEnd(range);
+            sheet = unquote(range, position);
+            if (position + 1 >= length || range.charAt(position + 1) != EXCLAMATION_MARK) {
+                throw invalidRange(range);
+            }
+            position += 2;
+        } else {
+            int separator = range.lastIndexOf(EXCLAMATION_MARK);
+            if (separator >= 0) {
+                sheet = range.substring(0, separator);
+                position = separator + 1;
+            }
+        }
 
-    // =================
-    //  Private Methods
-    // =================
+        int startColumn = 0;
+        while (position < length && isLetter(range.charAt(position))) {
+            startColumn = startColumn * ALPHABET_LENGTH + letterValue(range.charAt(position++));
+            checkBounds(startColumn, MAX_COLUMN, range);
+        }
+        int startRow = 0;
+        while (position < length && isDigit(range.charAt(position))) {
+            startRow = startRow * 10 + (range.charAt(position++) - CHAR_0);
+            checkBounds(startRow, MAX_ROW, range);
+        }
+        if (startColumn == 0 && startRow == 0) {
+            throw invalidRange(range);
+        }
+        if (position == length) {
+            return new NumericRange(sheet, startColumn, startRow, startColumn, startRow);
+        }
+        if (range.charAt(position++) != COLON) {
+            throw invalidRange(range);
+        }
+
+        int endColumn = 0;
+        while (position < length && isLetter(range.charAt(position))) {
+            endColumn = endColumn * ALPHABET_LENGTH + letterValue(range.charAt(position++));
+            checkBounds(endColumn, MAX_COLUMN, range);
+        }
+        int endRow = 0;
+        while (position < length && isDigit(range.charAt(position))) {
+            endRow = endRow * 10 + (range.charAt(position++) - CHAR_0);
+            checkBounds(endRow, MAX_ROW, range);
+        }
+        if (position != length || (endColumn == 0 && endRow == 0)
+                || (startColumn == 0) != (endColumn == 0) || (startRow == 0 && endRow != 0)) {
+            throw invalidRange(range);
+        }
+        return new NumericRange(sheet, startColumn, startRow, endColumn, endRow);
+    }
 
     /**
      * Converts column index to a letter representation, e.g. (1 -> A) or (30 -> AD)
+     * <p>The letters of the first 702 columns (A to ZZ) are cached
      *
-     * @param index index of the column
+     * @param index index of the column, from 1 to 18278 (ZZZ)
      * @return the letter representation
      */
-    private static String columnIndexToLetter(int index) {
-        int temp;
-        StringBuilder letter = new StringBuilder();
-        while (index > 0) {
-            temp = (index - 1) % ALPHABET_LENGTH;
-            letter.insert(0, (char) (temp + CHAR_A));
-            index = (index - temp - 1) / ALPHABET_LENGTH;
+    public static String columnIndexToLetter(int index) {
+        if (index < 1) {
+            throw new IllegalArgumentException("Column index can't be lower than 1: " + index);
+        }
+        if (index <= CACHED_COLUMNS) {
+            return ColumnLetters.LETTERS[index];
         }
-        return letter.toString();
+        char[] letters = new char[MAX_COLUMN_LETTERS];
+        int start = fillColumnLetters(letters, index);
+        return new String(letters, start, letters.length - start);
     }
 
     /**
-     * Converts column literal to an index, e.g. (A -> 1) or (30 -> AD)
+     * Converts column literal to an index, e.g. (A -> 1) or (AD -> 30)
      *
-     * @param literal column name
+     * @param literal column name, case-insensitive
      * @return the numerical index
+     * @throws IllegalArgumentException if the literal isn't a column name
      */
-    private static int letterToColumnIndex(String literal) {
+    public static int letterToColumnIndex(String literal) {
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Column name is empty");
+        }
         int number = 0;
         for (int i = 0; i < literal.length(); i++) {
-            number = number * ALPHABET_LENGTH + (literal.charAt(i) - (CHAR_A - 1));
+            char c = literal.charAt(i);
+            if (!isLetter(c)) {
+                throw new IllegalArgumentException("Invalid column name: " + literal);
+            }
+            number = number * ALPHABET_LENGTH + letterValue(c);
+            checkBounds(number, MAX_COLUMN, literal);
         }
         return number;
     }
 
+    // =================
+    //  Private Methods
+    // =================
+
+    /**
+     * Appends one end of a range, omitting its unbounded parts
+     *
+     * @param literal the builder to append to
+     * @param column  the column index, or {@link NumericRange#UNBOUNDED}
+     * @param row     the row index, or {@link NumericRange#UNBOUNDED}
+     */
+    private static void appendCell(StringBuilder literal, int column, int row) {
+        if (column != NumericRange.UNBOUNDED) {
+            if (column <= CACHED_COLUMNS) {
+                literal.append(ColumnLetters.LETTERS[column]);
+            } else {
+                char[] letters = new char[MAX_COLUMN_LETTERS];
+                int start = fillColumnLetters(letters, column);
+                literal.append(letters, start, letters.length - start);
+            }
+        }
+        if (row != NumericRange.UNBOUNDED) {
+            literal.append(row);
+        }
+    }
+
     /**
-     * Gets a numeric part from a range token
-     * e.g. (A100 -> 100) or (B4 -> 4)
+     * Appends the sheet name, quoted if it contains anything but letters, digits and underscores
      *
-     * @param token the part of a range,
-     *              where [A1:B2] is a range and [A1] and [B2] are the range tokens
-     * @return the numeric part of the token
+     * @param literal the builder to append to
+     * @param sheet   the name of the sheet
      */
-    private static String getNumericPart(String token) {
-        return token.chars()
-                .filter(s -> s >= CHAR_0 && s <= CHAR_9)
-                .mapToObj(s -> (char) s)
-                .collect(StringBuilder::new, StringBuilder::append, StringBuilder::append)
-                .toString();
+    private static void appendSheet(StringBuilder literal, String sheet) {
+        boolean plain = !sheet.isEmpty() && !isDigit(sheet.charAt(0));
+        for (int i = 0; plain && i < sheet.length(); i++) {
+            char c = sheet.charAt(i);
+            plain = isLetter(c) || isDigit(c) || c == '_';
+        }
+        if (plain) {
+            literal.append(sheet);
+            return;
+        }
+        literal.append(QUOTE);
+        for (int i = 0; i < sheet.length(); i++) {
+            char c = sheet.charAt(i);
+            if (c == QUOTE) {
+                literal.append(QUOTE);
+            }
+            literal.append(c);
+        }
+        literal.append(QUOTE);
     }
 
     /**
-     * Gets a letter part from a range token
-     * e.g. (A100 -> A) or (AZ14 -> AZ)
+     * Writes the letters of the column to the end of the buffer
      *
-     * @param token the part of a range,
-     *              where [A1:B2] is a range and [A1] and [B2] are the range tokens
-     * @return the literal part of the token
+     * @param letters the buffer of three chars
+     * @param index   index of the column, from 1 to 18278 (ZZZ)
+     * @return the position of the first letter in the buffer
      */
-    private static String getLetterPart(String token) {
-        return token.chars()
-                .filter(s -> s >= CHAR_A && s <= CHAR_Z)
-                .mapToObj(s -> (char) s)
-                .collect(StringBuilder::new, StringBuilder::append, StringBuilder::append)
-                .toString();
+    private static int fillColumnLetters(char[] letters, int index) {
+        if (index > MAX_COLUMN) {
+            throw new IllegalArgumentException("Column index is out of the sheet bounds: " + index);
+        }
+        int position = letters.length;
+        while (index > 0) {
+            int temp = (index - 1) % ALPHABET_LENGTH;
+            letters[--position] = (char) (temp + CHAR_A);
+            index = (index - temp - 1) / ALPHABET_LENGTH;
+        }
+        return position;
+    }
+
+    /**
+     * Finds the closing quote of the quoted sheet name at the start of the range.
+     * Doubled quotes inside the name are escaped quotes
+     *
+     * @param range the range starting with a quote
+     * @return the position of the closing quote
+     */
+    private static int parseQuotedSheetEnd(String range) {
+        int position = 1;
+        while (position < range.length()) {
+            if (range.charAt(position) == QUOTE) {
+                if (position + 1 < range.length() && range.charAt(position + 1) == QUOTE) {
+                    position += 2;
+                    continue;
+                }
+                return position;
+            }
+            position++;
+        }
+        throw invalidRange(range);
+    }
+
+    /**
+     * Extracts the quoted sheet name, replacing the escaped quotes
+     *
+     * @param range   the range starting with a quote
+     * @param closing the position of the closing quote
+     * @return the name of the sheet
+     */
+    private static String unquote(String range, int closing) {
+        String sheet = range.substring(1, closing);
+        return sheet.indexOf(QUOTE) < 0 ? sheet : sheet.replace("''", "'");
+    }
+
+    /**
+     * Checks the char is a latin letter of any case
+     *
+     * @param c the char to check
+     * @return true for A-Z and a-z
+     */
+    private static boolean isLetter(char c) {
+        return (c >= CHAR_A && c <= CHAR_Z) || (c >= CHAR_LOWER_A && c <= CHAR_LOWER_Z);
+    }
+
+    /**
+     * Checks the char is a decimal digit
+     *
+     * @param c the char to check
+     * @return true for 0-9
+     */
+    private static boolean isDigit(char c) {
+        return c >= CHAR_0 && c <= CHAR_9;
+    }
+
+    /**
+     * Gets the value of a column letter, e.g. (A -> 1) or (z -> 26)
+     *
+     * @param c the letter of any case
+     * @return the value of the letter
+     */
+    private static int letterValue(char c) {
+        return c >= CHAR_LOWER_A ? c - (CHAR_LOWER_A - 1) : c - (CHAR_A - 1);
+    }
+
+    /**
+     * Guards against the indexes not fitting the sheet (and int overflow)
+     *
+     * @param value the index parsed so far
+     * @param max   the maximum index
+     * @param range the parsed range, for the error message
+     */
+    private static void checkBounds(int value, int max, String range) {
+        if (value > max) {
+            throw invalidRange(range);
+        }
+    }
+
+    /**
+     * Creates the exception for the range which can't be parsed
+     *
+     * @param range the range
+     * @return the exception to throw
+     */
+    private static IllegalArgumentException invalidRange(String range) {
+        return new IllegalArgumentException("Invalid A1 range: " + range);
+    }
+
+    /**
+     * Lazily initialized letters of the columns A to ZZ, indexed by the column index
+     */
+    private static final class ColumnLetters {
+        private static final String[] LETTERS = new String[CACHED_COLUMNS + 1];
+
+        static {
+            char[] letters = new char[MAX_COLUMN_LETTERS];
+            for (int index = 1; index <= CACHED_COLUMNS; index++) {
+                int start = fillColumnLetters(letters, index);
+                LETTERS[index] = new String(letters, start, letters.length - start);
+            }
+        }
     }
-}
\ No newline at end of file
+}